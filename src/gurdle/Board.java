@@ -0,0 +1,272 @@
+package gurdle;
+
+/**
+ * An immutable game state, for looking ahead without touching the live
+ * {@link Model}: solvers and "what if I guessed X?" previews.
+ * <br><br>
+ * A board is a node in a persistent list of rows: it holds its own last
+ * row and points to the board it was made from, which holds the rows
+ * before that. {@link #apply(int)} therefore makes exactly one small
+ * object and shares every earlier row with the board it started from;
+ * nothing is copied, and any number of different continuations can
+ * branch off the same board.
+ * <br><br>
+ * The queries answer just as {@link Model}'s do after the same guesses.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public final class Board {
+
+    /**
+     * One scorer per thread (scorers are not thread-safe)
+     */
+    private static final ThreadLocal<Feedback> SCORERS =
+            ThreadLocal.withInitial(Feedback::new);
+
+    /**
+     * The legal words
+     */
+    private final Dictionary words;
+
+    /**
+     * The secret's position in the dictionary
+     */
+    private final int secret;
+
+    /**
+     * How many guesses the player gets
+     */
+    private final int numTries;
+
+    /**
+     * The board before the last row, or null if no rows have been played
+     */
+    private final Board previous;
+
+    /**
+     * The dictionary position of the last row's guess
+     */
+    private final int guess;
+
+    /**
+     * The feedback of the last row
+     */
+    private final int pattern;
+
+    /**
+     * How many rows have been played
+     */
+    private final int attempts;
+
+    /**
+     * The state of the game after the last row
+     */
+    private final Model.GameState state;
+
+    /**
+     * Make a board.
+     *
+     * @param words    the legal words
+     * @param secret   the secret's position
+     * @param numTries how many guesses the player gets
+     * @param previous the board before the last row (or null)
+     * @param guess    the last row's guess
+     * @param pattern  the last row's feedback
+     * @param attempts how many rows have been played
+     * @param state    the state of the game
+     */
+    private Board(Dictionary words, int secret, int numTries, Board previous,
+                  int guess, int pattern, int attempts, Model.GameState state) {
+        this.words = words;
+        this.secret = secret;
+        this.numTries = numTries;
+        this.previous = previous;
+        this.guess = guess;
+        this.pattern = pattern;
+        this.attempts = attempts;
+        this.state = state;
+    }
+
+    /**
+     * The board of a game that has just started.
+     *
+     * @param words    the legal words
+     * @param secret   the secret's position in words
+     * @param numTries how many guesses the player gets
+     * @return the empty board
+     */
+    public static Board start(Dictionary words, int secret, int numTries) {
+        if (secret < 0 || secret >= words.size()) {
+            throw new IllegalArgumentException("No such secret " + secret);
+        }
+        return new Board(words, secret, numTries, null, -1, 0, 0,
+                Model.GameState.ONGOING);
+    }
+
+    /**
+     * The board after one more guess. This board is unchanged.
+     *
+     * @param guessIndex the guess's position in the dictionary
+     * @return the new board, or this one if the game is already over
+     */
+    public Board apply(int guessIndex) {
+        if (this.state != Model.GameState.ONGOING) {
+            return this;
+        }
+        final int wordSize = this.words.wordSize();
+        final int feedback = SCORERS.get().score(
+                this.words.letters(), guessIndex * wordSize,
+                this.words.letters(), this.secret * wordSize, wordSize);
+        final Model.GameState next;
+        if (feedback == Feedback.allRight(wordSize)) {
+            next = Model.GameState.WON;
+        } else if (this.attempts + 1 == this.numTries) {
+            next = Model.GameState.LOST;
+        } else {
+            next = Model.GameState.ONGOING;
+        }
+        return new Board(this.words, this.secret, this.numTries, this,
+                guessIndex, feedback, this.attempts + 1, next);
+    }
+
+    /**
+     * The board after one more guess. As in {@link Model}, an illegal
+     * word does not use up a row.
+     *
+     * @param guess the guess
+     * @return the new board, or this one if the word is illegal or the
+     * game is already over
+     */
+    public Board apply(CharSequence guess) {
+        final int guessIndex = this.words.indexOf(guess);
+        return guessIndex < 0 ? this : this.apply(guessIndex);
+    }
+
+    /**
+     * The board holding a given row as its last row
+     *
+     * @param guessNum which guess ("row")
+     * @return the board
+     */
+    private Board row(int guessNum) {
+        if (guessNum < 0 || guessNum >= this.attempts) {
+            throw new IndexOutOfBoundsException("No row " + guessNum);
+        }
+        Board b = this;
+        while (b.attempts > guessNum + 1) {
+            b = b.previous;
+        }
+        return b;
+    }
+
+    // ******** Queries, as in Model ********
+
+    /**
+     * How's the game going?
+     *
+     * @return the current state
+     */
+    public Model.GameState gameState() {
+        return this.state;
+    }
+
+    /**
+     * How many valid guesses have been made?
+     *
+     * @return the number of rows played
+     */
+    public int numAttempts() {
+        return this.attempts;
+    }
+
+    /**
+     * How many guesses does the player get?
+     *
+     * @return the number of tries
+     */
+    public int numTries() {
+        return this.numTries;
+    }
+
+    /**
+     * Find out what was guessed at a specific point in this game.
+     * A new CharChoice is made for each call; search code should use
+     * {@link #guessIndex(int)} and {@link #pattern(int)} instead.
+     *
+     * @param guessNum which guess ("row")
+     * @param pos      which letter position ("column")
+     * @return the letter and its status, or an empty choice if the row has
+     * not been played
+     */
+    public CharChoice get(int guessNum, int pos) {
+        final CharChoice choice = new CharChoice();
+        if (guessNum < this.attempts) {
+            final Board b = this.row(guessNum);
+            final int wordSize = this.words.wordSize();
+            final byte[] letters = this.words.letters();
+            final int ch = letters[b.guess * wordSize + pos];
+            choice.setChar((char) ('A' + ch));
+            switch (Feedback.digit(b.pattern, pos)) {
+                case Feedback.RIGHT_POS -> choice.setStatus(CharChoice.Status.RIGHT_POS);
+                case Feedback.WRONG_POS -> choice.setStatus(CharChoice.Status.WRONG_POS);
+                default -> {
+                    boolean inSecret = false;
+                    for (int p = 0; p < wordSize; ++p) {
+                        inSecret |= letters[this.secret * wordSize + p] == ch;
+                    }
+                    choice.setStatus(inSecret
+                            ? CharChoice.Status.EMPTY : CharChoice.Status.WRONG);
+                }
+            }
+        }
+        return choice;
+    }
+
+    /**
+     * The dictionary position of a row's guess
+     *
+     * @param guessNum which guess ("row")
+     * @return the guess's position
+     */
+    public int guessIndex(int guessNum) {
+        return this.row(guessNum).guess;
+    }
+
+    /**
+     * The feedback of a row
+     *
+     * @param guessNum which guess ("row")
+     * @return the feedback pattern
+     */
+    public int pattern(int guessNum) {
+        return this.row(guessNum).pattern;
+    }
+
+    /**
+     * The legal words
+     *
+     * @return the dictionary
+     */
+    public Dictionary dictionary() {
+        return this.words;
+    }
+
+    /**
+     * The secret's position in the dictionary
+     *
+     * @return the position
+     */
+    public int secretIndex() {
+        return this.secret;
+    }
+
+    /**
+     * What's the secret word?
+     *
+     * @return the secret
+     */
+    public String secret() {
+        return this.words.get(this.secret);
+    }
+}
@@ -0,0 +1,201 @@
+package gurdle;
+
+/**
+ * Scores one guess against many secrets at once: the inner loop of
+ * solvers, adversarial play, analytics and simulations.
+ * The results are the same patterns {@link Feedback} produces, one
+ * unsigned byte per secret, so word lengths are limited to 5
+ * (3<sup>5</sup> = 243 patterns).
+ * <br><br>
+ * {@link #get()} picks an implementation once, at startup: one using the
+ * SIMD lanes of the <code>jdk.incubator.vector</code> API if that module
+ * is present (run with <code>--add-modules jdk.incubator.vector</code>),
+ * otherwise a scalar one. Setting the system property
+ * <code>gurdle.vector</code> to <code>false</code> forces the scalar one.
+ * Implementations keep no state and may be shared between threads.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public abstract class BulkScorer {
+
+    /**
+     * The longest word whose patterns fit in a byte
+     */
+    public static final int MAX_WORD_SIZE = 5;
+
+    /**
+     * Each thread's letter counts for {@link #scoreScalar}: the secret's
+     * in the first {@link Feedback#ALPHABET_SIZE}, the matches' in the
+     * rest (implementations are shared between threads)
+     */
+    private static final ThreadLocal<int[]> COUNTS =
+            ThreadLocal.withInitial(() -> new int[2 * Feedback.ALPHABET_SIZE]);
+
+    /**
+     * The implementation chosen at startup
+     */
+    private static final BulkScorer BEST = BulkScorer.choose();
+
+    /**
+     * The best implementation available on this JVM
+     *
+     * @return the shared scorer
+     */
+    public static BulkScorer get() {
+        return BEST;
+    }
+
+    /**
+     * The scalar implementation, whatever the JVM supports
+     *
+     * @return a scalar scorer
+     */
+    public static BulkScorer scalar() {
+        return new Scalar();
+    }
+
+    /**
+     * Decide which implementation to use.
+     * The vector one is only loaded by name, so that this class still
+     * works when the incubator module is missing.
+     *
+     * @return the implementation
+     */
+    private static BulkScorer choose() {
+        if (!Boolean.parseBoolean(System.getProperty("gurdle.vector", "true")) ||
+                ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return new Scalar();
+        }
+        try {
+            return (BulkScorer) Class.forName("gurdle.VectorBulkScorer")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new Scalar();
+        }
+    }
+
+    /**
+     * Score a guess against every packed word.
+     *
+     * @param guess    the guess's letters, 0 ('A') to 25 ('Z')
+     * @param guessOff where the guess starts in its array
+     * @param secrets  the secrets
+     * @param out      receives the pattern for secret i at index i;
+     *                 read it with <code>out[i] &amp; 0xFF</code>
+     */
+    public final void score(byte[] guess, int guessOff,
+                            PackedWords secrets, byte[] out) {
+        if (secrets.wordSize() > MAX_WORD_SIZE) {
+            throw new IllegalArgumentException(
+                    "Bulk scoring is limited to " + MAX_WORD_SIZE + " letters");
+        }
+        if (out.length < secrets.size()) {
+            throw new IllegalArgumentException("Output array too small");
+        }
+        this.scoreRange(guess, guessOff, secrets, 0, secrets.size(), out);
+    }
+
+    /**
+     * Score a guess against the packed words from index from (inclusive)
+     * to to (exclusive).
+     *
+     * @param guess    the guess's letters
+     * @param guessOff where the guess starts in its array
+     * @param secrets  the secrets
+     * @param from     the first secret to score
+     * @param to       one past the last secret to score
+     * @param out      receives the patterns
+     */
+    protected abstract void scoreRange(byte[] guess, int guessOff,
+                                       PackedWords secrets, int from, int to,
+                                       byte[] out);
+
+    /**
+     * The scalar scoring loop, also used by the vector implementation
+     * for the words left over after the last full vector.
+     * It follows {@link Feedback#score(byte[], int, byte[], int, int)},
+     * reading each secret's letters from the packed layout.
+     *
+     * @param guess    the guess's letters
+     * @param guessOff where the guess starts in its array
+     * @param secrets  the secrets
+     * @param from     the first secret to score
+     * @param to       one past the last secret to score
+     * @param out      receives the patterns
+     */
+    static void scoreScalar(byte[] guess, int guessOff,
+                            PackedWords secrets, int from, int to,
+                            byte[] out) {
+        final int n = secrets.size();
+        final int wordSize = secrets.wordSize();
+        final byte[] letters = secrets.letters();
+        final int[] counts = COUNTS.get(); // all 0 between calls
+        final int matches = Feedback.ALPHABET_SIZE;
+        for (int i = from; i < to; ++i) {
+            for (int p = 0; p < wordSize; ++p) {
+                counts[letters[p * n + i]] += 1;
+            }
+            int pattern = 0;
+            int place = 1;
+            boolean win = true;
+            for (int p = 0; p < wordSize; ++p, place *= 3) {
+                final int g = guess[guessOff + p];
+                if (g == letters[p * n + i]) {
+                    pattern += Feedback.RIGHT_POS * place;
+                    counts[matches + g] += 1;
+                } else {
+                    win = false;
+                    if (counts[g] > 0) {
+                        pattern += Feedback.WRONG_POS * place;
+                        counts[matches + g] += 1;
+                    }
+                }
+            }
+            if (!win) {
+                place = 1;
+                for (int p = 0; p < wordSize; ++p, place *= 3) {
+                    final int g = guess[guessOff + p];
+                    if (g != letters[p * n + i] && counts[matches + g] > counts[g]) {
+                        pattern -= Feedback.WRONG_POS * place;
+                        counts[matches + g] -= 1;
+                    }
+                }
+            }
+            for (int p = 0; p < wordSize; ++p) {
+                counts[letters[p * n + i]] = 0;
+                counts[matches + guess[guessOff + p]] = 0;
+            }
+            out[i] = (byte) pattern;
+        }
+    }
+
+    /**
+     * Has letter p of the guess already appeared earlier in the guess?
+     *
+     * @param guess    the guess's letters
+     * @param guessOff where the guess starts in its array
+     * @param p        the letter position
+     * @return true if it is a repeat
+     */
+    static boolean isRepeat(byte[] guess, int guessOff, int p) {
+        for (int q = 0; q < p; ++q) {
+            if (guess[guessOff + q] == guess[guessOff + p]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The implementation used when SIMD lanes are not available
+     */
+    private static class Scalar extends BulkScorer {
+        @Override
+        protected void scoreRange(byte[] guess, int guessOff,
+                                  PackedWords secrets, int from, int to,
+                                  byte[] out) {
+            scoreScalar(guess, guessOff, secrets, from, to, out);
+        }
+    }
+}
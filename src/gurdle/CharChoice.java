@@ -22,6 +22,14 @@ public class CharChoice {
      * a white space as character.
      */
     public CharChoice() {
+        this.reset();
+    }
+
+    /**
+     * Make this letter empty again, as if just created, so that a grid
+     * can be reused for a new game.
+     */
+    public void reset() {
         this.status = Status.EMPTY;
         this.ch = ' ';
     }
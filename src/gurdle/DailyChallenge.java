@@ -0,0 +1,201 @@
+package gurdle;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * The daily challenge: every session plays the same secret, which is
+ * chosen from the date.
+ * Because the secret is shared, the feedback pattern for every legal guess
+ * is worked out once, when the day starts, so scoring a guess is a
+ * single array lookup.
+ * <br><br>
+ * Each game holds on to the {@link Day} it started with. When the date
+ * changes, the next call to {@link #today()} builds the new day and swaps
+ * it in atomically; games still in progress finish on the old day.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class DailyChallenge {
+
+    /**
+     * One day's challenge: its secret and the precomputed feedback for
+     * every legal guess
+     */
+    public static class Day {
+
+        /**
+         * The date this challenge is for
+         */
+        private final LocalDate date;
+
+        /**
+         * The words the guesses are indexed in
+         */
+        private final Dictionary dictionary;
+
+        /**
+         * The position of the secret in the dictionary
+         */
+        private final int secretIndex;
+
+        /**
+         * The feedback pattern for each guess index
+         * (patterns fit in an unsigned byte)
+         */
+        private final byte[] patterns;
+
+        /**
+         * Build a day's challenge, scoring all guesses in parallel.
+         *
+         * @param date        the date
+         * @param dictionary  the legal words
+         * @param secretIndex the position of the secret
+         * @throws IllegalArgumentException if the words are too long for
+         *                                  their patterns to fit in a byte
+         */
+        private Day(LocalDate date, Dictionary dictionary, int secretIndex) {
+            if (Feedback.numPatterns(dictionary.wordSize()) > MAX_PATTERNS) {
+                throw new IllegalArgumentException(
+                        "No daily challenge for " + dictionary.wordSize()
+                                + "-letter words");
+            }
+            this.date = date;
+            this.dictionary = dictionary;
+            this.secretIndex = secretIndex;
+            this.patterns = new byte[dictionary.size()];
+            final byte[] letters = dictionary.letters();
+            final int wordSize = dictionary.wordSize();
+            IntStream.range(0, dictionary.size()).parallel().forEach(guess ->
+                    this.patterns[guess] = (byte) SCORERS.get().score(
+                            letters, guess * wordSize,
+                            letters, secretIndex * wordSize, wordSize)
+            );
+        }
+
+        /**
+         * The date this challenge is for
+         *
+         * @return the date
+         */
+        public LocalDate date() {
+            return this.date;
+        }
+
+        /**
+         * The words this challenge's guesses are checked against
+         *
+         * @return the dictionary in use on this day
+         */
+        public Dictionary dictionary() {
+            return this.dictionary;
+        }
+
+        /**
+         * The day's secret word
+         *
+         * @return the secret
+         */
+        public String secret() {
+            return this.dictionary.get(this.secretIndex);
+        }
+
+        /**
+         * The feedback for a guess
+         *
+         * @param guessIndex the guess's position in {@link #dictionary()}
+         * @return the feedback pattern
+         */
+        public int pattern(int guessIndex) {
+            return this.patterns[guessIndex] & 0xFF;
+        }
+    }
+
+    /**
+     * The most patterns a day's table can hold, one unsigned byte each
+     */
+    private static final int MAX_PATTERNS = 256;
+
+    /**
+     * One scorer per worker thread while a day is being built
+     */
+    private static final ThreadLocal<Feedback> SCORERS =
+            ThreadLocal.withInitial(Feedback::new);
+
+    /**
+     * Decides what the date is (and in which time zone)
+     */
+    private final Clock clock;
+
+    /**
+     * Key of the non-repeating schedule the daily secrets come from
+     */
+    private final long seed;
+
+    /**
+     * Where the words come from; consulted at each rollover
+     */
+    private final Supplier<Dictionary> words;
+
+    /**
+     * The current day
+     */
+    private final AtomicReference<Day> current = new AtomicReference<>();
+
+    /**
+     * Create the daily challenge.
+     *
+     * @param words supplies the dictionary at each rollover
+     *              (e.g., <code>model::dictionary</code>)
+     * @param seed  picks which secrets the days get; the same seed always
+     *              gives the same secret on the same date
+     * @param clock the clock that decides when the day rolls over
+     */
+    public DailyChallenge(Supplier<Dictionary> words, long seed, Clock clock) {
+        this.words = words;
+        this.seed = seed;
+        this.clock = clock;
+    }
+
+    /**
+     * Fetch today's challenge, rolling over to a new day first if the
+     * date has changed.
+     *
+     * @return today's challenge
+     */
+    public Day today() {
+        final LocalDate date = LocalDate.now(this.clock);
+        Day day = this.current.get();
+        if (day == null || !day.date.equals(date)) {
+            day = this.rollover(date);
+        }
+        return day;
+    }
+
+    /**
+     * Build a new day and make it current. Only one thread builds it;
+     * the others wait for it and then use it.
+     *
+     * @param date the new date
+     * @return the new day
+     */
+    private synchronized Day rollover(LocalDate date) {
+        Day day = this.current.get();
+        if (day == null || !day.date.equals(date)) {
+            final Dictionary dictionary = this.words.get();
+            // Each date has a fixed place in the schedule, so no secret
+            // comes back until every word has had its day. The schedule
+            // starts at the earliest date, so no place is negative.
+            final long place = date.toEpochDay() - LocalDate.MIN.toEpochDay();
+            final int secretIndex = new SecretScheduler(this.seed, place)
+                    .next(dictionary.size());
+            day = new Day(date, dictionary, secretIndex);
+            this.current.set(day);
+        }
+        return day;
+    }
+}
@@ -0,0 +1,390 @@
+package gurdle;
+
+import util.metrics.Histogram;
+import util.metrics.Metrics;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * An immutable snapshot of the legal words, along with the sampler used
+ * to pick secrets from them.
+ * Each line of the word file holds one word, optionally followed by
+ * white space and a weight (word frequency or difficulty tier).
+ * Words without a weight get a weight of 1.
+ * <br><br>
+ * The words are not kept as strings: every word's letters are packed into
+ * one array (0 for 'A' up to 25 for 'Z'), for fast scoring and so that
+ * a large word list takes about a byte per letter, plus a hash index
+ * from word to position. {@link #get(int)} makes a word's string when
+ * it is asked for.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class Dictionary {
+
+    /**
+     * The weight given to a word with no weight column
+     */
+    public static final double DEFAULT_WEIGHT = 1.0;
+
+    /**
+     * The longest word a dictionary can hold (its letters must pack into
+     * a long, five bits each)
+     */
+    public static final int MAX_WORD_SIZE = 12;
+
+    /**
+     * Time spent loading word files
+     */
+    private static final Histogram LOAD_TIMES = Metrics.histogram("dictionary.load");
+
+    /**
+     * How many words there are
+     */
+    private final int size;
+
+    /**
+     * Picks secrets according to the words' weights
+     */
+    private final WordSampler sampler;
+
+    /**
+     * The number of letters in every word
+     */
+    private final int wordSize;
+
+    /**
+     * Every word's letters, word i starting at i * wordSize
+     */
+    private final byte[] letters;
+
+    /**
+     * Open-addressed hash table of packed words (0 = empty slot)
+     */
+    private final long[] indexKeys;
+
+    /**
+     * The word position for each entry of indexKeys
+     */
+    private final int[] indexValues;
+
+    /**
+     * A checksum of the words, in order
+     */
+    private final int version;
+
+    /**
+     * Create a dictionary from already-parsed words and weights.
+     *
+     * @param words   the legal words, all the same length, all capitals
+     * @param weights the weight of each word, parallel to words
+     * @throws IllegalArgumentException if a word is malformed
+     */
+    public Dictionary(List<String> words, double[] weights) {
+        this(words.isEmpty() ? Model.WORD_SIZE : words.get(0).length(),
+                letters(words), words.size(), weights);
+    }
+
+    /**
+     * Create a dictionary from words already packed as letters.
+     *
+     * @param wordSize the number of letters in every word
+     * @param letters  every word's letters, 0 ('A') to 25 ('Z'), word i
+     *                 starting at i * wordSize; kept, not copied
+     * @param size     the number of words
+     * @param weights  the weight of each word; kept, not copied
+     * @throws IllegalArgumentException if the weights do not match
+     */
+    Dictionary(int wordSize, byte[] letters, int size, double[] weights) {
+        if (size != weights.length || letters.length != size * wordSize) {
+            throw new IllegalArgumentException(
+                    "Need one weight and one word's letters per word");
+        }
+        this.size = size;
+        this.sampler = new WordSampler(weights);
+        this.wordSize = wordSize;
+        this.letters = letters;
+        int capacity = Integer.highestOneBit(Math.max(size, 1)) * 4;
+        this.indexKeys = new long[capacity];
+        this.indexValues = new int[capacity];
+        for (int i = 0; i < size; ++i) {
+            long key = 0;
+            for (int c = 0; c < wordSize; ++c) {
+                key = (key << 5) | (letters[i * wordSize + c] + 1);
+            }
+            int slot = this.slot(key);
+            while (this.indexKeys[slot] != 0 && this.indexKeys[slot] != key) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            if (this.indexKeys[slot] == 0) { // keep the first of duplicates
+                this.indexKeys[slot] = key;
+                this.indexValues[slot] = i;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(this.wordSize);
+        crc.update(this.letters);
+        this.version = (int) crc.getValue();
+    }
+
+    /**
+     * Pack words' letters into one array.
+     *
+     * @param words the words, all the same length, all capitals
+     * @return their letters, 0 ('A') to 25 ('Z'), one word after another
+     * @throws IllegalArgumentException if a word is malformed
+     */
+    private static byte[] letters(List<String> words) {
+        final int wordSize = words.isEmpty() ? 0 : words.get(0).length();
+        if (wordSize > MAX_WORD_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "\"%s\" is longer than %d letters", words.get(0), MAX_WORD_SIZE));
+        }
+        final byte[] letters = new byte[words.size() * wordSize];
+        for (int i = 0; i < words.size(); ++i) {
+            final String word = words.get(i);
+            if (word.length() != wordSize) {
+                throw new IllegalArgumentException(String.format(
+                        "\"%s\" is not %d letters long", word, wordSize));
+            }
+            for (int c = 0; c < wordSize; ++c) {
+                final char ch = word.charAt(c);
+                if (ch < 'A' || ch > 'Z') {
+                    throw new IllegalArgumentException(String.format(
+                            "\"%s\" is not all capital letters", word));
+                }
+                letters[i * wordSize + c] = (byte) (ch - 'A');
+            }
+        }
+        return letters;
+    }
+
+    /**
+     * Read a word file. Words are made capitals, and a word already read
+     * is skipped, so that it is not picked as a secret more often.
+     *
+     * @param fileName the name of the word file
+     * @return the new dictionary
+     * @throws IOException if the file cannot be read, a word is not all
+     *                     letters or is not as long as the first, or a
+     *                     weight cannot be parsed
+     */
+    public static Dictionary load(String fileName) throws IOException {
+        final long start = Metrics.start();
+        List<String> words = new ArrayList<>(2000);
+        Set<String> seen = new HashSet<>();
+        double[] weights = new double[2000];
+        try (BufferedReader wFile = new BufferedReader(
+                new FileReader(fileName)
+        )
+        ) {
+            String line;
+            int lineNum = 0;
+            while ((line = wFile.readLine()) != null) {
+                lineNum += 1;
+                String[] fields = line.trim().split("\\s+");
+                final String word = fields[0].toUpperCase();
+                if (word.isEmpty() || !seen.add(word)) {
+                    continue;
+                }
+                double weight = DEFAULT_WEIGHT;
+                if (fields.length > 1) {
+                    try {
+                        weight = Double.parseDouble(fields[1]);
+                    } catch (NumberFormatException nfe) {
+                        throw new IOException(String.format(
+                                "%s:%d: bad weight \"%s\"",
+                                fileName, lineNum, fields[1]));
+                    }
+                }
+                final int wordSize = words.isEmpty()
+                        ? word.length() : words.get(0).length();
+                if (word.length() != wordSize) {
+                    throw new IOException(String.format(
+                            "%s:%d: \"%s\" is not %d letters long",
+                            fileName, lineNum, word, wordSize));
+                }
+                for (int c = 0; c < wordSize; ++c) {
+                    if (word.charAt(c) < 'A' || word.charAt(c) > 'Z') {
+                        throw new IOException(String.format(
+                                "%s:%d: \"%s\" is not all letters",
+                                fileName, lineNum, word));
+                    }
+                }
+                if (words.size() == weights.length) {
+                    double[] bigger = new double[weights.length * 2];
+                    System.arraycopy(weights, 0, bigger, 0, weights.length);
+                    weights = bigger;
+                }
+                weights[words.size()] = weight;
+                words.add(word);
+            }
+        }
+        double[] trimmed = new double[words.size()];
+        System.arraycopy(weights, 0, trimmed, 0, trimmed.length);
+        try {
+            final Dictionary dictionary = new Dictionary(words, trimmed);
+            LOAD_TIMES.recordSince(start);
+            return dictionary;
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(fileName + ": " + iae.getMessage());
+        }
+    }
+
+    /**
+     * The legal words
+     *
+     * @return an unmodifiable list of the words, in file order, whose
+     * strings are made as they are read
+     */
+    public List<String> words() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return Dictionary.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return Dictionary.this.size;
+            }
+        };
+    }
+
+    /**
+     * How many words are there?
+     *
+     * @return the number of legal words
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Look up a word by position.
+     *
+     * @param index the word's position in the file
+     * @return the word
+     */
+    public String get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        final char[] word = new char[this.wordSize];
+        for (int c = 0; c < this.wordSize; ++c) {
+            word[c] = (char) ('A' + this.letters[index * this.wordSize + c]);
+        }
+        return new String(word);
+    }
+
+    /**
+     * Is this a legal word?
+     *
+     * @param word the word to check
+     * @return true iff the word is in the dictionary
+     */
+    public boolean contains(CharSequence word) {
+        return this.indexOf(word) >= 0;
+    }
+
+    /**
+     * Find a word's position, without allocating anything.
+     *
+     * @param word the word to look up
+     * @return the word's position, or -1 if it is not a legal word
+     */
+    public int indexOf(CharSequence word) {
+        final long key = pack(word);
+        if (key == 0) {
+            return -1;
+        }
+        for (int slot = this.slot(key); ; slot = (slot + 1) & (this.indexKeys.length - 1)) {
+            if (this.indexKeys[slot] == key) {
+                return this.indexValues[slot];
+            }
+            if (this.indexKeys[slot] == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Where in the index table a word's search starts
+     *
+     * @param key the packed word
+     * @return the first slot to probe
+     */
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (this.indexKeys.length - 1);
+    }
+
+    /**
+     * Pack a word into a long, five bits per letter ('A' = 1).
+     *
+     * @param word the word
+     * @return the packed word, or 0 if it cannot be a legal word
+     */
+    private static long pack(CharSequence word) {
+        if (word.length() == 0 || word.length() > MAX_WORD_SIZE) {
+            return 0;
+        }
+        long key = 0;
+        for (int c = 0; c < word.length(); ++c) {
+            final char ch = word.charAt(c);
+            if (ch < 'A' || ch > 'Z') {
+                return 0;
+            }
+            key = (key << 5) | (ch - 'A' + 1);
+        }
+        return key;
+    }
+
+    /**
+     * Identifies this list of words. Anything stored by word position
+     * (strategy trees, game records) is only valid for the same version.
+     *
+     * @return a checksum of the words, in order
+     */
+    public int version() {
+        return this.version;
+    }
+
+    /**
+     * The number of letters in every word
+     *
+     * @return the word length
+     */
+    public int wordSize() {
+        return this.wordSize;
+    }
+
+    /**
+     * Every word's letters, packed as 0 ('A') to 25 ('Z'),
+     * word i starting at i * {@link #wordSize()}.
+     * The array is shared, not copied; do not modify it.
+     *
+     * @return the letters of all the words
+     */
+    public byte[] letters() {
+        return this.letters;
+    }
+
+    /**
+     * The weighted sampler built for this dictionary
+     *
+     * @return the sampler
+     */
+    public WordSampler sampler() {
+        return this.sampler;
+    }
+}
@@ -0,0 +1,235 @@
+package gurdle;
+
+/**
+ * Scores a guess against a secret, producing the feedback pattern as a
+ * single number: one base-3 digit per letter position, position 0 being
+ * the least significant. A digit is {@link #RIGHT_POS}, {@link #WRONG_POS}
+ * or {@link #WRONG}. For 5-letter words there are 3<sup>5</sup> = 243
+ * patterns.
+ * <br><br>
+ * The scoring rules are those of {@link Model}: a guess letter found in
+ * the secret is marked WRONG_POS (or RIGHT_POS if in the same spot); if
+ * that marks more copies of a letter than the secret holds, the extra
+ * WRONG_POS copies are cleared, starting with the leftmost.
+ * <br><br>
+ * Letter counts are kept in reusable arrays, so scoring is linear in the
+ * word length and allocates nothing. Because of those arrays, an instance
+ * must not be shared between threads.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class Feedback {
+
+    /**
+     * Digit for a letter that is not in the secret, or is a surplus copy
+     */
+    public static final int WRONG = 0;
+
+    /**
+     * Digit for a letter that is in the secret, but somewhere else
+     */
+    public static final int WRONG_POS = 1;
+
+    /**
+     * Digit for a letter that is in the secret at this position
+     */
+    public static final int RIGHT_POS = 2;
+
+    /**
+     * Number of letters in the alphabet
+     */
+    public static final int ALPHABET_SIZE = 26;
+
+    /**
+     * How many times each letter occurs in the secret
+     */
+    private final int[] secretCounts = new int[ALPHABET_SIZE];
+
+    /**
+     * How many guess letters have been matched against each secret letter
+     */
+    private final int[] matchCounts = new int[ALPHABET_SIZE];
+
+    /**
+     * How many different patterns there are for a word length
+     *
+     * @param wordSize the number of letters in a word
+     * @return 3 to the power wordSize
+     */
+    public static int numPatterns(int wordSize) {
+        int n = 1;
+        for (int i = 0; i < wordSize; ++i) {
+            n *= 3;
+        }
+        return n;
+    }
+
+    /**
+     * The pattern of a winning guess
+     *
+     * @param wordSize the number of letters in a word
+     * @return the pattern with every digit RIGHT_POS
+     */
+    public static int allRight(int wordSize) {
+        return numPatterns(wordSize) - 1;
+    }
+
+    /**
+     * The digit of one position of a pattern
+     *
+     * @param pattern the whole pattern
+     * @param pos     which letter position
+     * @return WRONG, WRONG_POS or RIGHT_POS
+     */
+    public static int digit(int pattern, int pos) {
+        for (int i = 0; i < pos; ++i) {
+            pattern /= 3;
+        }
+        return pattern % 3;
+    }
+
+    /**
+     * Score a guess whose letters are stored as 0 ('A') to 25 ('Z').
+     *
+     * @param guess     holds the guess's letters
+     * @param guessOff  where the guess starts in its array
+     * @param secret    holds the secret's letters
+     * @param secretOff where the secret starts in its array
+     * @param wordSize  the number of letters in both words
+     * @return the feedback pattern
+     */
+    public int score(byte[] guess, int guessOff,
+                     byte[] secret, int secretOff, int wordSize) {
+        for (int c = 0; c < wordSize; ++c) {
+            this.secretCounts[secret[secretOff + c]] += 1;
+        }
+        int pattern = 0;
+        int place = 1;
+        boolean win = true;
+        for (int c = 0; c < wordSize; ++c) {
+            final int g = guess[guessOff + c];
+            if (g == secret[secretOff + c]) {
+                pattern += RIGHT_POS * place;
+                this.matchCounts[g] += 1;
+            } else {
+                win = false;
+                if (this.secretCounts[g] > 0) {
+                    pattern += WRONG_POS * place;
+                    this.matchCounts[g] += 1;
+                }
+            }
+            place *= 3;
+        }
+        if (!win) {
+            place = 1;
+            for (int c = 0; c < wordSize; ++c) {
+                final int g = guess[guessOff + c];
+                if (g != secret[secretOff + c] &&
+                        this.matchCounts[g] > this.secretCounts[g]) {
+                    pattern -= WRONG_POS * place;
+                    this.matchCounts[g] -= 1;
+                }
+                place *= 3;
+            }
+        }
+        for (int c = 0; c < wordSize; ++c) {
+            this.secretCounts[secret[secretOff + c]] = 0;
+            this.matchCounts[guess[guessOff + c]] = 0;
+        }
+        return pattern;
+    }
+
+    /**
+     * Score a guess given as text.
+     *
+     * @param guess  the guess, in capital letters
+     * @param secret the secret, in capital letters, of the same length
+     * @return the feedback pattern
+     */
+    public int score(CharSequence guess, CharSequence secret) {
+        final int wordSize = secret.length();
+        for (int c = 0; c < wordSize; ++c) {
+            this.secretCounts[secret.charAt(c) - 'A'] += 1;
+        }
+        int pattern = 0;
+        int place = 1;
+        boolean win = true;
+        for (int c = 0; c < wordSize; ++c) {
+            final int g = guess.charAt(c) - 'A';
+            if (guess.charAt(c) == secret.charAt(c)) {
+                pattern += RIGHT_POS * place;
+                this.matchCounts[g] += 1;
+            } else {
+                win = false;
+                if (this.secretCounts[g] > 0) {
+                    pattern += WRONG_POS * place;
+                    this.matchCounts[g] += 1;
+                }
+            }
+            place *= 3;
+        }
+        if (!win) {
+            place = 1;
+            for (int c = 0; c < wordSize; ++c) {
+                final int g = guess.charAt(c) - 'A';
+                if (guess.charAt(c) != secret.charAt(c) &&
+                        this.matchCounts[g] > this.secretCounts[g]) {
+                    pattern -= WRONG_POS * place;
+                    this.matchCounts[g] -= 1;
+                }
+                place *= 3;
+            }
+        }
+        for (int c = 0; c < wordSize; ++c) {
+            this.secretCounts[secret.charAt(c) - 'A'] = 0;
+            this.matchCounts[guess.charAt(c) - 'A'] = 0;
+        }
+        return pattern;
+    }
+
+    /**
+     * Set the statuses of a row of guess letters from a pattern.
+     * A WRONG digit becomes {@link CharChoice.Status#EMPTY} if the letter
+     * is a surplus copy of a letter in the secret, and
+     * {@link CharChoice.Status#WRONG} otherwise, just as {@link Model}
+     * has always displayed it.
+     *
+     * @param pattern the feedback pattern
+     * @param row     the guess letters, already holding their characters
+     * @param secret  the secret word
+     */
+    public static void fill(int pattern, CharChoice[] row, String secret) {
+        for (CharChoice choice : row) {
+            switch (pattern % 3) {
+                case RIGHT_POS -> choice.setStatus(CharChoice.Status.RIGHT_POS);
+                case WRONG_POS -> choice.setStatus(CharChoice.Status.WRONG_POS);
+                default -> choice.setStatus(
+                        secret.indexOf(choice.getChar()) >= 0
+                                ? CharChoice.Status.EMPTY
+                                : CharChoice.Status.WRONG);
+            }
+            pattern /= 3;
+        }
+    }
+
+    /**
+     * Recover the pattern from a scored row of guess letters.
+     *
+     * @param row the guess letters, after scoring
+     * @return the feedback pattern
+     */
+    public static int pattern(CharChoice[] row) {
+        int pattern = 0;
+        int place = 1;
+        for (CharChoice choice : row) {
+            switch (choice.getStatus()) {
+                case RIGHT_POS -> pattern += RIGHT_POS * place;
+                case WRONG_POS -> pattern += WRONG_POS * place;
+                default -> { }
+            }
+            place *= 3;
+        }
+        return pattern;
+    }
+}
@@ -0,0 +1,367 @@
+package gurdle;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compact binary form of a game, for storing and sending games in
+ * bulk. A game is:
+ * <ol>
+ *     <li>the dictionary's {@link Dictionary#version() version}, 4 bytes;</li>
+ *     <li>the word length and the number of attempts the game gives,
+ *     1 byte (length &lt;&lt; 4 | attempts);</li>
+ *     <li>the outcome and the number of rows, 1 byte
+ *     (rows &lt;&lt; 2 | outcome);</li>
+ *     <li>the secret's position in the dictionary plus 1, as a varint
+ *     (0 if it is not in the dictionary, followed by its letters, one
+ *     byte each);</li>
+ *     <li>each row: the guess's position as a varint, then its feedback
+ *     pattern, 1 byte for words of up to 5 letters, otherwise a
+ *     varint.</li>
+ * </ol>
+ * A typical game of 4 rows takes 4 + 2 + 2 + 4 * 3 = 20 bytes. Games can
+ * be written one after another into a buffer and read back in order.
+ * Nothing is allocated to encode a game, and decoding fills a reusable
+ * {@link Record}.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public final class GameCodec {
+
+    /**
+     * The most bytes one game can take
+     */
+    public static final int MAX_BYTES =
+            4 + 2 + 5 + Dictionary.MAX_WORD_SIZE + Model.MAX_TRIES * (5 + 3);
+
+    /**
+     * The longest words whose patterns fit in a byte
+     */
+    private static final int BYTE_PATTERN_SIZE = 5;
+
+    /**
+     * No instances
+     */
+    private GameCodec() {}
+
+    /**
+     * A decoded game. Reuse one to decode many games.
+     */
+    public static final class Record {
+
+        /**
+         * The version of the dictionary the positions refer to
+         */
+        private int version;
+
+        /**
+         * The number of letters in each word
+         */
+        private int wordSize;
+
+        /**
+         * The number of attempts the game gives
+         */
+        private int numTries;
+
+        /**
+         * How the game stands
+         */
+        private Model.GameState outcome;
+
+        /**
+         * The secret's position, or -1 if it is not in the dictionary
+         */
+        private int secret;
+
+        /**
+         * The secret's letters, 0 ('A') to 25, if it is not in the
+         * dictionary
+         */
+        private final byte[] secretLetters = new byte[Dictionary.MAX_WORD_SIZE];
+
+        /**
+         * How many rows were played
+         */
+        private int numRows;
+
+        /**
+         * Each row's guess position
+         */
+        private final int[] guesses = new int[Model.MAX_TRIES];
+
+        /**
+         * Each row's feedback
+         */
+        private final int[] patterns = new int[Model.MAX_TRIES];
+
+        /**
+         * The dictionary version
+         *
+         * @return the version the positions refer to
+         */
+        public int version() {
+            return this.version;
+        }
+
+        /**
+         * The word length
+         *
+         * @return the number of letters in each word
+         */
+        public int wordSize() {
+            return this.wordSize;
+        }
+
+        /**
+         * The number of attempts the game gives
+         *
+         * @return the number of rows the grid had
+         */
+        public int numTries() {
+            return this.numTries;
+        }
+
+        /**
+         * How the game stands
+         *
+         * @return ONGOING, WON or LOST
+         */
+        public Model.GameState outcome() {
+            return this.outcome;
+        }
+
+        /**
+         * The secret word's position
+         *
+         * @return its position, or -1 if it is not in the dictionary
+         */
+        public int secret() {
+            return this.secret;
+        }
+
+        /**
+         * The secret word
+         *
+         * @param words the dictionary the game was played with
+         * @return the secret
+         */
+        public String secret(Dictionary words) {
+            if (this.secret >= 0) {
+                return words.get(this.secret);
+            }
+            final char[] letters = new char[this.wordSize];
+            for (int c = 0; c < letters.length; ++c) {
+                letters[c] = (char) ('A' + this.secretLetters[c]);
+            }
+            return new String(letters);
+        }
+
+        /**
+         * How many rows were played
+         *
+         * @return the number of rows
+         */
+        public int numRows() {
+            return this.numRows;
+        }
+
+        /**
+         * A row's guess
+         *
+         * @param row which row
+         * @return the guess's position in the dictionary
+         */
+        public int guess(int row) {
+            return this.guesses[row];
+        }
+
+        /**
+         * A row's feedback
+         *
+         * @param row which row
+         * @return the pattern (see {@link Feedback})
+         */
+        public int pattern(int row) {
+            return this.patterns[row];
+        }
+    }
+
+    /**
+     * Write a game.
+     *
+     * @param model the game
+     * @param out   where to write it; it needs {@link #MAX_BYTES} free
+     * @throws java.nio.BufferOverflowException if there is not room
+     */
+    public static void encode(Model model, ByteBuffer out) {
+        final Dictionary words = model.gameDictionary();
+        final int rows = model.numAttempts();
+        final int wordSize = model.wordSize();
+        out.putInt(words.version());
+        out.put((byte) (wordSize << 4 | model.numTries()));
+        out.put((byte) (rows << 2 | outcome(model.gameState())));
+        final String secret = model.secret();
+        final int secretIndex = words.indexOf(secret);
+        putVarint(out, secretIndex + 1);
+        if (secretIndex < 0) {
+            for (int c = 0; c < wordSize; ++c) {
+                out.put((byte) (secret.charAt(c) - 'A'));
+            }
+        }
+        for (int r = 0; r < rows; ++r) {
+            putVarint(out, model.guessIndex(r));
+            putPattern(out, wordSize, model.pattern(r));
+        }
+    }
+
+    /**
+     * Write a game that is already held as dictionary positions, which
+     * is much quicker than looking up the words of a {@link Model}.
+     *
+     * @param board the game
+     * @param out   where to write it; it needs {@link #MAX_BYTES} free
+     * @throws java.nio.BufferOverflowException if there is not room
+     */
+    public static void encode(Board board, ByteBuffer out) {
+        final int rows = board.numAttempts();
+        final int wordSize = board.dictionary().wordSize();
+        out.putInt(board.dictionary().version());
+        out.put((byte) (wordSize << 4 | board.numTries()));
+        out.put((byte) (rows << 2 | outcome(board.gameState())));
+        putVarint(out, board.secretIndex() + 1);
+        for (int r = 0; r < rows; ++r) {
+            putVarint(out, board.guessIndex(r));
+            putPattern(out, wordSize, board.pattern(r));
+        }
+    }
+
+    /**
+     * Read the next game. If the buffer ends part way through it, nothing
+     * is read, so that the rest can be added and the read tried again.
+     *
+     * @param in     where to read from
+     * @param record where to put the game
+     * @return false if the buffer does not hold a whole game
+     * @throws IllegalArgumentException if the bytes are not a game (positions
+     *                                  are checked against a dictionary
+     *                                  only when it is restored)
+     */
+    public static boolean decode(ByteBuffer in, Record record) {
+        final int start = in.position();
+        try {
+            record.version = in.getInt();
+            final int size = in.get() & 0xFF;
+            record.wordSize = size >>> 4;
+            record.numTries = size & 0xF;
+            if (record.wordSize == 0 || record.wordSize > Dictionary.MAX_WORD_SIZE
+                    || record.numTries == 0) {
+                throw new IllegalArgumentException("Bad game size");
+            }
+            final int head = in.get() & 0xFF;
+            record.numRows = head >>> 2;
+            record.outcome = switch (head & 3) {
+                case 0 -> Model.GameState.ONGOING;
+                case 1 -> Model.GameState.WON;
+                case 2 -> Model.GameState.LOST;
+                default -> throw new IllegalArgumentException("Bad outcome");
+            };
+            if (record.numRows > record.numTries) {
+                throw new IllegalArgumentException(
+                        "Too many rows: " + record.numRows);
+            }
+            record.secret = getVarint(in) - 1;
+            if (record.secret < -1) {
+                throw new IllegalArgumentException("Bad secret position");
+            }
+            if (record.secret < 0) {
+                in.get(record.secretLetters, 0, record.wordSize);
+                for (int c = 0; c < record.wordSize; ++c) {
+                    if (record.secretLetters[c] < 0 || record.secretLetters[c] > 25) {
+                        throw new IllegalArgumentException("Bad secret");
+                    }
+                }
+            }
+            for (int r = 0; r < record.numRows; ++r) {
+                record.guesses[r] = getVarint(in);
+                record.patterns[r] = record.wordSize <= BYTE_PATTERN_SIZE
+                        ? in.get() & 0xFF : getVarint(in);
+                if (record.guesses[r] < 0) {
+                    throw new IllegalArgumentException("Bad guess position");
+                }
+                if (record.patterns[r] < 0
+                        || record.patterns[r] >= Feedback.numPatterns(record.wordSize)) {
+                    throw new IllegalArgumentException("Bad pattern");
+                }
+            }
+            return true;
+        } catch (BufferUnderflowException bue) {
+            in.position(start);
+            return false;
+        }
+    }
+
+    /**
+     * The code of an outcome
+     *
+     * @param state the game state
+     * @return 0 for an ongoing game, 1 if won, 2 if lost
+     */
+    private static int outcome(Model.GameState state) {
+        return switch (state) {
+            case WON -> 1;
+            case LOST -> 2;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Write a feedback pattern: a byte if it fits, otherwise a varint.
+     *
+     * @param out      where to write
+     * @param wordSize the number of letters in the words
+     * @param pattern  the pattern
+     */
+    private static void putPattern(ByteBuffer out, int wordSize, int pattern) {
+        if (wordSize <= BYTE_PATTERN_SIZE) {
+            out.put((byte) pattern);
+        } else {
+            putVarint(out, pattern);
+        }
+    }
+
+    /**
+     * Write a non-negative number, 7 bits per byte, low bits first; the
+     * top bit of each byte but the last is set.
+     *
+     * @param out   where to write
+     * @param value the number
+     */
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * Read a number written by {@link #putVarint}.
+     *
+     * @param in where to read
+     * @return the number
+     * @throws IllegalArgumentException if it is too long
+     */
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
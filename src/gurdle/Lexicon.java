@@ -0,0 +1,314 @@
+package gurdle;
+
+import util.metrics.Histogram;
+import util.metrics.Metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A large word list of mixed lengths, split into one {@link Dictionary}
+ * per length, each with its own letters, index and sampler, for playing
+ * games of other lengths than the usual five.
+ * <br><br>
+ * The file has the same format as the word file (a word per line,
+ * optionally followed by a weight), or is a binary image written by
+ * {@link WordIngest}. It is read a word at a time, and each word goes
+ * straight into its length's packed letter array, so no string is kept
+ * for any word: a list takes about one byte per letter plus about 50
+ * bytes per word for the indexes and samplers, whatever its size. Words
+ * are made capitals; words outside {@link #MIN_WORD_SIZE} to
+ * {@link #MAX_WORD_SIZE} letters, or that are not all letters, are
+ * skipped. Duplicates are not looked for, so a list from elsewhere
+ * should go through {@link WordIngest} first.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class Lexicon {
+
+    /**
+     * The shortest word length played
+     */
+    public static final int MIN_WORD_SIZE = 4;
+
+    /**
+     * The longest word length played
+     */
+    public static final int MAX_WORD_SIZE = Dictionary.MAX_WORD_SIZE;
+
+    /**
+     * The first four bytes of a binary image ("LEXI"). After them, each
+     * word is its length (1 byte), its letters (0 for 'A' up to 25 for
+     * 'Z', 1 byte each) and its weight (8 bytes).
+     */
+    static final int IMAGE_MAGIC = 0x4C455849;
+
+    /**
+     * Time spent loading lexicons
+     */
+    private static final Histogram LOAD_TIMES = Metrics.histogram("lexicon.load");
+
+    /**
+     * The dictionary of each length (null if there are no such words)
+     */
+    private final Dictionary[] bySize;
+
+    /**
+     * Create a lexicon.
+     *
+     * @param bySize the dictionary of each length
+     */
+    private Lexicon(Dictionary[] bySize) {
+        this.bySize = bySize;
+    }
+
+    /**
+     * Read a word list.
+     *
+     * @param fileName the name of the file
+     * @return the lexicon
+     * @throws IOException if the file cannot be read, or a weight cannot
+     *                     be parsed
+     */
+    public static Lexicon load(String fileName) throws IOException {
+        final long start = Metrics.start();
+        final Partition[] partitions = new Partition[MAX_WORD_SIZE + 1];
+        boolean image;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+            image = in.readInt() == IMAGE_MAGIC;
+        } catch (EOFException eof) {
+            image = false;
+        }
+        if (image) {
+            readImage(fileName, partitions);
+        } else {
+            readText(fileName, partitions);
+        }
+        final Dictionary[] bySize = new Dictionary[MAX_WORD_SIZE + 1];
+        for (int n = MIN_WORD_SIZE; n <= MAX_WORD_SIZE; ++n) {
+            if (partitions[n] != null) {
+                bySize[n] = partitions[n].build();
+                partitions[n] = null; // let the growth arrays go
+            }
+        }
+        LOAD_TIMES.recordSince(start);
+        return new Lexicon(bySize);
+    }
+
+    /**
+     * Read a word list.
+     *
+     * @param fileName   the name of the file
+     * @param partitions where to add the words, by length
+     * @throws IOException if the file cannot be read, or a weight cannot
+     *                     be parsed
+     */
+    private static void readText(String fileName, Partition[] partitions)
+            throws IOException {
+        try (BufferedReader wFile = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            int lineNum = 0;
+            while ((line = wFile.readLine()) != null) {
+                lineNum += 1;
+                String[] fields = line.trim().split("\\s+");
+                final String word = fields[0].toUpperCase();
+                if (word.length() < MIN_WORD_SIZE || word.length() > MAX_WORD_SIZE
+                        || !allCapitals(word)) {
+                    continue;
+                }
+                double weight = Dictionary.DEFAULT_WEIGHT;
+                if (fields.length > 1) {
+                    try {
+                        weight = Double.parseDouble(fields[1]);
+                    } catch (NumberFormatException nfe) {
+                        throw new IOException(String.format(
+                                "%s:%d: bad weight \"%s\"",
+                                fileName, lineNum, fields[1]));
+                    }
+                }
+                partition(partitions, word.length()).add(word, weight);
+            }
+        }
+    }
+
+    /**
+     * Read a binary image.
+     *
+     * @param fileName   the name of the file
+     * @param partitions where to add the words, by length
+     * @throws IOException if the file cannot be read, or is not an image
+     */
+    private static void readImage(String fileName, Partition[] partitions)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fileName)))) {
+            in.readInt(); // the magic number
+            final byte[] letters = new byte[MAX_WORD_SIZE];
+            int wordSize;
+            while ((wordSize = in.read()) >= 0) {
+                if (wordSize > MAX_WORD_SIZE) {
+                    throw new IOException(fileName + ": bad word length " + wordSize);
+                }
+                in.readFully(letters, 0, wordSize);
+                final double weight = in.readDouble();
+                if (wordSize >= MIN_WORD_SIZE) {
+                    partition(partitions, wordSize).add(letters, weight);
+                }
+            }
+        } catch (EOFException eof) {
+            throw new IOException(fileName + ": image cut short");
+        }
+    }
+
+    /**
+     * The partition of one length, started if need be
+     *
+     * @param partitions the partitions, by length
+     * @param wordSize   the length
+     * @return its partition
+     */
+    private static Partition partition(Partition[] partitions, int wordSize) {
+        if (partitions[wordSize] == null) {
+            partitions[wordSize] = new Partition(wordSize);
+        }
+        return partitions[wordSize];
+    }
+
+    /**
+     * The words of one length
+     *
+     * @param wordSize the length
+     * @return their dictionary, or null if there are none
+     */
+    public Dictionary words(int wordSize) {
+        return wordSize < MIN_WORD_SIZE || wordSize > MAX_WORD_SIZE
+                ? null : this.bySize[wordSize];
+    }
+
+    /**
+     * How many words are there, of all lengths?
+     *
+     * @return the number of words
+     */
+    public int size() {
+        int total = 0;
+        for (Dictionary words : this.bySize) {
+            total += words == null ? 0 : words.size();
+        }
+        return total;
+    }
+
+    /**
+     * Is a word all capital letters?
+     *
+     * @param word the word
+     * @return true if every character is from 'A' to 'Z'
+     */
+    private static boolean allCapitals(String word) {
+        for (int c = 0; c < word.length(); ++c) {
+            if (word.charAt(c) < 'A' || word.charAt(c) > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The words of one length, as they are read
+     */
+    private static class Partition {
+
+        /**
+         * The number of letters in each word
+         */
+        private final int wordSize;
+
+        /**
+         * The words' letters so far (grows by doubling)
+         */
+        private byte[] letters;
+
+        /**
+         * The words' weights so far (grows by doubling)
+         */
+        private double[] weights = new double[1024];
+
+        /**
+         * How many words have been added
+         */
+        private int size;
+
+        /**
+         * Start an empty partition.
+         *
+         * @param wordSize the number of letters in each word
+         */
+        Partition(int wordSize) {
+            this.wordSize = wordSize;
+            this.letters = new byte[this.weights.length * wordSize];
+        }
+
+        /**
+         * Add a word.
+         *
+         * @param word   the word, of the right length, all capitals
+         * @param weight its weight
+         */
+        void add(String word, double weight) {
+            this.grow();
+            for (int c = 0; c < this.wordSize; ++c) {
+                this.letters[this.size * this.wordSize + c] = (byte) (word.charAt(c) - 'A');
+            }
+            this.weights[this.size] = weight;
+            this.size += 1;
+        }
+
+        /**
+         * Add a word already packed.
+         *
+         * @param letters the word's letters, 0 ('A') to 25 ('Z'), first
+         *                wordSize used
+         * @param weight  its weight
+         * @throws IOException if a letter is out of range
+         */
+        void add(byte[] letters, double weight) throws IOException {
+            this.grow();
+            for (int c = 0; c < this.wordSize; ++c) {
+                if (letters[c] < 0 || letters[c] > 25) {
+                    throw new IOException("Bad letter in image");
+                }
+                this.letters[this.size * this.wordSize + c] = letters[c];
+            }
+            this.weights[this.size] = weight;
+            this.size += 1;
+        }
+
+        /**
+         * Make room for another word.
+         */
+        private void grow() {
+            if (this.size == this.weights.length) {
+                this.weights = Arrays.copyOf(this.weights, this.size * 2);
+                this.letters = Arrays.copyOf(this.letters, this.size * 2 * this.wordSize);
+            }
+        }
+
+        /**
+         * Make the partition's dictionary.
+         *
+         * @return the dictionary
+         */
+        Dictionary build() {
+            return new Dictionary(this.wordSize,
+                    Arrays.copyOf(this.letters, this.size * this.wordSize),
+                    this.size, Arrays.copyOf(this.weights, this.size));
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package gurdle;
 
 import util.Observer;
+import util.metrics.Counter;
+import util.metrics.Histogram;
+import util.metrics.Metrics;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Clock;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The model for the wordle game
@@ -27,33 +36,77 @@ public class Model {
     private final List<Observer<Model, String>> observers =
             new LinkedList<>();
 
+    /**
+     * How long each observer takes to handle an update, in the same order
+     * as observers
+     */
+    private final List<Histogram> observerTimes = new LinkedList<>();
+
     public void addObserver(Observer<Model, String> obs) {
         this.observers.add(obs);
+        this.observerTimes.add(Metrics.histogram(
+                "observer." + obs.getClass().getSimpleName()));
     }
 
     public void notifyObservers(String message) {
+        if (this.quiet) {
+            return;
+        }
+        final Iterator<Histogram> times = this.observerTimes.iterator();
         for (Observer<Model, String> obs : this.observers) {
+            final long start = Metrics.start();
             obs.update(this, message);
+            times.next().recordSince(start);
         }
     }
 
     // ******** The Guirdle Model ********
 
     /**
-     * The required word length (normally 5)
+     * The usual word length, that of the words in the word file
      */
     public static final int WORD_SIZE = 5;
 
     /**
-     * The number of attempts a player gets before they lose
+     * The usual number of attempts a player gets before they lose
      */
     public static final int NUM_TRIES = 6;
 
+    /**
+     * The most attempts a game can give
+     */
+    public static final int MAX_TRIES = 15;
+
     /**
      * The source of the legal words
      */
     public static final String WORD_FILE_NAME = "data/wordle.txt";
 
+    /**
+     * The source of the words of other lengths than {@link #WORD_SIZE}
+     */
+    public static final String LEXICON_FILE_NAME = "data/lexicon.txt";
+
+    /**
+     * The word length of this game
+     */
+    private int wordSize = WORD_SIZE;
+
+    /**
+     * The number of attempts this game gives
+     */
+    private int numTries = NUM_TRIES;
+
+    /**
+     * The word length of the games started from now on
+     */
+    private int nextWordSize = WORD_SIZE;
+
+    /**
+     * The number of attempts the games started from now on give
+     */
+    private int nextNumTries = NUM_TRIES;
+
     /**
      * What attempt no. is this (0-based), or
      * how many attempts have been completed already
@@ -77,28 +130,88 @@ public class Model {
     private String secret;
 
     /**
-     * The letter occurrence of
-     * the word the player is trying to guess
+     * If not null, the daily challenge this game is playing; its table
+     * supplies the feedback for every guess
      */
-    private Map<Character, Long> secretUnigramMap;
+    private DailyChallenge.Day daily;
 
     /**
-     * The grid of guesses' letters.
-     * (View uses this in conjunction with attempt number and position.)
+     * The words this game's guesses are checked against
+     * (fixed when the game starts, even if the word file is reloaded)
+     */
+    private Dictionary gameWords;
+
+    /**
+     * True if this game is adversarial: the secret is not fixed, but is
+     * narrowed down after each guess to the largest group of remaining
+     * candidates that would all have given the same feedback
      */
-    private final CharChoice[][] guessLetters;
+    private boolean adversarial;
 
     /**
-     * Words from which the next secret is chosen, and used to check for
-     * illegal words entered by the player
+     * In an adversarial game, the positions of the words that could
+     * still be the secret (the first numCandidates entries)
      */
-    private final List<String> legalWords;
+    private int[] candidates;
+
+    /**
+     * How many entries of candidates are in use
+     */
+    private int numCandidates;
+
+    /**
+     * Scratch space: the feedback each candidate gives the current guess
+     */
+    private int[] candidatePatterns;
+
+    /**
+     * Scratch space: how many candidates give each feedback pattern
+     * (sized for the word length of the last adversarial game)
+     */
+    private int[] bucketSizes;
+
+    /**
+     * Scores guesses against the secret
+     */
+    private final Feedback feedback;
+
+    /**
+     * The grid of guesses' letters, numTries rows of wordSize.
+     * (View uses this in conjunction with attempt number and position.)
+     * The letters are cleared in place for each game, so a cell is the
+     * same object for as long as the game shape stays the same.
+     */
+    private CharChoice[][] guessLetters;
 
     /**
      * Game's current state
      */
     private GameState gameState;
 
+    /**
+     * Time spent checking that a guess is a legal word
+     */
+    private static final Histogram VALIDATE_TIMES =
+            Metrics.histogram("model.validate");
+
+    /**
+     * Time spent scoring a legal guess
+     */
+    private static final Histogram SCORE_TIMES =
+            Metrics.histogram("model.score");
+
+    /**
+     * Time spent confirming a guess, observers included
+     */
+    private static final Histogram CONFIRM_TIMES =
+            Metrics.histogram("model.confirmGuess");
+
+    /**
+     * Guesses rejected as illegal words
+     */
+    private static final Counter ILLEGAL_WORDS =
+            Metrics.counter("model.illegalWords");
+
     private static final EnumMap<GameState, String> STATE_MSGS =
             new EnumMap<>(Map.of(
                     GameState.WON, "You won!",
@@ -107,78 +220,484 @@ public class Model {
                     GameState.ILLEGAL_WORD, "Illegal word."
             ));
 
+    /**
+     * The word file as last read, shared by all models (a dictionary never
+     * changes, so sharing it is safe): the words from which the next secret
+     * is chosen, and used to check for illegal words entered by the player.
+     * Replaced as a whole when the word file is reloaded.
+     */
+    private static volatile Dictionary sharedWords;
+
+    /**
+     * True once the word file is watched for changes
+     */
+    private static boolean watchingWords;
+
+    /**
+     * The lexicon, read the first time a game of another length is asked
+     * for, and shared by all models
+     */
+    private static Lexicon sharedLexicon;
+
+    /**
+     * Picks which secrets the daily challenges get, the same in every
+     * process
+     */
+    private static final long DAILY_SEED = 0x6775726469654cL;
+
+    /**
+     * The daily challenge, shared by all models, on the word file's words
+     * and the local date
+     */
+    private static final DailyChallenge DAILY = new DailyChallenge(
+            () -> sharedWords, DAILY_SEED, Clock.systemDefaultZone());
+
+    /**
+     * The stream every model's own random stream is split from
+     */
+    private static final SplittableRandom ROOT_RNG = new SplittableRandom();
+
     /**
      * Used to randomly pick the next secret word.
+     * Each model (i.e., each session) has its own stream, so sessions
+     * never contend for a shared generator.
      */
-    private final Random rng;
+    private final SplittableRandom rng;
 
     /**
-     * Read in the list of words, initialize the random number generator,
+     * If not null, the player's non-repeating schedule of secrets,
+     * used instead of the weighted random pick
+     */
+    private SecretScheduler scheduler;
+
+    /**
+     * How many games this model has started
+     */
+    private long gameNumber;
+
+    /**
+     * Encodes saved games
+     */
+    private static final Base64.Encoder BASE64 =
+            Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * A row of the grid, as a word to look up
+     */
+    private final RowView rowView = new RowView();
+
+    /**
+     * True while a saved game is being replayed, so that observers only
+     * hear about the result
+     */
+    private boolean quiet;
+
+    /**
+     * Read in the list of words (only the first model reads the file;
+     * later ones share its words), initialize the random number generator,
      * and allocate space to record the letters of the guesses.
      * A game is not ready to be played until {@link #newGame()} or
      * {@link #newGame(String)} is called.
      */
     public Model() {
-        this.legalWords = new ArrayList<>(2000);
-        try (BufferedReader wFile = new BufferedReader(
-                new FileReader(WORD_FILE_NAME)
-        )
-        ) {
-            String word;
-            while ((word = wFile.readLine()) != null) {
-                this.legalWords.add(word);
-            }
+        try {
+            Model.sharedWords();
         } catch (IOException ioe) {
             System.err.println("Cannot read word file.");
             System.exit(1);
         }
-        this.rng = new Random();
-        this.guessLetters = new CharChoice[NUM_TRIES][WORD_SIZE];
+        this.rng = Model.splitRng();
+        this.guessLetters = newGrid(NUM_TRIES, WORD_SIZE);
         this.lettersUsed = new LinkedList<>();
-        this.secretUnigramMap = new HashMap<>();
+        this.feedback = new Feedback();
+        this.candidates = new int[0];
+        this.candidatePatterns = new int[0];
+        this.bucketSizes = new int[0];
+    }
+
+    /**
+     * The word file's words, read the first time they are needed
+     *
+     * @return the shared dictionary
+     * @throws IOException if the word file cannot be read
+     */
+    private static synchronized Dictionary sharedWords() throws IOException {
+        if (sharedWords == null) {
+            sharedWords = Dictionary.load(WORD_FILE_NAME);
+        }
+        return sharedWords;
+    }
+
+    /**
+     * Is there a lexicon, for games of other lengths? (One is made from a
+     * large word list with {@link WordIngest}; none comes with the game.)
+     *
+     * @return true if the lexicon file can be read
+     */
+    public static boolean hasLexicon() {
+        return Files.isReadable(Path.of(LEXICON_FILE_NAME));
+    }
+
+    /**
+     * The lexicon, read the first time it is needed
+     *
+     * @return the shared lexicon
+     * @throws IOException if the lexicon file cannot be read
+     */
+    private static synchronized Lexicon sharedLexicon() throws IOException {
+        if (sharedLexicon == null) {
+            sharedLexicon = Lexicon.load(LEXICON_FILE_NAME);
+        }
+        return sharedLexicon;
+    }
+
+    /**
+     * The words games of a given length are played with: the word file's
+     * for the usual length, otherwise the lexicon's.
+     *
+     * @param wordSize the word length
+     * @return the words
+     * @throws IllegalArgumentException if there are no such words
+     */
+    private Dictionary wordsOfSize(int wordSize) {
+        if (wordSize == WORD_SIZE) {
+            return sharedWords;
+        }
+        final Dictionary words;
+        try {
+            words = Model.sharedLexicon().words(wordSize);
+        } catch (IOException ioe) {
+            throw new IllegalArgumentException(
+                    "Cannot read " + LEXICON_FILE_NAME, ioe);
+        }
+        if (words == null) {
+            throw new IllegalArgumentException(
+                    "There are no " + wordSize + "-letter words");
+        }
+        return words;
+    }
+
+    /**
+     * Change the word length and number of attempts of the games started
+     * from now on (the game being played is not affected).
+     *
+     * @param wordSize the word length, from {@link Lexicon#MIN_WORD_SIZE}
+     *                 to {@link Lexicon#MAX_WORD_SIZE}
+     * @param numTries the number of attempts, from 1 to {@link #MAX_TRIES}
+     * @throws IllegalArgumentException if either is out of range, or there
+     *                                  are no words of that length
+     */
+    public void setVariant(int wordSize, int numTries) {
+        if (wordSize < Lexicon.MIN_WORD_SIZE || wordSize > Lexicon.MAX_WORD_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "Words must be %d to %d letters long",
+                    Lexicon.MIN_WORD_SIZE, Lexicon.MAX_WORD_SIZE));
+        }
+        if (numTries < 1 || numTries > MAX_TRIES) {
+            throw new IllegalArgumentException(
+                    "Games must give 1 to " + MAX_TRIES + " attempts");
+        }
+        this.wordsOfSize(wordSize);
+        this.nextWordSize = wordSize;
+        this.nextNumTries = numTries;
+    }
+
+    /**
+     * Give a new model its own random stream.
+     *
+     * @return a stream independent of every other model's
+     */
+    private static SplittableRandom splitRng() {
+        synchronized (ROOT_RNG) {
+            return ROOT_RNG.split();
+        }
+    }
+
+    /**
+     * Re-read the word file on a background thread. The new words and
+     * sampler replace the old ones only once they are completely built;
+     * until then, new games keep using the old dictionary. Every model,
+     * whenever it was created, plays its next five-letter game with the
+     * new words; games under way finish with the words they started with.
+     *
+     * @return a future that completes when the new dictionary is in use
+     */
+    public static CompletableFuture<Void> reloadWords() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return Dictionary.load(WORD_FILE_NAME);
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }).thenAccept(dictionary -> {
+            synchronized (Model.class) {
+                sharedWords = dictionary;
+            }
+        });
+    }
+
+    /**
+     * From now on, reload the word file (see {@link #reloadWords()}) each
+     * time it is changed. A daemon thread watches the file's directory;
+     * calling this again does nothing.
+     */
+    public static synchronized void reloadWordsOnChange() {
+        if (watchingWords) {
+            return;
+        }
+        final Path file = Path.of(WORD_FILE_NAME).toAbsolutePath();
+        final WatchService watcher;
+        try {
+            watcher = file.getFileSystem().newWatchService();
+            file.getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException ioe) {
+            System.err.println("Cannot watch the word file: " + ioe.getMessage());
+            return;
+        }
+        watchingWords = true;
+        final Thread t = new Thread(() -> {
+            while (true) {
+                final WatchKey key;
+                try {
+                    key = watcher.take();
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= file.getFileName().equals(event.context());
+                }
+                key.reset();
+                if (changed) {
+                    reloadWords().whenComplete((done, failure) -> System.err.println(
+                            failure == null
+                                    ? "Reloaded the word file: " + sharedWords.size() + " words"
+                                    : "Cannot reload the word file: " + failure.getMessage()));
+                }
+            }
+        }, "word-file-watcher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * From now on, pick secrets from a non-repeating, reproducible schedule
+     * instead of at random.
+     *
+     * @param key     the player's key
+     * @param counter how many games had already been played on this
+     *                schedule (0 for a fresh one)
+     */
+    public void scheduleSecrets(long key, long counter) {
+        this.scheduler = new SecretScheduler(key, counter);
+    }
+
+    /**
+     * The player's schedule of secrets, so its key and counter can be
+     * saved and the session replayed later
+     *
+     * @return the schedule, or null if secrets are picked at random
+     */
+    public SecretScheduler scheduler() {
+        return this.scheduler;
     }
 
     /**
      * Start a new game: pick new word, clear out all previous attempts.
+     * Words come from the player's schedule if there is one, otherwise
+     * they are picked according to their weights in the word file.
      */
     public void newGame() {
-        this.secret =
-                this.legalWords.get(rng.nextInt(this.legalWords.size()));
-        newGameUtil();
+        final Dictionary dictionary = this.wordsOfSize(this.nextWordSize);
+        final int index = this.scheduler != null
+                ? this.scheduler.next(dictionary.size())
+                : dictionary.sampler().next(this.rng);
+        this.secret = dictionary.get(index);
+        this.gameWords = dictionary;
+        this.daily = null;
+        this.adversarial = false;
+        newGameUtil(this.nextNumTries);
     }
 
     /**
      * Start a new game: clear out all previous attempts.
-     * This is mainly for testing.
+     * This is mainly for testing. The game's word length is the secret's.
      *
      * @param mandatedSecret the secret word to be used
+     * @throws IllegalArgumentException if it is not a word, or there are
+     *                                  no other words of its length
      */
     public void newGame(String mandatedSecret) {
-        this.secret = mandatedSecret;
-        newGameUtil();
+        for (int c = 0; c < mandatedSecret.length(); ++c) {
+            final char ch = Character.toUpperCase(mandatedSecret.charAt(c));
+            if (ch < 'A' || ch > 'Z') {
+                throw new IllegalArgumentException(String.format(
+                        "\"%s\" is not a word.", mandatedSecret));
+            }
+        }
+        this.gameWords = this.wordsOfSize(mandatedSecret.length());
+        this.secret = mandatedSecret.toUpperCase();
+        this.daily = null;
+        this.adversarial = false;
+        newGameUtil(this.nextNumTries);
+    }
+
+    /**
+     * Start a game of a daily challenge. The game keeps using this day's
+     * secret and feedback table even if the day rolls over while it is
+     * being played.
+     *
+     * @param day the day's challenge, from {@link DailyChallenge#today()}
+     */
+    public void newGame(DailyChallenge.Day day) {
+        this.secret = day.secret();
+        this.gameWords = day.dictionary();
+        this.daily = day;
+        this.adversarial = false;
+        newGameUtil(NUM_TRIES);
+    }
+
+    /**
+     * Start a game of today's daily challenge, which every session plays.
+     * It has the usual word length and number of attempts, whatever the
+     * variant.
+     */
+    public void newDailyGame() {
+        this.newGame(DAILY.today());
+    }
+
+    /**
+     * Start an adversarial game. No secret is chosen; instead every legal
+     * word stays a candidate, and each guess keeps only the largest group
+     * of candidates that agree on its feedback. The player wins by
+     * cornering the game into a single word.
+     * Until the game ends, {@link #secret()} is just one of the words
+     * still in play.
+     */
+    public void newAdversarialGame() {
+        final Dictionary dictionary = this.wordsOfSize(this.nextWordSize);
+        if (this.candidates.length < dictionary.size()) {
+            this.candidates = new int[dictionary.size()];
+            this.candidatePatterns = new int[dictionary.size()];
+        }
+        final int numPatterns = Feedback.numPatterns(dictionary.wordSize());
+        if (this.bucketSizes.length != numPatterns) {
+            this.bucketSizes = new int[numPatterns];
+        }
+        for (int i = 0; i < dictionary.size(); ++i) {
+            this.candidates[i] = i;
+        }
+        this.numCandidates = dictionary.size();
+        this.secret = dictionary.get(0);
+        this.gameWords = dictionary;
+        this.daily = null;
+        this.adversarial = true;
+        newGameUtil(this.nextNumTries);
+    }
+
+    /**
+     * Work out the feedback for a legal guess.
+     *
+     * @param guessIndex the guess's position in the game's dictionary
+     * @param guess      the guess
+     * @return the feedback pattern
+     */
+    private int scoreGuess(int guessIndex, String guess) {
+        if (this.daily != null) {
+            return this.daily.pattern(guessIndex);
+        } else if (this.adversarial) {
+            return this.narrowCandidates(guessIndex);
+        } else {
+            return this.feedback.score(guess, this.secret);
+        }
     }
 
     /**
-     * What must be done regardless of which newGame method was called
+     * Adversarial scoring. In one pass over the remaining candidates,
+     * score the guess against each and count the size of each feedback
+     * bucket; then keep only the candidates in the biggest bucket (ties
+     * go to the bucket with the lowest pattern number, see
+     * {@link Feedback}). Only preallocated arrays are used.
+     *
+     * @param guessIndex the guess's position in the game's dictionary
+     * @return the feedback of the kept bucket
      */
-    private void newGameUtil() {
-        // storing into a map the number of occurrences
-        // of each letter in the secret word
-        this.secretUnigramMap = this.secret.chars()
-                .mapToObj(c -> (char) c)
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    private int narrowCandidates(int guessIndex) {
+        final byte[] letters = this.gameWords.letters();
+        final int wordSize = this.gameWords.wordSize();
+        final int guessOff = guessIndex * wordSize;
+        final int[] sizes = this.bucketSizes;
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < this.numCandidates; ++i) {
+            final int pattern = this.feedback.score(
+                    letters, guessOff,
+                    letters, this.candidates[i] * wordSize, wordSize);
+            this.candidatePatterns[i] = pattern;
+            sizes[pattern] += 1;
+        }
+        int best = 0;
+        for (int pattern = 1; pattern < sizes.length; ++pattern) {
+            if (sizes[pattern] > sizes[best]) {
+                best = pattern;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < this.numCandidates; ++i) {
+            if (this.candidatePatterns[i] == best) {
+                this.candidates[kept++] = this.candidates[i];
+            }
+        }
+        this.numCandidates = kept;
+        this.secret = this.gameWords.get(this.candidates[0]);
+        return best;
+    }
+
+    /**
+     * What must be done regardless of which newGame method was called.
+     * The game's word length is the secret's.
+     *
+     * @param numTries the number of attempts the game gives
+     */
+    private void newGameUtil(int numTries) {
         this.attemptNum = 0;
         this.charPos = 0;
         this.lettersUsed.clear();
-        for (int attemptNum = 0; attemptNum < NUM_TRIES; ++attemptNum) {
-            for (int pos = 0; pos < WORD_SIZE; ++pos) {
-                this.guessLetters[attemptNum][pos] = new CharChoice();
+        if (numTries != this.numTries || this.secret.length() != this.wordSize) {
+            this.numTries = numTries;
+            this.wordSize = this.secret.length();
+            this.guessLetters = newGrid(this.numTries, this.wordSize);
+        } else {
+            // Same shape: clear the grid in place rather than allocating.
+            for (CharChoice[] row : this.guessLetters) {
+                for (CharChoice choice : row) {
+                    choice.reset();
+                }
             }
         }
         this.gameState = GameState.ONGOING;
+        this.gameNumber += 1;
         this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
     }
 
+    /**
+     * Allocate a grid of empty letters.
+     *
+     * @param rows    the number of attempts
+     * @param columns the word length
+     * @return the grid
+     */
+    private static CharChoice[][] newGrid(int rows, int columns) {
+        final CharChoice[][] grid = new CharChoice[rows][columns];
+        for (CharChoice[] row : grid) {
+            for (int c = 0; c < columns; ++c) {
+                row[c] = new CharChoice();
+            }
+        }
+        return grid;
+    }
+
     // ******** character-by-character guesses
 
     /**
@@ -190,7 +709,7 @@ public class Model {
     public void enterNewGuessChar(char guessChar) {
         // Ignore extra letters
         if (this.gameState == GameState.ONGOING &&
-                this.charPos < Model.WORD_SIZE) {
+                this.charPos < this.wordSize) {
 
             this.guessLetters[attemptNum][this.charPos]
                     .setChar(guessChar);
@@ -205,14 +724,15 @@ public class Model {
      * reset the counters, and notify the observers to re-display.
      */
     private void illegalWordCleanup() {
+        ILLEGAL_WORDS.increment();
         this.gameState = GameState.ILLEGAL_WORD;
-        for (int p = 0; p < Model.WORD_SIZE; ++p) {
+        for (int p = 0; p < this.wordSize; ++p) {
             this.lettersUsed.remove(
                     Character.valueOf(
                             this.guessLetters[this.attemptNum][p].getChar()
                     )
             );
-            this.guessLetters[this.attemptNum][p] = new CharChoice();
+            this.guessLetters[this.attemptNum][p].reset();
         }
         this.charPos = 0;
         this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
@@ -224,9 +744,10 @@ public class Model {
      * all the letters of a guess, and that the guess should be evaluated.
      */
     public void confirmGuess() {
+        final long confirmStart = Metrics.start();
         if (this.gameState != GameState.WON &&
                 this.gameState != GameState.LOST) { // Ongoing game
-            if (this.charPos != Model.WORD_SIZE) { // unfinished guess
+            if (this.charPos != this.wordSize) { // unfinished guess
                 illegalWordCleanup();
             } else { // correct size guess
                 final CharChoice[] attempt =
@@ -237,71 +758,23 @@ public class Model {
                     attemptSB.append(ch.getChar());
                 String attemptStr = String.valueOf(attemptSB);
 
-                if (this.legalWords.contains(attemptStr)) { // legal guess
-                    Map<Character, Integer> matchesMapCounter = new HashMap<>();
-                    // For each letter in the guess...
-                    for (int c = 0; c < WORD_SIZE; ++c) {
-                        boolean isMatch = false;
-                        final CharChoice attemptCh = attempt[c];
-                        // Level 1: See if the secret word contains the letter.
-                        for (int s = 0; s < WORD_SIZE; ++s) {
-                            if (attemptCh.getChar() ==
-                                    this.secret.charAt(s)) {
-                                attemptCh.setStatus(
-                                        CharChoice.Status.WRONG_POS);
-                                isMatch = true;
-                            }
-                        }
-
-                        if (isMatch) {
-                            // Level 2: See if this letter is in the right spot.
-                            if (attemptCh.getChar() == this.secret.charAt(c)) {
-                                attemptCh.setStatus(CharChoice.Status.RIGHT_POS);
-                            }
-                            // counting the number of occurrence of the letter in the secret word
-                            if (matchesMapCounter.containsKey(attemptCh.getChar())) {
-                                matchesMapCounter.put(attemptCh.getChar(),
-                                        matchesMapCounter.get(attemptCh.getChar()) + 1);
-                            } else {
-                                matchesMapCounter.put(attemptCh.getChar(), 1);
-                            }
-                        } else {
-                            attemptCh.setStatus(CharChoice.Status.WRONG);
-                        }
-                    }
+                final long validateStart = Metrics.start();
+                final int guessIndex = this.gameWords.indexOf(attemptStr);
+                VALIDATE_TIMES.recordSince(validateStart);
+                if (guessIndex >= 0) { // legal guess
+                    final long scoreStart = Metrics.start();
+                    final int pattern = this.scoreGuess(guessIndex, attemptStr);
+                    Feedback.fill(pattern, attempt, this.secret);
+                    SCORE_TIMES.recordSince(scoreStart);
 
-                    // Level 3: See if all the letters match exactly.
-                    boolean match = Arrays.stream(
-                                    this.guessLetters[this.attemptNum])
-                            .map(choice ->
-                                    choice.getStatus() ==
-                                            CharChoice.Status.RIGHT_POS
-                            )
-                            .reduce(true, (x, y) -> x && y);
-
-                    if (match) {
+                    if (pattern == Feedback.allRight(this.wordSize)) {
                         this.gameState = GameState.WON;
-                    } else{
-                        // Level 4: If the guess word has a duplicated letter that matches
-                        // a letter in the secret word, we want to highlight only one
-                        // of those duplicated characters
-                        for (int c = 0; c < WORD_SIZE; ++c) {
-                            final CharChoice attemptCh = attempt[c];
-                            if (attemptCh.getStatus().equals(CharChoice.Status.WRONG_POS)
-                                    && matchesMapCounter.get(attemptCh.getChar()) >
-                                    secretUnigramMap.get(attemptCh.getChar())) {
-                                attemptCh.setStatus(CharChoice.Status.EMPTY);
-                                matchesMapCounter.put(attemptCh.getChar(),
-                                        matchesMapCounter.get(attemptCh.getChar()) - 1);
-                            }
-                        }
-                        if (this.attemptNum == Model.NUM_TRIES - 1) {
-                            // This was the last guess.
-                            this.gameState = GameState.LOST;
-                        } else {
-                            // Legal guess, but not done with game.
-                            this.gameState = GameState.ONGOING;
-                        }
+                    } else if (this.attemptNum == this.numTries - 1) {
+                        // This was the last guess.
+                        this.gameState = GameState.LOST;
+                    } else {
+                        // Legal guess, but not done with game.
+                        this.gameState = GameState.ONGOING;
                     }
 
                     this.charPos = 0;
@@ -314,6 +787,7 @@ public class Model {
                 }
             }
         }
+        CONFIRM_TIMES.recordSince(confirmStart);
     }
 
     // ******** full-string-at-once guesses ********
@@ -323,9 +797,9 @@ public class Model {
      *
      * @param guess the full guess
      */
-    public void enterNewGuess(String guess) {
+    public void enterNewGuess(CharSequence guess) {
         if(this.gameState == GameState.ONGOING ){
-            if(guess.length() != WORD_SIZE){
+            if(guess.length() != this.wordSize){
                 this.gameState = GameState.ILLEGAL_WORD;
                 notifyObservers(STATE_MSGS.get(GameState.ILLEGAL_WORD));
                 this.gameState = GameState.ONGOING;
@@ -354,6 +828,8 @@ public class Model {
 
     /**
      * Find out what was typed at a specific point in this game.
+     * The letter is the grid's own, updated as the game goes on and
+     * cleared when a new game starts; copy it to keep it.
      *
      * @param guessNum which guess ("row")
      * @param pos      which letter position ("column")
@@ -363,6 +839,18 @@ public class Model {
         return this.guessLetters[guessNum][pos];
     }
 
+    /**
+     * The feedback a confirmed guess received, as a single number
+     * (see {@link Feedback})
+     *
+     * @param guessNum which guess ("row"); must be less than
+     *                 {@link #numAttempts()}
+     * @return the feedback pattern
+     */
+    public int pattern(int guessNum) {
+        return Feedback.pattern(this.guessLetters[guessNum]);
+    }
+
     /**
      * Has this letter been used on any legal guess in this game?
      *
@@ -373,6 +861,16 @@ public class Model {
         return this.lettersUsed.contains(ch);
     }
 
+    /**
+     * The legal words currently in use: the word file as last read, the
+     * same for every model
+     *
+     * @return the dictionary
+     */
+    public Dictionary dictionary() {
+        return sharedWords;
+    }
+
     /**
      * What's the secret word?
      *
@@ -382,6 +880,228 @@ public class Model {
         return this.secret;
     }
 
+    /**
+     * An immutable copy of the confirmed rows of this game, to try
+     * guesses on without changing this game. In an adversarial game the
+     * copy is played against the word that is the secret right now.
+     *
+     * @return the game as a {@link Board}
+     * @throws IllegalStateException if the secret is not a legal word
+     */
+    public Board fork() {
+        final int secretIndex = this.gameWords.indexOf(this.secret);
+        if (secretIndex < 0) {
+            throw new IllegalStateException("Secret is not in the dictionary");
+        }
+        Board board = Board.start(this.gameWords, secretIndex, this.numTries);
+        final StringBuilder guess = new StringBuilder(this.wordSize);
+        for (int r = 0; r < this.attemptNum; ++r) {
+            guess.setLength(0);
+            for (CharChoice choice : this.guessLetters[r]) {
+                guess.append(choice.getChar());
+            }
+            board = board.apply(guess);
+        }
+        return board;
+    }
+
+    /**
+     * The game so far, compactly, so that it can be carried to another
+     * model (in another process) and picked up there with
+     * {@link #restore(String)}: the game's {@link GameCodec binary form},
+     * in URL-safe base64.
+     *
+     * @return the saved game
+     */
+    public String save() {
+        final ByteBuffer buffer = ByteBuffer.allocate(GameCodec.MAX_BYTES);
+        GameCodec.encode(this, buffer);
+        return BASE64.encodeToString(
+                Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    /**
+     * Pick up a game saved by {@link #save()}.
+     *
+     * @param state the saved game
+     * @throws IllegalArgumentException if the state is not a saved game
+     */
+    public void restore(String state) {
+        final GameCodec.Record record = new GameCodec.Record();
+        if (!GameCodec.decode(
+                ByteBuffer.wrap(Base64.getUrlDecoder().decode(state)), record)) {
+            throw new IllegalArgumentException("Not a whole saved game");
+        }
+        this.restore(record);
+    }
+
+    /**
+     * Pick up a decoded game: start a game with its secret and replay its
+     * guesses. Observers are notified once, when it has all been
+     * replayed. An adversarial game comes back as an ordinary game with
+     * the secret it had when saved. The game is checked before anything
+     * changes; if it is rejected, the game that was being played goes on,
+     * under the same {@link #gameNumber() number}.
+     *
+     * @param record the game
+     * @throws IllegalArgumentException if the game was played with other
+     *                                  words, a position is not in the
+     *                                  dictionary, or it does not replay
+     *                                  the same
+     */
+    public void restore(GameCodec.Record record) {
+        final Dictionary words = this.wordsOfSize(record.wordSize());
+        if (record.version() != words.version()) {
+            throw new IllegalArgumentException(
+                    "The game was saved with another word list");
+        }
+        final String newSecret = this.checkReplay(record, words);
+        GameCodec.Record previous = null;
+        final Dictionary previousWords = this.gameWords;
+        final DailyChallenge.Day previousDaily = this.daily;
+        final long previousGame = this.gameNumber;
+        if (previousWords != null) {
+            final ByteBuffer buffer = ByteBuffer.allocate(GameCodec.MAX_BYTES);
+            GameCodec.encode(this, buffer);
+            buffer.flip();
+            previous = new GameCodec.Record();
+            GameCodec.decode(buffer, previous);
+        }
+        try {
+            this.replay(record, words, newSecret, null);
+        } catch (IllegalArgumentException iae) {
+            if (previous != null) {
+                this.replay(previous, previousWords,
+                        previous.secret(previousWords), previousDaily);
+                this.gameNumber = previousGame;
+            }
+            throw iae;
+        }
+        this.notifyObservers(Model.STATE_MSGS.get(this.gameState));
+    }
+
+    /**
+     * Check a decoded game without changing anything: that its positions
+     * are in the dictionary, and that its guesses give the feedback
+     * recorded, with none but the last a win.
+     *
+     * @param record the game
+     * @param words  the dictionary it was played with
+     * @return its secret
+     * @throws IllegalArgumentException if it is not a game on these words
+     */
+    private String checkReplay(GameCodec.Record record, Dictionary words) {
+        if (record.secret() >= words.size()) {
+            throw new IllegalArgumentException("Bad secret position");
+        }
+        final String newSecret = record.secret(words);
+        final int allRight = Feedback.allRight(record.wordSize());
+        for (int r = 0; r < record.numRows(); ++r) {
+            if (record.guess(r) < 0 || record.guess(r) >= words.size()) {
+                throw new IllegalArgumentException("Bad guess position");
+            }
+            final int pattern = this.feedback.score(words.get(record.guess(r)), newSecret);
+            if (pattern != record.pattern(r)
+                    || (pattern == allRight && r < record.numRows() - 1)) {
+                throw new IllegalArgumentException(
+                        "The game does not replay the same");
+            }
+        }
+        return newSecret;
+    }
+
+    /**
+     * Start a game with a decoded game's secret and replay its guesses,
+     * without notifying observers.
+     *
+     * @param record    the game
+     * @param words     the dictionary it was played with
+     * @param newSecret its secret
+     * @param day       the daily challenge it is, or null
+     * @throws IllegalArgumentException if it does not replay the same
+     */
+    private void replay(GameCodec.Record record, Dictionary words,
+                        String newSecret, DailyChallenge.Day day) {
+        this.quiet = true;
+        try {
+            this.secret = newSecret;
+            this.gameWords = words;
+            this.daily = day;
+            this.adversarial = false;
+            this.newGameUtil(record.numTries());
+            for (int r = 0; r < record.numRows(); ++r) {
+                this.enterNewGuess(words.get(record.guess(r)));
+                if (this.attemptNum != r + 1 ||
+                        this.pattern(r) != record.pattern(r)) {
+                    throw new IllegalArgumentException(
+                            "The game does not replay the same");
+                }
+            }
+        } finally {
+            this.quiet = false;
+        }
+    }
+
+    /**
+     * The words this game is played with (a daily challenge has its own,
+     * and games of other lengths use the lexicon's)
+     *
+     * @return the game's dictionary
+     */
+    public Dictionary gameDictionary() {
+        return this.gameWords;
+    }
+
+    /**
+     * A confirmed guess's position in the game's dictionary, found
+     * without allocating anything (call it on the thread that drives the
+     * model)
+     *
+     * @param guessNum which guess ("row"); must be less than
+     *                 {@link #numAttempts()}
+     * @return the guess's position
+     */
+    public int guessIndex(int guessNum) {
+        this.rowView.row = guessNum;
+        return this.gameWords.indexOf(this.rowView);
+    }
+
+    /**
+     * How long are this game's words?
+     *
+     * @return the number of letters in the secret and in each guess
+     */
+    public int wordSize() {
+        return this.wordSize;
+    }
+
+    /**
+     * How many attempts does this game give?
+     *
+     * @return the number of rows in the grid
+     */
+    public int numTries() {
+        return this.numTries;
+    }
+
+    /**
+     * How long are the next games' words? (see {@link #setVariant})
+     *
+     * @return the word length new games will have
+     */
+    public int nextWordSize() {
+        return this.nextWordSize;
+    }
+
+    /**
+     * How many attempts will the next games give? (see {@link #setVariant})
+     *
+     * @return the number of attempts new games will have
+     */
+    public int nextNumTries() {
+        return this.nextNumTries;
+    }
+
     /**
      * How many valid guesses/attempts has the player made in this game?
      *
@@ -390,4 +1110,49 @@ public class Model {
     public int numAttempts() {
         return attemptNum;
     }
+
+    /**
+     * Which game is this? Tells observers apart the notifications of
+     * different games.
+     *
+     * @return how many games this model has started, counting this one
+     */
+    public long gameNumber() {
+        return this.gameNumber;
+    }
+
+    /**
+     * The letters of one row of the grid, as a character sequence
+     */
+    private class RowView implements CharSequence {
+
+        /**
+         * Which row
+         */
+        private int row;
+
+        @Override
+        public int length() {
+            return Model.this.wordSize;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return Model.this.guessLetters[this.row][index].getChar();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder word = new StringBuilder(Model.this.wordSize);
+            for (int c = 0; c < Model.this.wordSize; ++c) {
+                word.append(this.charAt(c));
+            }
+            return word.toString();
+        }
+    }
 }
@@ -0,0 +1,159 @@
+package gurdle;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Checks {@link MultiModel}'s batched scoring against {@link Feedback}:
+ * random games on 1, 4, 8 and 32 boards, with the word file's words and
+ * each length of the lexicon if there is one, are played to the end, and
+ * every row on every board is compared with the pattern {@link Feedback}
+ * gives (or with none, once the board is solved). Some guesses are one of
+ * the secrets, so that boards get solved and games won. Prints how many
+ * patterns differ (there should be none) and the first few.
+ * <br><br>
+ * Usage: <code>java gurdle.MultiCheck</code>
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class MultiCheck {
+
+    /**
+     * How many differences to print
+     */
+    private static final int MAX_SHOWN = 10;
+
+    /**
+     * The numbers of boards played
+     */
+    private static final int[] BOARDS = {1, 4, 8, 32};
+
+    /**
+     * How many games are played on each number of boards, per list
+     */
+    private static final int GAMES = 1000;
+
+    /**
+     * A guess is one of the secrets about once in this many
+     */
+    private static final int SECRET_ODDS = 4;
+
+    /**
+     * How many differences have been found
+     */
+    private static long differences;
+
+    /**
+     * Play random games on one dictionary and number of boards, and
+     * check every row.
+     *
+     * @param words     the dictionary
+     * @param numBoards how many boards
+     * @param rng       picks the guesses
+     * @return the number of patterns compared
+     */
+    private static long check(Dictionary words, int numBoards, SplittableRandom rng) {
+        if (numBoards > words.sampler().numDrawable()) {
+            return 0;
+        }
+        final MultiModel game = new MultiModel(words, numBoards, numBoards + 5);
+        final Feedback feedback = new Feedback();
+        final int allRight = Feedback.allRight(words.wordSize());
+        final boolean[] solved = new boolean[numBoards];
+        long compared = 0;
+        for (int g = 0; g < GAMES; ++g) {
+            game.newGame();
+            Arrays.fill(solved, false);
+            while (game.gameState() == Model.GameState.ONGOING) {
+                final String guess = rng.nextInt(SECRET_ODDS) == 0
+                        ? game.secret(rng.nextInt(numBoards))
+                        : words.get(rng.nextInt(words.size()));
+                game.enterNewGuess(guess);
+                final int row = game.numAttempts() - 1;
+                for (int b = 0; b < numBoards; ++b) {
+                    final int expected = solved[b]
+                            ? -1 : feedback.score(guess, game.secret(b));
+                    compare(guess, game.secret(b), numBoards,
+                            expected, game.pattern(b, row));
+                    solved[b] |= expected == allRight;
+                    compared += 1;
+                }
+            }
+            boolean allSolved = true;
+            for (boolean s : solved) {
+                allSolved &= s;
+            }
+            if (allSolved != (game.gameState() == Model.GameState.WON)) {
+                differences += 1;
+                System.out.printf("%d boards: game %s with %s boards solved%n",
+                        numBoards, game.gameState(), allSolved ? "all" : "not all");
+            }
+        }
+        return compared;
+    }
+
+    /**
+     * Count, and print, a pattern that differs.
+     *
+     * @param guess     the guess
+     * @param secret    the board's secret
+     * @param numBoards how many boards the game has
+     * @param expected  the pattern from {@link Feedback}, or -1 for none
+     * @param actual    the pattern from the game
+     */
+    private static void compare(String guess, String secret, int numBoards,
+                                int expected, int actual) {
+        if (expected != actual) {
+            differences += 1;
+            if (differences <= MAX_SHOWN) {
+                System.out.printf("%d boards: %s against %s gave %d, not %d%n",
+                        numBoards, guess, secret, actual, expected);
+            }
+        }
+    }
+
+    /**
+     * Check one dictionary on every number of boards.
+     *
+     * @param words the dictionary
+     * @param rng   picks the guesses
+     * @return the number of patterns compared
+     */
+    private static long checkAll(Dictionary words, SplittableRandom rng) {
+        long compared = 0;
+        for (int numBoards : BOARDS) {
+            compared += check(words, numBoards, rng);
+        }
+        return compared;
+    }
+
+    /**
+     * Run the checks and report.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        final SplittableRandom rng = new SplittableRandom();
+        long compared = 0;
+        try {
+            compared += checkAll(Dictionary.load(Model.WORD_FILE_NAME), rng);
+        } catch (IOException ioe) {
+            System.err.println("Cannot read word file.");
+            return;
+        }
+        try {
+            final Lexicon lexicon = Lexicon.load(Model.LEXICON_FILE_NAME);
+            for (int n = Lexicon.MIN_WORD_SIZE; n <= Lexicon.MAX_WORD_SIZE; ++n) {
+                final Dictionary words = lexicon.words(n);
+                if (words != null) {
+                    compared += checkAll(words, rng);
+                }
+            }
+        } catch (IOException ioe) {
+            System.out.println("No lexicon; checked the word file only.");
+        }
+        System.out.printf("%d patterns compared, %d different%n", compared, differences);
+    }
+}
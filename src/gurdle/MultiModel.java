@@ -0,0 +1,568 @@
+package gurdle;
+
+import util.Observer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The model for a multi-board game (Quordle, Octordle, ...): every guess
+ * is played on all the boards at once, each board having its own secret.
+ * A board is solved once its secret is guessed, and stops taking rows.
+ * The player wins by solving every board within the allowed tries.
+ * <br><br>
+ * All per-board state is kept in primitive arrays. The secrets' letters
+ * are stored by position (all boards' first letters, then all their
+ * second letters, ...), so a guess is scored against every board in one
+ * batch of simple loops over the boards.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class MultiModel {
+
+    // ******** The Observable Section ********
+
+    /**
+     * Each board's observers
+     */
+    private final List<List<Observer<MultiModel, String>>> observers;
+
+    /**
+     * Watch one board. The observer hears about every change to that
+     * board (a new game, a row, the board being solved, an illegal word).
+     *
+     * @param board which board
+     * @param obs   the observer
+     */
+    public void addObserver(int board, Observer<MultiModel, String> obs) {
+        this.observers.get(board).add(obs);
+    }
+
+    /**
+     * Tell one board's observers about a change.
+     *
+     * @param board   which board changed
+     * @param message the message for the player
+     */
+    public void notifyObservers(int board, String message) {
+        for (Observer<MultiModel, String> obs : this.observers.get(board)) {
+            obs.update(this, message);
+        }
+    }
+
+    // ******** The Multi-board Model ********
+
+    /**
+     * Letter state: not yet seen on this board
+     */
+    public static final byte LETTER_UNUSED = 0;
+
+    /**
+     * Letter state: guessed, not in this board's secret
+     */
+    public static final byte LETTER_WRONG = 1;
+
+    /**
+     * Letter state: in this board's secret, position not yet found
+     */
+    public static final byte LETTER_WRONG_POS = 2;
+
+    /**
+     * Letter state: found in its right position on this board
+     */
+    public static final byte LETTER_RIGHT_POS = 3;
+
+    /**
+     * Row value of a board that was already solved when the row was played
+     */
+    private static final int NO_PATTERN = -1;
+
+    /**
+     * The legal words
+     */
+    private final Dictionary words;
+
+    /**
+     * How many boards are played at once
+     */
+    private final int numBoards;
+
+    /**
+     * How many guesses the player gets
+     */
+    private final int numTries;
+
+    /**
+     * The number of letters in a word
+     */
+    private final int wordSize;
+
+    /**
+     * Picks the secrets
+     */
+    private final SplittableRandom rng;
+
+    /**
+     * The position in the dictionary of each board's secret
+     */
+    private final int[] secrets;
+
+    /**
+     * The secrets' letters, by position: letter p of board b's secret is
+     * at p * numBoards + b
+     */
+    private final int[] secretLetters;
+
+    /**
+     * The dictionary position of each row's guess
+     */
+    private final int[] guesses;
+
+    /**
+     * The feedback of row r on board b, at r * numBoards + b
+     * ({@link #NO_PATTERN} if the board was already solved)
+     */
+    private final int[] patterns;
+
+    /**
+     * The row on which each board was solved, or -1
+     */
+    private final int[] solvedAt;
+
+    /**
+     * The best-known state of letter ch on board b, at b * 26 + ch
+     */
+    private final byte[] letterStates;
+
+    /**
+     * Scratch: how often the letter being scored occurs in each secret
+     */
+    private final int[] secretCounts;
+
+    /**
+     * Scratch: how many more WRONG_POS marks each board can give the
+     * letter being scored
+     */
+    private final int[] budgets;
+
+    /**
+     * Scratch: the feedback of the guess being scored, per board
+     */
+    private final int[] rowPatterns;
+
+    /**
+     * How many rows have been played
+     */
+    private int attemptNum;
+
+    /**
+     * How many boards are solved
+     */
+    private int numSolved;
+
+    /**
+     * Game's current state
+     */
+    private Model.GameState gameState;
+
+    /**
+     * Set up a multi-board game. Call {@link #newGame()} to start playing.
+     *
+     * @param words     the legal words
+     * @param numBoards how many boards (e.g., 4, 8 or 32)
+     * @param numTries  how many guesses the player gets
+     * @throws IllegalArgumentException if there are fewer boards than 1,
+     *                                  or than words that can be drawn as
+     *                                  secrets, or fewer tries than 1
+     */
+    public MultiModel(Dictionary words, int numBoards, int numTries) {
+        if (numBoards < 1 || numBoards > words.sampler().numDrawable()) {
+            throw new IllegalArgumentException("Bad number of boards " + numBoards);
+        }
+        if (numTries < 1) {
+            throw new IllegalArgumentException("Bad number of tries " + numTries);
+        }
+        this.words = words;
+        this.numBoards = numBoards;
+        this.numTries = numTries;
+        this.wordSize = words.wordSize();
+        this.rng = new SplittableRandom();
+        this.observers = new ArrayList<>(numBoards);
+        for (int b = 0; b < numBoards; ++b) {
+            this.observers.add(new LinkedList<>());
+        }
+        this.secrets = new int[numBoards];
+        this.secretLetters = new int[this.wordSize * numBoards];
+        this.guesses = new int[numTries];
+        this.patterns = new int[numTries * numBoards];
+        this.solvedAt = new int[numBoards];
+        this.letterStates = new byte[numBoards * Feedback.ALPHABET_SIZE];
+        this.secretCounts = new int[numBoards];
+        this.budgets = new int[numBoards];
+        this.rowPatterns = new int[numBoards];
+    }
+
+    /**
+     * Start a new game: pick a different secret for every board, clear
+     * out all previous attempts. (There are always enough words to draw
+     * from; see the constructor.)
+     */
+    public void newGame() {
+        for (int b = 0; b < this.numBoards; ++b) {
+            int index;
+            boolean repeat;
+            do {
+                index = this.words.sampler().next(this.rng);
+                repeat = false;
+                for (int other = 0; other < b; ++other) {
+                    repeat |= this.secrets[other] == index;
+                }
+            } while (repeat);
+            this.secrets[b] = index;
+        }
+        this.newGameUtil();
+    }
+
+    /**
+     * Start a new game with the given secrets. This is mainly for testing.
+     *
+     * @param mandatedSecrets one legal word per board
+     */
+    public void newGame(String... mandatedSecrets) {
+        if (mandatedSecrets.length != this.numBoards) {
+            throw new IllegalArgumentException(
+                    "Need " + this.numBoards + " secrets");
+        }
+        for (int b = 0; b < this.numBoards; ++b) {
+            final int index = this.words.indexOf(mandatedSecrets[b]);
+            if (index < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "\"%s\" is not a legal word.", mandatedSecrets[b]));
+            }
+            this.secrets[b] = index;
+        }
+        this.newGameUtil();
+    }
+
+    /**
+     * What must be done regardless of which newGame method was called
+     */
+    private void newGameUtil() {
+        final byte[] letters = this.words.letters();
+        for (int b = 0; b < this.numBoards; ++b) {
+            for (int p = 0; p < this.wordSize; ++p) {
+                this.secretLetters[p * this.numBoards + b] =
+                        letters[this.secrets[b] * this.wordSize + p];
+            }
+        }
+        Arrays.fill(this.solvedAt, -1);
+        Arrays.fill(this.letterStates, LETTER_UNUSED);
+        this.attemptNum = 0;
+        this.numSolved = 0;
+        this.gameState = Model.GameState.ONGOING;
+        for (int b = 0; b < this.numBoards; ++b) {
+            this.notifyObservers(b, "Make a guess!");
+        }
+    }
+
+    /**
+     * The player has entered a guess. It is scored against every board
+     * that is not yet solved.
+     *
+     * @param guess the full guess
+     */
+    public void enterNewGuess(CharSequence guess) {
+        if (this.gameState != Model.GameState.ONGOING) {
+            return;
+        }
+        final int guessIndex = this.words.indexOf(guess);
+        if (guessIndex < 0) {
+            this.gameState = Model.GameState.ILLEGAL_WORD;
+            for (int b = 0; b < this.numBoards; ++b) {
+                if (this.solvedAt[b] < 0) {
+                    this.notifyObservers(b, "Illegal word.");
+                }
+            }
+            this.gameState = Model.GameState.ONGOING;
+            return;
+        }
+
+        this.scoreAll(guessIndex);
+        final int row = this.attemptNum;
+        this.guesses[row] = guessIndex;
+        final int winner = Feedback.allRight(this.wordSize);
+        for (int b = 0; b < this.numBoards; ++b) {
+            if (this.solvedAt[b] >= 0) {
+                this.patterns[row * this.numBoards + b] = NO_PATTERN;
+                continue;
+            }
+            final int pattern = this.rowPatterns[b];
+            this.patterns[row * this.numBoards + b] = pattern;
+            this.updateLetterStates(b, guessIndex, pattern);
+            if (pattern == winner) {
+                this.solvedAt[b] = row;
+                this.numSolved += 1;
+            }
+        }
+        this.attemptNum += 1;
+        if (this.numSolved == this.numBoards) {
+            this.gameState = Model.GameState.WON;
+        } else if (this.attemptNum == this.numTries) {
+            this.gameState = Model.GameState.LOST;
+        }
+        for (int b = 0; b < this.numBoards; ++b) {
+            if (this.patterns[row * this.numBoards + b] != NO_PATTERN) {
+                this.notifyObservers(b, this.message(b));
+            }
+        }
+    }
+
+    /**
+     * Score one guess against every board's secret, leaving the results
+     * in rowPatterns. The work is done a letter position at a time, with
+     * each inner loop running straight across the boards, so the loops
+     * are simple enough for the JIT compiler to vectorize.
+     * The rules are those of {@link Feedback}: for each letter of the
+     * guess, the RIGHT_POS copies are found first; then the secret's
+     * remaining copies go, as WRONG_POS, to the rightmost other copies.
+     *
+     * @param guessIndex the guess's position in the dictionary
+     */
+    private void scoreAll(int guessIndex) {
+        final byte[] letters = this.words.letters();
+        final int guessOff = guessIndex * this.wordSize;
+        final int n = this.numBoards;
+        final int[] secret = this.secretLetters;
+        final int[] result = this.rowPatterns;
+        Arrays.fill(result, 0);
+
+        int place = 1;
+        for (int p = 0; p < this.wordSize; ++p) {
+            final int g = letters[guessOff + p];
+            final int base = p * n;
+            for (int b = 0; b < n; ++b) {
+                result[b] += secret[base + b] == g ? Feedback.RIGHT_POS * place : 0;
+            }
+            place *= 3;
+        }
+
+        for (int p = 0; p < this.wordSize; ++p) {
+            final int g = letters[guessOff + p];
+            boolean firstCopy = true;
+            for (int q = 0; q < p; ++q) {
+                firstCopy &= letters[guessOff + q] != g;
+            }
+            if (!firstCopy) {
+                continue; // this letter was handled at its first copy
+            }
+            // budget = copies in the secret - copies found in place
+            Arrays.fill(this.secretCounts, 0);
+            Arrays.fill(this.budgets, 0);
+            for (int q = 0; q < this.wordSize; ++q) {
+                final int base = q * n;
+                final int inPlace = letters[guessOff + q] == g ? 1 : 0;
+                for (int b = 0; b < n; ++b) {
+                    final int hit = secret[base + b] == g ? 1 : 0;
+                    this.secretCounts[b] += hit;
+                    this.budgets[b] += hit * inPlace;
+                }
+            }
+            for (int b = 0; b < n; ++b) {
+                this.budgets[b] = this.secretCounts[b] - this.budgets[b];
+            }
+            // hand out WRONG_POS marks from the right
+            int digit = Feedback.numPatterns(this.wordSize - 1);
+            for (int q = this.wordSize - 1; q >= 0; --q, digit /= 3) {
+                if (letters[guessOff + q] != g) {
+                    continue;
+                }
+                final int base = q * n;
+                for (int b = 0; b < n; ++b) {
+                    final int mark = secret[base + b] != g && this.budgets[b] > 0 ? 1 : 0;
+                    result[b] += mark * Feedback.WRONG_POS * digit;
+                    this.budgets[b] -= mark;
+                }
+            }
+        }
+    }
+
+    /**
+     * Record what a row taught the player about the letters on a board.
+     *
+     * @param board      which board
+     * @param guessIndex the guess's position in the dictionary
+     * @param pattern    the row's feedback on that board
+     */
+    private void updateLetterStates(int board, int guessIndex, int pattern) {
+        final byte[] letters = this.words.letters();
+        final int base = board * Feedback.ALPHABET_SIZE;
+        for (int p = 0; p < this.wordSize; ++p, pattern /= 3) {
+            final int ch = letters[guessIndex * this.wordSize + p];
+            final byte state = switch (pattern % 3) {
+                case Feedback.RIGHT_POS -> LETTER_RIGHT_POS;
+                case Feedback.WRONG_POS -> LETTER_WRONG_POS;
+                default -> LETTER_WRONG;
+            };
+            if (state > this.letterStates[base + ch]) {
+                this.letterStates[base + ch] = state;
+            }
+        }
+    }
+
+    /**
+     * The message for a board's observers after a row
+     *
+     * @param board which board
+     * @return the message
+     */
+    private String message(int board) {
+        if (this.solvedAt[board] == this.attemptNum - 1) {
+            return this.gameState == Model.GameState.WON
+                    ? "You won!" : "Board solved!";
+        }
+        return this.gameState == Model.GameState.LOST
+                ? "You lost 😥." : "Make a guess!";
+    }
+
+    // ******** Queries, for View ********
+
+    /**
+     * How's the game going?
+     *
+     * @return the current state
+     */
+    public Model.GameState gameState() {
+        return this.gameState;
+    }
+
+    /**
+     * How many boards are in play?
+     *
+     * @return the number of boards
+     */
+    public int numBoards() {
+        return this.numBoards;
+    }
+
+    /**
+     * How long are the words?
+     *
+     * @return the number of letters in a word
+     */
+    public int wordSize() {
+        return this.wordSize;
+    }
+
+    /**
+     * How many guesses does the player get?
+     *
+     * @return the number of tries
+     */
+    public int numTries() {
+        return this.numTries;
+    }
+
+    /**
+     * How many valid guesses has the player made in this game?
+     *
+     * @return the number of rows played
+     */
+    public int numAttempts() {
+        return this.attemptNum;
+    }
+
+    /**
+     * Find out what was guessed at a specific point in this game.
+     *
+     * @param guessNum which guess ("row")
+     * @param pos      which letter position ("column")
+     * @return the letter, or a space if the row has not been played
+     */
+    public char getChar(int guessNum, int pos) {
+        if (guessNum >= this.attemptNum) {
+            return ' ';
+        }
+        return (char) ('A' + this.words.letters()[
+                this.guesses[guessNum] * this.wordSize + pos]);
+    }
+
+    /**
+     * Find out how a letter of a guess scored on one board.
+     *
+     * @param board    which board
+     * @param guessNum which guess ("row")
+     * @param pos      which letter position ("column")
+     * @return the status; EMPTY if the row was not played on that board
+     */
+    public CharChoice.Status getStatus(int board, int guessNum, int pos) {
+        if (guessNum >= this.attemptNum) {
+            return CharChoice.Status.EMPTY;
+        }
+        final int pattern = this.patterns[guessNum * this.numBoards + board];
+        if (pattern == NO_PATTERN) {
+            return CharChoice.Status.EMPTY;
+        }
+        return switch (Feedback.digit(pattern, pos)) {
+            case Feedback.RIGHT_POS -> CharChoice.Status.RIGHT_POS;
+            case Feedback.WRONG_POS -> CharChoice.Status.WRONG_POS;
+            default -> {
+                // as in Model, a surplus copy of a secret letter is EMPTY
+                final int ch = this.words.letters()[
+                        this.guesses[guessNum] * this.wordSize + pos];
+                boolean inSecret = false;
+                for (int p = 0; p < this.wordSize; ++p) {
+                    inSecret |= this.secretLetters[p * this.numBoards + board] == ch;
+                }
+                yield inSecret ? CharChoice.Status.EMPTY : CharChoice.Status.WRONG;
+            }
+        };
+    }
+
+    /**
+     * What does the player know about a letter on one board?
+     *
+     * @param board which board
+     * @param ch    the letter
+     * @return one of the LETTER_ constants
+     */
+    public byte letterState(int board, char ch) {
+        return this.letterStates[board * Feedback.ALPHABET_SIZE + (ch - 'A')];
+    }
+
+    /**
+     * Find out how a guess scored on one board.
+     *
+     * @param board    which board
+     * @param guessNum which guess ("row"); must be less than
+     *                 {@link #numAttempts()}
+     * @return the feedback pattern (see {@link Feedback}), or -1 if the
+     * board was already solved when the row was played
+     */
+    public int pattern(int board, int guessNum) {
+        return this.patterns[guessNum * this.numBoards + board];
+    }
+
+    /**
+     * Has this board been solved?
+     *
+     * @param board which board
+     * @return true if one of the guesses was this board's secret
+     */
+    public boolean isSolved(int board) {
+        return this.solvedAt[board] >= 0;
+    }
+
+    /**
+     * What's a board's secret word?
+     *
+     * @param board which board
+     * @return the word chosen for that board
+     */
+    public String secret(int board) {
+        return this.words.get(this.secrets[board]);
+    }
+}
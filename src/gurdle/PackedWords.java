@@ -0,0 +1,86 @@
+package gurdle;
+
+/**
+ * A set of words laid out for bulk scoring: all the words' first letters,
+ * then all their second letters, and so on, each letter stored as 0 ('A')
+ * to 25 ('Z'). With this layout one letter position of many words can be
+ * compared at once.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class PackedWords {
+
+    /**
+     * The number of words
+     */
+    private final int size;
+
+    /**
+     * The number of letters in each word
+     */
+    private final int wordSize;
+
+    /**
+     * Letter p of word i is at p * size + i
+     */
+    private final byte[] letters;
+
+    /**
+     * Pack every word of a dictionary.
+     *
+     * @param dictionary the words
+     */
+    public PackedWords(Dictionary dictionary) {
+        this(dictionary, null, dictionary.size());
+    }
+
+    /**
+     * Pack some of the words of a dictionary.
+     *
+     * @param dictionary the words
+     * @param indices    the positions of the words to pack, or null for
+     *                   the first count words
+     * @param count      how many words to pack
+     */
+    public PackedWords(Dictionary dictionary, int[] indices, int count) {
+        this.size = count;
+        this.wordSize = dictionary.wordSize();
+        this.letters = new byte[count * this.wordSize];
+        final byte[] source = dictionary.letters();
+        for (int i = 0; i < count; ++i) {
+            final int word = indices == null ? i : indices[i];
+            for (int p = 0; p < this.wordSize; ++p) {
+                this.letters[p * count + i] = source[word * this.wordSize + p];
+            }
+        }
+    }
+
+    /**
+     * The number of words
+     *
+     * @return how many words were packed
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * The number of letters in each word
+     *
+     * @return the word length
+     */
+    public int wordSize() {
+        return this.wordSize;
+    }
+
+    /**
+     * The packed letters, letter p of word i at p * {@link #size()} + i.
+     * The array is shared, not copied; do not modify it.
+     *
+     * @return the letters
+     */
+    public byte[] letters() {
+        return this.letters;
+    }
+}
@@ -0,0 +1,267 @@
+package gurdle;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The model for a race: one board and one secret, shared by any number of
+ * players guessing at the same time. The first correct guess wins.
+ * <br><br>
+ * Unlike {@link Model}, a race may be played from many threads at once
+ * and takes no locks. Everything about the race's progress lives in one
+ * state word (how many rows have been played, and which row won, if
+ * any), which a guess changes with a single compare-and-set. That CAS is
+ * the moment the guess happens: it gives the guess its row number, and
+ * it can only succeed while the race is still open. So rows are numbered
+ * in the order they happened, and once a winning row is in, no other
+ * guess can get a row, let alone win.
+ * <br><br>
+ * A guess is scored before the CAS (scoring doesn't depend on other
+ * players' rows), so the only shared work is the CAS itself and then
+ * storing the row.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class RaceGame {
+
+    /**
+     * Returned by {@link #guess} for a word that is not in the dictionary
+     */
+    public static final int ILLEGAL_WORD = -1;
+
+    /**
+     * Returned by {@link #guess} once the race is over
+     */
+    public static final int RACE_OVER = -2;
+
+    /**
+     * Bits of a stored row per field
+     */
+    private static final int FIELD_BITS = 21;
+
+    /**
+     * The largest player number, dictionary size or pattern a row can hold
+     */
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    /**
+     * The largest player number
+     */
+    public static final int MAX_PLAYER = FIELD_MASK;
+
+    /**
+     * Set in every stored row, so a row not yet stored reads as 0
+     */
+    private static final long STORED = 1L << 63;
+
+    /**
+     * One scorer per thread (scorers are not thread-safe)
+     */
+    private static final ThreadLocal<Feedback> SCORERS =
+            ThreadLocal.withInitial(Feedback::new);
+
+    /**
+     * The legal words
+     */
+    private final Dictionary words;
+
+    /**
+     * The secret's position in the dictionary
+     */
+    private final int secret;
+
+    /**
+     * The feedback of a correct guess
+     */
+    private final int allRight;
+
+    /**
+     * The race's progress: the number of rows played in the low half, and
+     * the winning row plus one (0 if none) in the high half
+     */
+    private final AtomicLong state;
+
+    /**
+     * The rows, each the player, guess and feedback packed with
+     * {@link #STORED}
+     */
+    private final AtomicLongArray rows;
+
+    /**
+     * Set up a race.
+     *
+     * @param words   the legal words
+     * @param secret  the secret's position in words
+     * @param maxRows how many rows may be played in all; the race is lost
+     *                by everyone if they fill up without a win
+     */
+    public RaceGame(Dictionary words, int secret, int maxRows) {
+        if (secret < 0 || secret >= words.size()) {
+            throw new IllegalArgumentException("No such secret " + secret);
+        }
+        if (words.size() > FIELD_MASK || Feedback.numPatterns(words.wordSize()) > FIELD_MASK) {
+            throw new IllegalArgumentException("Dictionary too large for a race");
+        }
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("Bad number of rows " + maxRows);
+        }
+        this.words = words;
+        this.secret = secret;
+        this.allRight = Feedback.allRight(words.wordSize());
+        this.state = new AtomicLong();
+        this.rows = new AtomicLongArray(maxRows);
+    }
+
+    /**
+     * Play a guess. Safe to call from any number of threads.
+     *
+     * @param player who is guessing (0 to {@link #MAX_PLAYER})
+     * @param guess  the word
+     * @return the guess's row number, {@link #ILLEGAL_WORD} or
+     * {@link #RACE_OVER}
+     */
+    public int guess(int player, CharSequence guess) {
+        if (player < 0 || player > FIELD_MASK) {
+            throw new IllegalArgumentException("Bad player " + player);
+        }
+        final int guessIndex = this.words.indexOf(guess);
+        if (guessIndex < 0) {
+            return ILLEGAL_WORD;
+        }
+        final int wordSize = this.words.wordSize();
+        final int pattern = SCORERS.get().score(
+                this.words.letters(), guessIndex * wordSize,
+                this.words.letters(), this.secret * wordSize, wordSize);
+
+        long current;
+        int row;
+        long next;
+        do {
+            current = this.state.get();
+            row = (int) current;
+            if ((current >>> 32) != 0 || row == this.rows.length()) {
+                return RACE_OVER;
+            }
+            next = row + 1;
+            if (pattern == this.allRight) {
+                next |= (long) (row + 1) << 32;
+            }
+        } while (!this.state.compareAndSet(current, next));
+
+        this.rows.set(row, STORED | (long) player << (2 * FIELD_BITS)
+                | (long) guessIndex << FIELD_BITS | pattern);
+        return row;
+    }
+
+    /**
+     * A row, waiting for it to be stored if its guess has only just
+     * claimed it
+     *
+     * @param row which row; must be less than {@link #numRows()}
+     * @return the stored row
+     */
+    private long row(int row) {
+        if (row < 0 || row >= this.numRows()) {
+            throw new IndexOutOfBoundsException("No row " + row);
+        }
+        long value;
+        while ((value = this.rows.get(row)) == 0) {
+            Thread.onSpinWait();
+        }
+        return value;
+    }
+
+    // ******** Queries ********
+
+    /**
+     * How's the race going?
+     *
+     * @return WON once someone has won, LOST if the rows ran out first,
+     * else ONGOING
+     */
+    public Model.GameState gameState() {
+        final long current = this.state.get();
+        if ((current >>> 32) != 0) {
+            return Model.GameState.WON;
+        }
+        return (int) current == this.rows.length()
+                ? Model.GameState.LOST : Model.GameState.ONGOING;
+    }
+
+    /**
+     * Who won?
+     *
+     * @return the winning player, or -1 if nobody has (yet)
+     */
+    public int winner() {
+        final int winningRow = (int) (this.state.get() >>> 32) - 1;
+        return winningRow < 0 ? -1 : this.player(winningRow);
+    }
+
+    /**
+     * How many rows have been played?
+     *
+     * @return the number of rows
+     */
+    public int numRows() {
+        return (int) this.state.get();
+    }
+
+    /**
+     * How many rows may be played in all?
+     *
+     * @return the number of rows
+     */
+    public int maxRows() {
+        return this.rows.length();
+    }
+
+    /**
+     * Who played a row?
+     *
+     * @param row which row
+     * @return the player
+     */
+    public int player(int row) {
+        return (int) (this.row(row) >>> (2 * FIELD_BITS)) & FIELD_MASK;
+    }
+
+    /**
+     * The dictionary position of a row's guess
+     *
+     * @param row which row
+     * @return the guess's position
+     */
+    public int guessIndex(int row) {
+        return (int) (this.row(row) >>> FIELD_BITS) & FIELD_MASK;
+    }
+
+    /**
+     * The feedback of a row (see {@link Feedback})
+     *
+     * @param row which row
+     * @return the feedback pattern
+     */
+    public int pattern(int row) {
+        return (int) this.row(row) & FIELD_MASK;
+    }
+
+    /**
+     * The legal words
+     *
+     * @return the dictionary
+     */
+    public Dictionary dictionary() {
+        return this.words;
+    }
+
+    /**
+     * What's the secret word?
+     *
+     * @return the secret
+     */
+    public String secret() {
+        return this.words.get(this.secret);
+    }
+}
@@ -0,0 +1,267 @@
+package gurdle;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stress test for {@link RaceGame}: hundreds of threads guess random
+ * words in the same race at once, race after race. After each race the
+ * rows are checked: a won race has exactly one correct row, the last one,
+ * played by the winner; a lost race has used every row and has none; and
+ * each player's rows are exactly the guesses the player was told got a
+ * row. Throughput and the latency of a guess are printed at the end.
+ * <br><br>
+ * Usage: <code>java gurdle.RaceStress [players [races]]</code>
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class RaceStress {
+
+    /**
+     * The default number of players
+     */
+    private static final int DEFAULT_PLAYERS = 256;
+
+    /**
+     * The default number of races
+     */
+    private static final int DEFAULT_RACES = 100;
+
+    /**
+     * One player's thread: its guesses' latencies and rows
+     */
+    private static class Player extends Thread {
+
+        /**
+         * The player's number
+         */
+        private final int number;
+
+        /**
+         * The words to guess from
+         */
+        private final Dictionary words;
+
+        /**
+         * The races, one after another
+         */
+        private final RaceGame[] races;
+
+        /**
+         * Opened to start each race
+         */
+        private final CountDownLatch[] starts;
+
+        /**
+         * Counted down when the player is done with each race
+         */
+        private final CountDownLatch[] ends;
+
+        /**
+         * How many rows the player got in each race
+         */
+        private final int[] rowsGot;
+
+        /**
+         * Every guess's latency, in nanoseconds
+         */
+        private long[] latencies = new long[1024];
+
+        /**
+         * How many latencies have been recorded
+         */
+        private int numGuesses;
+
+        /**
+         * Create a player.
+         *
+         * @param number its number
+         * @param words  the words to guess from
+         * @param races  the races
+         * @param starts opened to start each race
+         * @param ends   counted down when the player is done with each race
+         */
+        Player(int number, Dictionary words, RaceGame[] races,
+               CountDownLatch[] starts, CountDownLatch[] ends) {
+            super("racer-" + number);
+            this.number = number;
+            this.words = words;
+            this.races = races;
+            this.starts = starts;
+            this.ends = ends;
+            this.rowsGot = new int[races.length];
+        }
+
+        @Override
+        public void run() {
+            final ThreadLocalRandom rng = ThreadLocalRandom.current();
+            for (int r = 0; r < this.races.length; ++r) {
+                try {
+                    this.starts[r].await();
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                int row = 0;
+                while (row != RaceGame.RACE_OVER) {
+                    final String guess = this.words.get(rng.nextInt(this.words.size()));
+                    final long start = System.nanoTime();
+                    row = this.races[r].guess(this.number, guess);
+                    this.record(System.nanoTime() - start);
+                    if (row >= 0) {
+                        this.rowsGot[r] += 1;
+                    }
+                }
+                this.ends[r].countDown();
+            }
+        }
+
+        /**
+         * Note a guess's latency.
+         *
+         * @param nanos the latency
+         */
+        private void record(long nanos) {
+            if (this.numGuesses == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.numGuesses * 2);
+            }
+            this.latencies[this.numGuesses] = nanos;
+            this.numGuesses += 1;
+        }
+    }
+
+    /**
+     * Check a finished race's rows.
+     *
+     * @param race    the race
+     * @param players the players
+     * @param r       the race's number
+     * @return null if the race is consistent, else what is wrong
+     */
+    private static String check(RaceGame race, Player[] players, int r) {
+        final int allRight = Feedback.allRight(race.dictionary().wordSize());
+        final int[] rowsOf = new int[players.length];
+        int wins = 0;
+        int winningRow = -1;
+        for (int row = 0; row < race.numRows(); ++row) {
+            rowsOf[race.player(row)] += 1;
+            if (race.pattern(row) == allRight) {
+                wins += 1;
+                winningRow = row;
+            }
+        }
+        for (Player player : players) {
+            if (rowsOf[player.number] != player.rowsGot[r]) {
+                return "player " + player.number + " has the wrong rows";
+            }
+        }
+        if (race.gameState() == Model.GameState.WON) {
+            if (wins != 1 || winningRow != race.numRows() - 1) {
+                return wins + " winning rows";
+            }
+            if (race.winner() != race.player(winningRow)) {
+                return "wrong winner";
+            }
+        } else if (race.gameState() != Model.GameState.LOST
+                || wins != 0 || race.numRows() != race.maxRows()) {
+            return "lost race is not full, or has a winning row";
+        }
+        return null;
+    }
+
+    /**
+     * Run the races and report.
+     *
+     * @param args the number of players and of races (optional)
+     */
+    public static void main(String[] args) {
+        final int numPlayers;
+        final int numRaces;
+        try {
+            numPlayers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PLAYERS;
+            numRaces = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RACES;
+        } catch (NumberFormatException nfe) {
+            System.err.println("Usage: java RaceStress [players [races]]");
+            return;
+        }
+        final Dictionary words;
+        try {
+            words = Dictionary.load(Model.WORD_FILE_NAME);
+        } catch (IOException ioe) {
+            System.err.println("Cannot read word file.");
+            return;
+        }
+        final RaceGame[] races = new RaceGame[numRaces];
+        final CountDownLatch[] starts = new CountDownLatch[numRaces];
+        final CountDownLatch[] ends = new CountDownLatch[numRaces];
+        final ThreadLocalRandom rng = ThreadLocalRandom.current();
+        for (int r = 0; r < numRaces; ++r) {
+            // As many rows as words: about a third of the races are lost.
+            races[r] = new RaceGame(words, rng.nextInt(words.size()), words.size());
+            starts[r] = new CountDownLatch(1);
+            ends[r] = new CountDownLatch(numPlayers);
+        }
+        final Player[] players = new Player[numPlayers];
+        for (int p = 0; p < numPlayers; ++p) {
+            players[p] = new Player(p, words, races, starts, ends);
+            players[p].start();
+        }
+
+        long busyNanos = 0;
+        int won = 0;
+        int bad = 0;
+        try {
+            for (int r = 0; r < numRaces; ++r) {
+                final long start = System.nanoTime();
+                starts[r].countDown();
+                ends[r].await();
+                busyNanos += System.nanoTime() - start;
+                won += races[r].gameState() == Model.GameState.WON ? 1 : 0;
+                final String problem = check(races[r], players, r);
+                if (problem != null) {
+                    System.out.println("Race " + r + ": " + problem);
+                    bad += 1;
+                }
+            }
+        } catch (InterruptedException ie) {
+            System.err.println("Interrupted");
+            return;
+        }
+
+        int total = 0;
+        for (Player player : players) {
+            total += player.numGuesses;
+        }
+        final long[] all = new long[total];
+        int at = 0;
+        for (Player player : players) {
+            System.arraycopy(player.latencies, 0, all, at, player.numGuesses);
+            at += player.numGuesses;
+        }
+        Arrays.sort(all);
+        System.out.printf("%d races (%d won, %d inconsistent), %d players%n",
+                numRaces, won, bad, numPlayers);
+        System.out.printf("%d guesses in %.3f s: %.0f guesses/s%n",
+                total, busyNanos / 1e9, total / (busyNanos / 1e9));
+        System.out.printf("latency us: p50 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                percentile(all, 0.5) / 1e3, percentile(all, 0.99) / 1e3,
+                percentile(all, 0.999) / 1e3, all.length == 0 ? 0 : all[all.length - 1] / 1e3);
+    }
+
+    /**
+     * A value that a given fraction of the values do not exceed
+     *
+     * @param sorted   the values, in order
+     * @param fraction from 0 to 1
+     * @return the percentile, or 0 if there are no values
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int i = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, i)];
+    }
+}
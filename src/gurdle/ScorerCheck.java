@@ -0,0 +1,163 @@
+package gurdle;
+
+import java.io.IOException;
+
+/**
+ * Checks the {@link BulkScorer} in use (the SIMD one when run with
+ * <code>--add-modules jdk.incubator.vector</code>) and the scalar one
+ * against {@link Feedback}, for every guess against every secret of the
+ * word file, and of each length up to {@link BulkScorer#MAX_WORD_SIZE} in
+ * the lexicon if there is one (for a list too long to score every pair,
+ * {@link #MAX_PAIRS} in all, an evenly spread selection of its words is
+ * guessed, against every secret). Secrets are scored in runs of every size
+ * up to a few vector lengths as well, so the loop that finishes off a
+ * run after the last full vector is checked too. Prints how many
+ * patterns differ (there should be none) and the first few.
+ * <br><br>
+ * Usage: <code>java gurdle.ScorerCheck</code>
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class ScorerCheck {
+
+    /**
+     * How many differences to print
+     */
+    private static final int MAX_SHOWN = 10;
+
+    /**
+     * About the most patterns compared per list and scorer
+     */
+    private static final long MAX_PAIRS = 20_000_000;
+
+    /**
+     * The longest run of secrets scored on its own
+     */
+    private static final int MAX_RUN = 200;
+
+    /**
+     * How many differences have been found
+     */
+    private static long differences;
+
+    /**
+     * Check both scorers on every guess (or as many as {@link #MAX_PAIRS}
+     * allows) and secret of one dictionary.
+     *
+     * @param words the dictionary
+     * @return the number of patterns compared
+     */
+    private static long checkAll(Dictionary words) {
+        final int n = words.size();
+        final int wordSize = words.wordSize();
+        final byte[] letters = words.letters();
+        final PackedWords secrets = new PackedWords(words);
+        final Feedback feedback = new Feedback();
+        final BulkScorer[] scorers = {BulkScorer.get(), BulkScorer.scalar()};
+        final int[] expected = new int[n];
+        final byte[] out = new byte[n];
+        long compared = 0;
+        final long guesses = Math.max(1, Math.min(n, MAX_PAIRS / n));
+        final int stride = (int) ((n + guesses - 1) / guesses);
+        for (int g = 0; g < n; g += stride) {
+            for (int s = 0; s < n; ++s) {
+                expected[s] = feedback.score(
+                        letters, g * wordSize, letters, s * wordSize, wordSize);
+            }
+            for (BulkScorer scorer : scorers) {
+                scorer.score(letters, g * wordSize, secrets, out);
+                for (int s = 0; s < n; ++s) {
+                    compare(scorer, words, g, s, expected[s], out[s] & 0xFF);
+                }
+                compared += n;
+            }
+        }
+        return compared;
+    }
+
+    /**
+     * Check the scorer in use on runs of secrets of every length up to
+     * {@link #MAX_RUN}, each guessed with a few words.
+     *
+     * @param words the dictionary
+     * @return the number of patterns compared
+     */
+    private static long checkRuns(Dictionary words) {
+        final int wordSize = words.wordSize();
+        final byte[] letters = words.letters();
+        final Feedback feedback = new Feedback();
+        final BulkScorer scorer = BulkScorer.get();
+        final int[] indices = new int[MAX_RUN];
+        final byte[] out = new byte[MAX_RUN];
+        long compared = 0;
+        for (int count = 1; count <= Math.min(MAX_RUN, words.size()); ++count) {
+            final int first = (count * 37) % (words.size() - count + 1);
+            for (int i = 0; i < count; ++i) {
+                indices[i] = first + i;
+            }
+            final PackedWords secrets = new PackedWords(words, indices, count);
+            for (int g = 0; g < words.size(); g += words.size() / 7 + 1) {
+                scorer.score(letters, g * wordSize, secrets, out);
+                for (int i = 0; i < count; ++i) {
+                    final int expected = feedback.score(letters, g * wordSize,
+                            letters, indices[i] * wordSize, wordSize);
+                    compare(scorer, words, g, indices[i], expected, out[i] & 0xFF);
+                }
+                compared += count;
+            }
+        }
+        return compared;
+    }
+
+    /**
+     * Count, and print, a pattern that differs.
+     *
+     * @param scorer   the scorer that produced it
+     * @param words    the dictionary
+     * @param guess    the guess's position
+     * @param secret   the secret's position
+     * @param expected the pattern from {@link Feedback}
+     * @param actual   the pattern from the scorer
+     */
+    private static void compare(BulkScorer scorer, Dictionary words,
+                                int guess, int secret, int expected, int actual) {
+        if (expected != actual) {
+            differences += 1;
+            if (differences <= MAX_SHOWN) {
+                System.out.printf("%s: %s against %s gave %d, not %d%n",
+                        scorer.getClass().getSimpleName(), words.get(guess),
+                        words.get(secret), actual, expected);
+            }
+        }
+    }
+
+    /**
+     * Run the checks and report.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        System.out.println("Scorer in use: " + BulkScorer.get().getClass().getSimpleName());
+        long compared = 0;
+        try {
+            final Dictionary words = Dictionary.load(Model.WORD_FILE_NAME);
+            compared += checkAll(words) + checkRuns(words);
+        } catch (IOException ioe) {
+            System.err.println("Cannot read word file.");
+            return;
+        }
+        try {
+            final Lexicon lexicon = Lexicon.load(Model.LEXICON_FILE_NAME);
+            for (int n = Lexicon.MIN_WORD_SIZE; n <= BulkScorer.MAX_WORD_SIZE; ++n) {
+                final Dictionary words = lexicon.words(n);
+                if (words != null) {
+                    compared += checkAll(words) + checkRuns(words);
+                }
+            }
+        } catch (IOException ioe) {
+            System.out.println("No lexicon; checked the word file only.");
+        }
+        System.out.printf("%d patterns compared, %d different%n", compared, differences);
+    }
+}
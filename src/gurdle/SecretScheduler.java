@@ -0,0 +1,136 @@
+package gurdle;
+
+/**
+ * Hands out secret word indices in a keyed pseudo-random order that never
+ * repeats a word until every word has been used.
+ * The order is a permutation of [0, n) computed on demand by a small
+ * Feistel network with cycle walking, so the whole state of a player's
+ * schedule is just a key and a counter: no history of used words is kept.
+ * The same key and counter always produce the same sequence, which means
+ * a replayed session sees the same secrets.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class SecretScheduler {
+
+    /**
+     * Number of Feistel rounds; four rounds is enough for good mixing
+     */
+    private static final int ROUNDS = 4;
+
+    /**
+     * The player's key
+     */
+    private final long key;
+
+    /**
+     * How many secrets have been handed out so far
+     */
+    private long counter;
+
+    /**
+     * Start a schedule at its beginning.
+     *
+     * @param key the player's key (e.g., a seed stored with their profile)
+     */
+    public SecretScheduler(long key) {
+        this(key, 0);
+    }
+
+    /**
+     * Resume a schedule.
+     *
+     * @param key     the player's key
+     * @param counter how many secrets had been handed out before
+     */
+    public SecretScheduler(long key, long counter) {
+        if (counter < 0) {
+            throw new IllegalArgumentException("Negative counter " + counter);
+        }
+        this.key = key;
+        this.counter = counter;
+    }
+
+    /**
+     * Pick the next secret.
+     * Each run of n consecutive calls returns every index exactly once;
+     * the following run uses a different permutation.
+     *
+     * @param n the number of legal words
+     * @return an index in [0, n)
+     */
+    public int next(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("No words to choose from");
+        }
+        final long epoch = this.counter / n;
+        final int position = (int) (this.counter % n);
+        this.counter += 1;
+        return permute(position, n, mix(this.key + epoch * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * The player's key
+     *
+     * @return the key this schedule was created with
+     */
+    public long key() {
+        return this.key;
+    }
+
+    /**
+     * How far along the schedule is (save this with the key to resume)
+     *
+     * @return the number of secrets handed out so far
+     */
+    public long counter() {
+        return this.counter;
+    }
+
+    /**
+     * Map x to its place in a keyed permutation of [0, n).
+     * The Feistel network permutes the smallest even-bit-width power of
+     * two covering n; results that fall outside [0, n) are fed back in
+     * until one lands inside ("cycle walking"), which keeps it a
+     * permutation of the smaller range. The halves are joined in a long,
+     * since for n above 2<sup>30</sup> the power of two is 2<sup>32</sup>.
+     *
+     * @param x        the position in the schedule, in [0, n)
+     * @param n        the size of the range
+     * @param roundKey the key for this pass through the words
+     * @return the permuted index
+     */
+    static int permute(int x, int n, long roundKey) {
+        int bits = 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1));
+        bits += bits & 1;
+        final int halfBits = Math.max(bits / 2, 1);
+        final int halfMask = (1 << halfBits) - 1;
+        long y = x;
+        do {
+            int left = (int) (y >>> halfBits);
+            int right = (int) y & halfMask;
+            for (int r = 0; r < ROUNDS; ++r) {
+                final int f = (int) mix(roundKey ^ ((long) r << 32) ^ right)
+                        & halfMask;
+                final int newRight = left ^ f;
+                left = right;
+                right = newRight;
+            }
+            y = ((long) left << halfBits) | right;
+        } while (y >= n);
+        return (int) y;
+    }
+
+    /**
+     * A 64-bit finalizer (from SplitMix64) used as the round function
+     *
+     * @param z the value to scramble
+     * @return the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,79 @@
+package gurdle;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SIMD implementation of {@link BulkScorer}: each step scores as many
+ * secrets as a vector register has byte lanes (32 with AVX2, 64 with
+ * AVX-512). Only created by {@link BulkScorer#get()}, when the
+ * <code>jdk.incubator.vector</code> module is present.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+class VectorBulkScorer extends BulkScorer {
+
+    /**
+     * The widest byte vectors this CPU handles well
+     */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    /**
+     * Created reflectively by {@link BulkScorer}
+     */
+    VectorBulkScorer() {}
+
+    @Override
+    protected void scoreRange(byte[] guess, int guessOff,
+                              PackedWords secrets, int from, int to,
+                              byte[] out) {
+        final int n = secrets.size();
+        final int wordSize = secrets.wordSize();
+        final byte[] letters = secrets.letters();
+        final ByteVector zero = ByteVector.zero(SPECIES);
+        final ByteVector[] column = new ByteVector[wordSize];
+        final int upper = from + SPECIES.loopBound(to - from);
+
+        int i = from;
+        for (; i < upper; i += SPECIES.length()) {
+            for (int p = 0; p < wordSize; ++p) {
+                column[p] = ByteVector.fromArray(SPECIES, letters, p * n + i);
+            }
+            // RIGHT_POS marks
+            ByteVector pattern = zero;
+            int place = 1;
+            for (int p = 0; p < wordSize; ++p, place *= 3) {
+                final VectorMask<Byte> right = column[p].eq(guess[guessOff + p]);
+                pattern = pattern.add((byte) (Feedback.RIGHT_POS * place), right);
+            }
+            // WRONG_POS marks, one distinct guess letter at a time
+            for (int p = 0; p < wordSize; ++p) {
+                final byte g = guess[guessOff + p];
+                if (isRepeat(guess, guessOff, p)) {
+                    continue;
+                }
+                ByteVector budget = zero;
+                for (int q = 0; q < wordSize; ++q) {
+                    if (guess[guessOff + q] != g) {
+                        budget = budget.add((byte) 1, column[q].eq(g));
+                    }
+                }
+                place = Feedback.numPatterns(wordSize - 1);
+                for (int q = wordSize - 1; q >= 0; --q, place /= 3) {
+                    if (guess[guessOff + q] != g) {
+                        continue;
+                    }
+                    final VectorMask<Byte> mark = column[q].eq(g).not()
+                            .and(budget.compare(VectorOperators.GT, (byte) 0));
+                    pattern = pattern.add((byte) (Feedback.WRONG_POS * place), mark);
+                    budget = budget.sub((byte) 1, mark);
+                }
+            }
+            pattern.intoArray(out, i);
+        }
+        scoreScalar(guess, guessOff, secrets, i, to, out);
+    }
+}
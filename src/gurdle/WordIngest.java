@@ -0,0 +1,627 @@
+package gurdle;
+
+import util.concurrent.ConcurrentLongSet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Offline cleaner for large word lists, producing a list that
+ * {@link Lexicon} (or, for five-letter words, {@link Dictionary}) can
+ * trust.
+ * <br><br>
+ * Every line goes through three stages: normalize (trim, and make
+ * lower-case letters capitals), filter (reject words that are not all
+ * letters, are too short or too long, or have a bad weight), and dedupe
+ * (keep only the first line of each word). The file is read in chunks of
+ * whole lines, and the chunks go through the stages in parallel; the
+ * words seen are kept in a {@link ConcurrentLongSet} of packed letters,
+ * so the memory needed grows with the number of distinct words, not with
+ * the size of the file. Only a few chunks are in memory at once, so
+ * files larger than the heap are fine.
+ * <br><br>
+ * The file is read twice: the first pass finds each word's first line,
+ * and the second writes the lines that are first, in file order. This
+ * way the output is the same however the chunks are scheduled, and so is
+ * its {@link Dictionary#version() version}.
+ * <br><br>
+ * The output is either a word list (one word per line, with its weight
+ * if it had one) or a binary image that {@link Lexicon#load} reads
+ * without parsing text. Each rejected line is written to the report with
+ * its line number and the reason.
+ * <br><br>
+ * Usage: <code>java gurdle.WordIngest [--out file] [--format text|image]
+ * [--rejects file] [--min N] [--max N] [--threads N] input</code>
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class WordIngest {
+
+    /**
+     * Why a line was rejected
+     */
+    public enum Reason {
+        NOT_LETTERS("not letters"),
+        TOO_SHORT("too short"),
+        TOO_LONG("too long"),
+        BAD_WEIGHT("bad weight"),
+        DUPLICATE("duplicate");
+
+        /**
+         * How the report puts it
+         */
+        private final String text;
+
+        /**
+         * Create a reason.
+         *
+         * @param text how the report puts it
+         */
+        Reason(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return this.text;
+        }
+    }
+
+    /**
+     * How many bytes of the file make a chunk
+     */
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * How many distinct words the set of words seen starts with room for
+     * (it grows as need be; the size of the file says little, as big
+     * lists are mostly duplicates)
+     */
+    private static final int EXPECTED_WORDS = 1 << 16;
+
+    /**
+     * How much of a line longer than a whole chunk is kept (for the
+     * report)
+     */
+    private static final int OVERLONG_KEPT = 64;
+
+    /**
+     * A chunk of whole lines of the file
+     *
+     * @param bytes  the lines, each ended by a newline except perhaps the
+     *               file's last
+     * @param length how many bytes are used
+     */
+    private record Chunk(byte[] bytes, int length) {}
+
+    /**
+     * What a chunk came to
+     */
+    private static final class Part {
+
+        /**
+         * How many lines the chunk held
+         */
+        private int lines;
+
+        /**
+         * The lines kept, ready to write out
+         */
+        private final ByteArrayOutputStream kept = new ByteArrayOutputStream();
+
+        /**
+         * The report of the lines rejected
+         */
+        private final ByteArrayOutputStream rejects = new ByteArrayOutputStream();
+
+        /**
+         * How many lines were kept
+         */
+        private long numKept;
+
+        /**
+         * How many lines were rejected, by reason
+         */
+        private final long[] numRejected = new long[Reason.values().length];
+    }
+
+    /**
+     * The shortest word kept
+     */
+    private final int minWordSize;
+
+    /**
+     * The longest word kept
+     */
+    private final int maxWordSize;
+
+    /**
+     * True to write a binary image, false to write a word list
+     */
+    private final boolean image;
+
+    /**
+     * Runs the stages on the chunks
+     */
+    private final ExecutorService workers;
+
+    /**
+     * How many chunks may be read and not yet written
+     */
+    private final int maxInFlight;
+
+    /**
+     * The words seen, as packed letters, each with where it first came
+     * (chunk number &lt;&lt; 32 | line in the chunk)
+     */
+    private final ConcurrentLongSet seen;
+
+    /**
+     * The number of the first line of each chunk, less one, worked out in
+     * the first pass
+     */
+    private long[] lineBase = new long[16];
+
+    /**
+     * How many chunks the file has
+     */
+    private int numChunks;
+
+    /**
+     * Set up an ingestion.
+     *
+     * @param minWordSize the shortest word kept
+     * @param maxWordSize the longest word kept
+     * @param image       true to write a binary image, false for a word
+     *                    list
+     * @param threads     how many chunks to work on at once
+     * @param expected    about how many distinct words there will be
+     */
+    public WordIngest(int minWordSize, int maxWordSize, boolean image,
+                      int threads, int expected) {
+        if (minWordSize < 1 || maxWordSize > Dictionary.MAX_WORD_SIZE
+                || minWordSize > maxWordSize) {
+            throw new IllegalArgumentException(String.format(
+                    "Word sizes must be from 1 to %d", Dictionary.MAX_WORD_SIZE));
+        }
+        this.minWordSize = minWordSize;
+        this.maxWordSize = maxWordSize;
+        this.image = image;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            final Thread thread = new Thread(r, "ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlight = threads * 2;
+        this.seen = new ConcurrentLongSet(expected);
+    }
+
+    /**
+     * Clean a word list.
+     *
+     * @param input   the list
+     * @param out     where the words kept go
+     * @param rejects where the report of the lines rejected goes
+     * @return how many lines were kept, then how many were rejected for
+     * each {@link Reason}
+     * @throws IOException if a file cannot be read or written
+     */
+    public long[] run(String input, OutputStream out, OutputStream rejects)
+            throws IOException {
+        this.pass(input, null, null, null);
+        final long[] totals = new long[1 + Reason.values().length];
+        if (this.image) {
+            new DataOutputStream(out).writeInt(Lexicon.IMAGE_MAGIC);
+        }
+        this.pass(input, out, rejects, totals);
+        return totals;
+    }
+
+    /**
+     * Read the file once, working on its chunks in parallel and taking
+     * their results in order.
+     *
+     * @param input   the file
+     * @param out     where the words kept go, or null in the first pass
+     * @param rejects where the report goes (second pass)
+     * @param totals  where to add up the counts (second pass)
+     * @throws IOException if a file cannot be read or written
+     */
+    private void pass(String input, OutputStream out, OutputStream rejects,
+                      long[] totals) throws IOException {
+        final boolean first = out == null;
+        final ArrayDeque<Future<Part>> inFlight = new ArrayDeque<>();
+        try (InputStream in = new FileInputStream(input)) {
+            final Chunker chunker = new Chunker(in);
+            int chunkNum = 0;
+            int taken = 0;
+            Chunk chunk;
+            while ((chunk = chunker.next()) != null) {
+                final Chunk c = chunk;
+                final int n = chunkNum++;
+                inFlight.add(this.workers.submit(() -> this.process(c, n, first)));
+                if (inFlight.size() >= this.maxInFlight) {
+                    this.take(inFlight.remove(), taken++, out, rejects, totals);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                this.take(inFlight.remove(), taken++, out, rejects, totals);
+            }
+            this.numChunks = chunkNum;
+        }
+    }
+
+    /**
+     * Take the result of the next chunk in order: in the first pass,
+     * note where its lines start; in the second, write it out.
+     *
+     * @param result   the chunk's result
+     * @param chunkNum which chunk it is
+     * @param out      where the words kept go, or null in the first pass
+     * @param rejects  where the report goes
+     * @param totals   where to add up the counts
+     * @throws IOException if a file cannot be written
+     */
+    private void take(Future<Part> result, int chunkNum, OutputStream out,
+                      OutputStream rejects, long[] totals) throws IOException {
+        final Part part;
+        try {
+            part = result.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException("Ingestion failed: " + e.getCause(), e);
+        }
+        if (out == null) {
+            if (chunkNum + 1 >= this.lineBase.length) {
+                this.lineBase = Arrays.copyOf(this.lineBase, this.lineBase.length * 2);
+            }
+            this.lineBase[chunkNum + 1] = this.lineBase[chunkNum] + part.lines;
+        } else {
+            part.kept.writeTo(out);
+            part.rejects.writeTo(rejects);
+            totals[0] += part.numKept;
+            for (int r = 0; r < part.numRejected.length; ++r) {
+                totals[1 + r] += part.numRejected[r];
+            }
+        }
+    }
+
+    /**
+     * Run a chunk's lines through the stages.
+     *
+     * @param chunk    the lines
+     * @param chunkNum which chunk it is
+     * @param first    true in the first pass, which only records where
+     *                 each word first comes; false in the second, which
+     *                 keeps the first line of each word and reports the
+     *                 rest
+     * @return what became of the lines
+     */
+    private Part process(Chunk chunk, int chunkNum, boolean first) {
+        final Part part = new Part();
+        final byte[] bytes = chunk.bytes();
+        final byte[] word = new byte[Dictionary.MAX_WORD_SIZE];
+        int start = 0;
+        while (start < chunk.length()) {
+            int end = start;
+            while (end < chunk.length() && bytes[end] != '\n') {
+                end += 1;
+            }
+            final long order = (long) chunkNum << 32 | part.lines;
+            part.lines += 1;
+            this.line(bytes, start, end, word, order, first, part);
+            start = end + 1;
+        }
+        return part;
+    }
+
+    /**
+     * Run one line through the stages.
+     *
+     * @param bytes the chunk
+     * @param start where the line starts
+     * @param end   where it ends (before the newline)
+     * @param word  scratch space for the word's letters
+     * @param order where the line comes in the file
+     * @param first true in the first pass
+     * @param part  where the results go
+     */
+    private void line(byte[] bytes, int start, int end, byte[] word,
+                      long order, boolean first, Part part) {
+        // normalize: trim, split off the weight, capitalize
+        int from = start;
+        int to = end;
+        while (from < to && isSpace(bytes[from])) {
+            from += 1;
+        }
+        while (to > from && isSpace(bytes[to - 1])) {
+            to -= 1;
+        }
+        if (from == to) {
+            return; // a blank line
+        }
+        int wordEnd = from;
+        while (wordEnd < to && !isSpace(bytes[wordEnd])) {
+            wordEnd += 1;
+        }
+        int weightStart = wordEnd;
+        while (weightStart < to && isSpace(bytes[weightStart])) {
+            weightStart += 1;
+        }
+        int weightEnd = weightStart;
+        while (weightEnd < to && !isSpace(bytes[weightEnd])) {
+            weightEnd += 1;
+        }
+        // filter
+        final int wordSize = wordEnd - from;
+        Reason reason = null;
+        long key = 0;
+        for (int c = 0; c < wordSize && reason == null; ++c) {
+            int ch = bytes[from + c];
+            if (ch >= 'a' && ch <= 'z') {
+                ch -= 'a' - 'A';
+            }
+            if (ch < 'A' || ch > 'Z') {
+                reason = Reason.NOT_LETTERS;
+            } else if (c < word.length) {
+                word[c] = (byte) (ch - 'A');
+                key = (key << 5) | (ch - 'A' + 1);
+            }
+        }
+        if (reason == null && wordSize < this.minWordSize) {
+            reason = Reason.TOO_SHORT;
+        } else if (reason == null && wordSize > this.maxWordSize) {
+            reason = Reason.TOO_LONG;
+        }
+        double weight = Dictionary.DEFAULT_WEIGHT;
+        if (reason == null && weightStart < weightEnd) {
+            try {
+                weight = Double.parseDouble(new String(bytes, weightStart,
+                        weightEnd - weightStart, StandardCharsets.ISO_8859_1));
+            } catch (NumberFormatException nfe) {
+                weight = Double.NaN;
+            }
+            if (!(weight >= 0.0) || Double.isInfinite(weight)) {
+                reason = Reason.BAD_WEIGHT;
+            }
+        }
+        // dedupe
+        if (first) {
+            if (reason == null) {
+                this.seen.add(key, order);
+            }
+            return;
+        }
+        long firstOrder = order;
+        if (reason == null) {
+            firstOrder = this.seen.first(key);
+            if (firstOrder != order) {
+                reason = Reason.DUPLICATE;
+            }
+        }
+        if (reason != null) {
+            part.numRejected[reason.ordinal()] += 1;
+            this.report(part.rejects, order, reason, firstOrder, bytes, start, end);
+            return;
+        }
+        part.numKept += 1;
+        if (this.image) {
+            part.kept.write(wordSize);
+            part.kept.write(word, 0, wordSize);
+            final long bits = Double.doubleToLongBits(weight);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                part.kept.write((int) (bits >>> shift));
+            }
+        } else {
+            for (int c = 0; c < wordSize; ++c) {
+                part.kept.write('A' + word[c]);
+            }
+            if (weightStart < weightEnd) {
+                part.kept.write(' ');
+                part.kept.write(bytes, weightStart, weightEnd - weightStart);
+            }
+            part.kept.write('\n');
+        }
+    }
+
+    /**
+     * Is a byte white space?
+     *
+     * @param b the byte
+     * @return true for a space, tab, carriage return or form feed
+     */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+    }
+
+    /**
+     * Add a rejected line to the report: its line number, the reason,
+     * and the line as it was.
+     *
+     * @param report     the report
+     * @param order      where the line comes in the file
+     * @param reason     why it was rejected
+     * @param firstOrder for a duplicate, where the word first came
+     * @param bytes      the chunk
+     * @param start      where the line starts
+     * @param end        where it ends
+     */
+    private void report(ByteArrayOutputStream report, long order, Reason reason,
+                        long firstOrder, byte[] bytes, int start, int end) {
+        String text = this.lineNumber(order) + "\t" + reason;
+        if (reason == Reason.DUPLICATE) {
+            text += " of line " + this.lineNumber(firstOrder);
+        }
+        report.writeBytes(text.getBytes(StandardCharsets.ISO_8859_1));
+        report.write('\t');
+        report.write(bytes, start, end > start && bytes[end - 1] == '\r'
+                ? end - start - 1 : end - start);
+        report.write('\n');
+    }
+
+    /**
+     * The file's line number of a line (known in the second pass).
+     *
+     * @param order where the line comes: chunk number &lt;&lt; 32 | line
+     *              in the chunk
+     * @return its line number, counting from 1
+     */
+    private long lineNumber(long order) {
+        return this.lineBase[(int) (order >>> 32)] + (order & 0xFFFFFFFFL) + 1;
+    }
+
+    /**
+     * Splits a stream into chunks that end at the end of a line
+     */
+    private static final class Chunker {
+
+        /**
+         * Where the bytes come from
+         */
+        private final InputStream in;
+
+        /**
+         * The start of a line that did not fit in the last chunk
+         */
+        private byte[] carry = new byte[0];
+
+        /**
+         * Start splitting.
+         *
+         * @param in where the bytes come from
+         */
+        Chunker(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * Read the next chunk. A line longer than a whole chunk is cut
+         * short.
+         *
+         * @return the chunk, or null at the end of the stream
+         * @throws IOException if the stream cannot be read
+         */
+        Chunk next() throws IOException {
+            final byte[] bytes = Arrays.copyOf(this.carry, CHUNK_SIZE);
+            int length = this.carry.length;
+            int n;
+            while (length < bytes.length
+                    && (n = this.in.read(bytes, length, bytes.length - length)) > 0) {
+                length += n;
+            }
+            if (length < bytes.length) { // the end of the stream
+                this.carry = new byte[0];
+                return length == 0 ? null : new Chunk(bytes, length);
+            }
+            int end = length;
+            while (end > 0 && bytes[end - 1] != '\n') {
+                end -= 1;
+            }
+            if (end == 0) {
+                return this.overlong(bytes);
+            }
+            this.carry = Arrays.copyOfRange(bytes, end, length);
+            return new Chunk(bytes, end);
+        }
+
+        /**
+         * Cut short a line that fills a whole chunk: keep its start, and
+         * skip the rest of it.
+         *
+         * @param bytes the chunk
+         * @return the chunk, holding the start of the line only
+         * @throws IOException if the stream cannot be read
+         */
+        private Chunk overlong(byte[] bytes) throws IOException {
+            final byte[] scratch = new byte[1 << 16];
+            int n;
+            while ((n = this.in.read(scratch)) > 0) {
+                for (int i = 0; i < n; ++i) {
+                    if (scratch[i] == '\n') {
+                        this.carry = Arrays.copyOfRange(scratch, i + 1, n);
+                        bytes[OVERLONG_KEPT] = '\n';
+                        return new Chunk(bytes, OVERLONG_KEPT + 1);
+                    }
+                }
+            }
+            this.carry = new byte[0];
+            return new Chunk(bytes, OVERLONG_KEPT);
+        }
+    }
+
+    /**
+     * Clean a word list.
+     *
+     * @param args options: --out file, --format text|image, --rejects
+     *             file, --min N, --max N, --threads N; then the input file
+     */
+    public static void main(String[] args) {
+        String outFile = Model.LEXICON_FILE_NAME;
+        String rejectsFile = null;
+        boolean image = false;
+        int min = Lexicon.MIN_WORD_SIZE;
+        int max = Lexicon.MAX_WORD_SIZE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int a = 0;
+        try {
+            for (; a + 1 < args.length; a += 2) {
+                switch (args[a]) {
+                    case "--out" -> outFile = args[a + 1];
+                    case "--format" -> image = switch (args[a + 1]) {
+                        case "text" -> false;
+                        case "image" -> true;
+                        default -> throw new IllegalArgumentException(args[a + 1]);
+                    };
+                    case "--rejects" -> rejectsFile = args[a + 1];
+                    case "--min" -> min = Integer.parseInt(args[a + 1]);
+                    case "--max" -> max = Integer.parseInt(args[a + 1]);
+                    case "--threads" -> threads = Integer.parseInt(args[a + 1]);
+                    default -> throw new IllegalArgumentException(args[a]);
+                }
+            }
+        } catch (IllegalArgumentException iae) {
+            a = -1;
+        }
+        if (a != args.length - 1 || threads < 1) {
+            System.err.println("Usage: java WordIngest [--out file] " +
+                    "[--format text|image] [--rejects file] [--min N] [--max N] " +
+                    "[--threads N] input");
+            return;
+        }
+        final String input = args[a];
+        if (rejectsFile == null) {
+            rejectsFile = outFile + ".rejects";
+        }
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outFile));
+             OutputStream rejects = new BufferedOutputStream(new FileOutputStream(rejectsFile))) {
+            final long start = System.nanoTime();
+            final WordIngest ingest =
+                    new WordIngest(min, max, image, threads, EXPECTED_WORDS);
+            final long[] totals = ingest.run(input, out, rejects);
+            System.out.printf("%s: %d lines in %d chunks, %.1f s%n", input,
+                    ingest.lineBase[ingest.numChunks], ingest.numChunks,
+                    (System.nanoTime() - start) / 1e9);
+            System.out.printf("Kept %d words in %s%n", totals[0], outFile);
+            for (Reason reason : Reason.values()) {
+                System.out.printf("Rejected %d: %s%n",
+                        totals[1 + reason.ordinal()], reason);
+            }
+            System.out.println("Report in " + rejectsFile);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
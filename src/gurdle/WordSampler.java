@@ -0,0 +1,129 @@
+package gurdle;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws word indices according to a fixed set of weights, using Vose's
+ * alias method. The tables are built once, in O(n) time; after that every
+ * draw is O(1) and allocates nothing.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class WordSampler {
+
+    /**
+     * Probability of keeping column i rather than jumping to its alias
+     */
+    private final double[] prob;
+
+    /**
+     * The index used when column i is not kept
+     */
+    private final int[] alias;
+
+    /**
+     * How many words can be drawn at all
+     */
+    private final int numDrawable;
+
+    /**
+     * Build the alias tables for the given (non-negative) weights.
+     * If every weight is zero, all words are treated as equally likely.
+     *
+     * @param weights the relative weight of each word
+     */
+    public WordSampler(double[] weights) {
+        final int n = weights.length;
+        this.prob = new double[n];
+        this.alias = new int[n];
+        if (n == 0) {
+            this.numDrawable = 0;
+            return;
+        }
+
+        double total = 0.0;
+        int positive = 0;
+        for (double w : weights) {
+            if (w < 0.0 || Double.isNaN(w) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("Illegal word weight " + w);
+            }
+            total += w;
+            positive += w > 0.0 ? 1 : 0;
+        }
+        this.numDrawable = total > 0.0 ? positive : n;
+
+        // Scale each weight so the average is 1, then split the columns
+        // into those below the average (small) and those above it (large).
+        final double[] scaled = new double[n];
+        final int[] small = new int[n];
+        final int[] large = new int[n];
+        int numSmall = 0;
+        int numLarge = 0;
+        for (int i = 0; i < n; ++i) {
+            scaled[i] = total > 0.0 ? weights[i] * n / total : 1.0;
+            if (scaled[i] < 1.0) {
+                small[numSmall++] = i;
+            } else {
+                large[numLarge++] = i;
+            }
+        }
+
+        // Fill each small column with mass taken from a large one.
+        while (numSmall > 0 && numLarge > 0) {
+            final int s = small[--numSmall];
+            final int l = large[--numLarge];
+            this.prob[s] = scaled[s];
+            this.alias[s] = l;
+            scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+            if (scaled[l] < 1.0) {
+                small[numSmall++] = l;
+            } else {
+                large[numLarge++] = l;
+            }
+        }
+
+        // Whatever is left over is full (up to rounding error).
+        while (numLarge > 0) {
+            final int l = large[--numLarge];
+            this.prob[l] = 1.0;
+            this.alias[l] = l;
+        }
+        while (numSmall > 0) {
+            final int s = small[--numSmall];
+            this.prob[s] = 1.0;
+            this.alias[s] = s;
+        }
+    }
+
+    /**
+     * Draw one word index.
+     *
+     * @param rng the caller's own random stream
+     * @return an index in [0, {@link #size()})
+     */
+    public int next(SplittableRandom rng) {
+        final int column = rng.nextInt(this.prob.length);
+        return rng.nextDouble() < this.prob[column] ? column : this.alias[column];
+    }
+
+    /**
+     * How many words can be drawn?
+     *
+     * @return the number of weights the sampler was built with
+     */
+    public int size() {
+        return this.prob.length;
+    }
+
+    /**
+     * How many different words can be drawn? (Words of weight zero never
+     * are, unless every weight is zero.)
+     *
+     * @return the number of words with a weight above zero, or the size
+     * if there are none
+     */
+    public int numDrawable() {
+        return this.numDrawable;
+    }
+}
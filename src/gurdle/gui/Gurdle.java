@@ -54,7 +54,7 @@ public class Gurdle extends Application
         this.model = new Model();
         model.newGame();
         model.addObserver(this);
-        this.charGuess = new Label[6][5];
+        this.charGuess = new Label[this.model.numTries()][this.model.wordSize()];
     }
 
     /**
@@ -178,8 +178,8 @@ public class Gurdle extends Application
      */
     public GridPane makeCenter(){
         GridPane gridGuesses = new GridPane();
-        for(int r = 0; r < 6; r++){
-            for(int c = 0; c < 5; c++){
+        for(int r = 0; r < this.model.numTries(); r++){
+            for(int c = 0; c < this.model.wordSize(); c++){
                 this.charGuess[r][c] = new Label();
                 this.charGuess[r][c].setBackground(WHITE);
                 this.charGuess[r][c].setStyle("""
@@ -216,8 +216,8 @@ public class Gurdle extends Application
             this.message.setText("You lost!");
             this.secret.setText("secret: " + model.secret());
         }
-        for (int r = 0; r < 6; r++) {
-            for (int c = 0; c < 5; c++) {
+        for (int r = 0; r < model.numTries(); r++) {
+            for (int c = 0; c < model.wordSize(); c++) {
                 this.message.setText(message);
                 guessNum.setText("#guesses: " + model.numAttempts());
                 CharChoice cc = model.get(r, c);
@@ -0,0 +1,116 @@
+package gurdle.ptui;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.RaceGame;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The race that all sessions share: one {@link RaceGame} at a time, which
+ * any session may join. Once it is over, the next session to join starts
+ * another.
+ * <br><br>
+ * A racer number is only held while its session lasts, and is given to a
+ * new session once the old one has ended, so there are never more
+ * numbers than sessions, however long the server runs. (The rows an
+ * ended session played in the race going on are then shown under the
+ * new session's name.)
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+class Races {
+
+    /** How many rows a race has, for all its players together */
+    static final int MAX_ROWS = 64;
+
+    /** The race being played, or the last one */
+    private static final AtomicReference< RaceGame > CURRENT =
+            new AtomicReference<>();
+
+    /** Numbers the racers */
+    private static final AtomicInteger RACERS = new AtomicInteger();
+
+    /** The numbers of racers whose sessions have ended, to be given out again */
+    private static final ConcurrentLinkedQueue< Integer > FREE =
+            new ConcurrentLinkedQueue<>();
+
+    /** The racers' names, by number, while their sessions last */
+    private static final ConcurrentHashMap< Integer, String > NAMES =
+            new ConcurrentHashMap<>();
+
+    /** No instances */
+    private Races() {}
+
+    /**
+     * Give a session a racer number, one given up by an ended session if
+     * there is one.
+     * @param player the session's player name
+     * @return the number, or -1 if there are more sessions than
+     * {@link RaceGame#MAX_PLAYER} numbers
+     */
+    static int enter( String player ) {
+        final Integer free = FREE.poll();
+        final int racer = free != null ? free
+                : RACERS.getAndUpdate( n -> n > RaceGame.MAX_PLAYER ? n : n + 1 );
+        if ( racer > RaceGame.MAX_PLAYER ) {
+            return -1;
+        }
+        NAMES.put( racer, player );
+        return racer;
+    }
+
+    /**
+     * Change the name a racer is shown by.
+     * @param racer the racer's number
+     * @param player the name
+     */
+    static void rename( int racer, String player ) {
+        NAMES.replace( racer, player );
+    }
+
+    /**
+     * Forget a racer, whose session has ended.
+     * @param racer the racer's number
+     */
+    static void leave( int racer ) {
+        if ( NAMES.remove( racer ) != null ) {
+            FREE.add( racer );
+        }
+    }
+
+    /**
+     * A racer's name
+     * @param racer the racer's number
+     * @return the name, or the number if the session has ended
+     */
+    static String name( int racer ) {
+        return NAMES.getOrDefault( racer, "#" + racer );
+    }
+
+    /**
+     * The race going on, started if there is none
+     * @param words the words to race with
+     * @return the race
+     */
+    static RaceGame join( Dictionary words ) {
+        while ( true ) {
+            final RaceGame race = CURRENT.get();
+            if ( race != null && race.gameState() == Model.GameState.ONGOING
+                 && race.dictionary() == words ) {
+                return race;
+            }
+            final RaceGame next = new RaceGame(
+                    words, ThreadLocalRandom.current().nextInt( words.size() ),
+                    MAX_ROWS );
+            if ( CURRENT.compareAndSet( race, next ) ) {
+                return next;
+            }
+        }
+    }
+}
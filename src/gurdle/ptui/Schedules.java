@@ -0,0 +1,74 @@
+package gurdle.ptui;
+
+import gurdle.Model;
+import gurdle.SecretScheduler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Each player's {@link SecretScheduler schedule of secrets}, so that no
+ * secret comes back to a player until they have had every word. The key
+ * of a schedule comes from the player's name alone, so the same name
+ * gets the same secrets in any process, and a session can be replayed.
+ * How far along each schedule is, is kept while no session holds the
+ * name, so a player who comes back carries on where they left off.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+class Schedules {
+
+    /** The most players whose place in their schedule is kept */
+    private static final int MAX_PLAYERS = 100_000;
+
+    /** Where the FNV-1a hash of a name starts */
+    private static final long HASH_BASIS = 0xCBF29CE484222325L;
+
+    /** What the FNV-1a hash multiplies by at each byte */
+    private static final long HASH_PRIME = 0x100000001B3L;
+
+    /** How many secrets each player has had, while no session holds the name */
+    private static final ConcurrentHashMap< String, Long > COUNTERS =
+            new ConcurrentHashMap<>();
+
+    /** No instances */
+    private Schedules() {}
+
+    /**
+     * The key of a player's schedule
+     * @param player the player's name
+     * @return the key, the same for the same name in every process
+     */
+    static long key( String player ) {
+        long key = HASH_BASIS;
+        for ( byte b : player.getBytes( StandardCharsets.UTF_8 ) ) {
+            key = ( key ^ ( b & 0xFF ) ) * HASH_PRIME;
+        }
+        return key;
+    }
+
+    /**
+     * Have a model pick its secrets from a player's schedule, where the
+     * player left it.
+     * @param model the player's game
+     * @param player the player's name, now held by the model's session
+     */
+    static void resume( Model model, String player ) {
+        model.scheduleSecrets( key( player ), COUNTERS.getOrDefault( player, 0L ) );
+    }
+
+    /**
+     * Keep a player's place in their schedule, as they let go of the name.
+     * (Once {@link #MAX_PLAYERS} are kept, new players' places are not.)
+     * @param model the player's game
+     * @param player the player's name
+     */
+    static void suspend( Model model, String player ) {
+        final SecretScheduler scheduler = model.scheduler();
+        if ( scheduler != null && scheduler.key() == key( player ) &&
+             ( COUNTERS.size() < MAX_PLAYERS || COUNTERS.containsKey( player ) ) ) {
+            COUNTERS.put( player, scheduler.counter() );
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package gurdle.ptui;
+
+import util.concurrent.Broadcaster;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The players' boards, as feeds that any number of other sessions can
+ * watch. Each change to a watched player's board is rendered and encoded
+ * once, into a frame shared by all of its watchers.
+ * <br><br>
+ * A name is held by one session at a time, and only that session
+ * publishes to its feed, so no one can show their board under someone
+ * else's name. A name's feed is kept only while a session holds the name
+ * or watches it, so there are never more feeds than sessions.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+class Spectators {
+
+    /** How many frames a watcher may fall behind before being skipped ahead */
+    private static final int FRAMES = 16;
+
+    /**
+     * A name: the session holding it, and the feed of its board for the
+     * sessions watching it
+     */
+    private static final class Name {
+
+        /** The session playing under the name, or null */
+        private volatile Object holder;
+
+        /** How many sessions are watching */
+        private volatile int watchers;
+
+        /** The board's frames */
+        private final Broadcaster< ByteBuffer > feed = new Broadcaster<>( FRAMES );
+
+        /**
+         * Is the name still needed?
+         * @return true if it is held or watched
+         */
+        private boolean inUse() {
+            return this.holder != null || this.watchers > 0;
+        }
+    }
+
+    /** The names held or watched */
+    private static final ConcurrentHashMap< String, Name > NAMES =
+            new ConcurrentHashMap<>();
+
+    /** Numbers the default names */
+    private static final AtomicInteger SESSIONS = new AtomicInteger();
+
+    /** No instances */
+    private Spectators() {}
+
+    /**
+     * Give a new session a name of its own.
+     * @param session the session
+     * @return the name, held by the session
+     */
+    static String claimDefault( Object session ) {
+        String player;
+        do {
+            player = "player" + SESSIONS.incrementAndGet();
+        } while ( !claim( player, session ) );
+        return player;
+    }
+
+    /**
+     * Hold a name, if no other session holds it.
+     * @param player the name
+     * @param session the session
+     * @return true if the session now holds the name
+     */
+    static boolean claim( String player, Object session ) {
+        final Name name = NAMES.compute( player, ( p, n ) -> {
+            final Name result = n == null ? new Name() : n;
+            if ( result.holder == null ) {
+                result.holder = session;
+            }
+            return result;
+        } );
+        return name.holder == session;
+    }
+
+    /**
+     * Let go of a name, if the session holds it.
+     * @param player the name
+     * @param session the session
+     */
+    static void release( String player, Object session ) {
+        NAMES.computeIfPresent( player, ( p, n ) -> {
+            if ( n.holder == session ) {
+                n.holder = null;
+            }
+            return n.inUse() ? n : null;
+        } );
+    }
+
+    /**
+     * Start watching a player's board.
+     * @param player the player's name
+     * @return the feed
+     */
+    static Broadcaster< ByteBuffer > watch( String player ) {
+        return NAMES.compute( player, ( p, n ) -> {
+            final Name result = n == null ? new Name() : n;
+            result.watchers += 1;
+            return result;
+        } ).feed;
+    }
+
+    /**
+     * Stop watching a player's board.
+     * @param player the player's name
+     */
+    static void unwatch( String player ) {
+        NAMES.computeIfPresent( player, ( p, n ) -> {
+            n.watchers -= 1;
+            return n.inUse() ? n : null;
+        } );
+    }
+
+    /**
+     * The feed a session publishes its board to, if it holds the name and
+     * someone is watching (so that unwatched boards cost nothing to
+     * publish)
+     * @param player the name
+     * @param session the session
+     * @return the feed, or null
+     */
+    static Broadcaster< ByteBuffer > feedIfWatched( String player, Object session ) {
+        final Name name = NAMES.get( player );
+        return name != null && name.holder == session && name.watchers > 0
+                ? name.feed : null;
+    }
+}
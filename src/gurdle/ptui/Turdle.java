@@ -1,12 +1,38 @@
 package gurdle.ptui;
 
+import gurdle.BulkScorer;
 import gurdle.CharChoice;
+import gurdle.Feedback;
 import gurdle.Model;
+import gurdle.MultiModel;
+import gurdle.RaceGame;
+import gurdle.solver.GameReport;
+import gurdle.solver.GameSnapshot;
+import gurdle.solver.Hint;
+import gurdle.solver.HintService;
+import gurdle.solver.StrategyTree;
+import gurdle.stats.GameAnalytics;
+import gurdle.stats.GameRecorder;
+import gurdle.stats.GameResult;
+import gurdle.stats.Leaderboard;
 import util.Observer;
+import util.concurrent.Broadcaster;
+import util.concurrent.TokenBucket;
+import util.metrics.Counter;
+import util.metrics.Metrics;
 import util.ptui.ConsoleApplication;
+import util.ptui.ConsoleServer;
+import util.ptui.ShardRouter;
 
+import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 /**
  * A Plain-Text user interface for the RIT CS Wordle program
@@ -21,6 +47,60 @@ public class Turdle extends ConsoleApplication
     /** View/Controller access to model */
     private Model model;
 
+    /** Finds hints for the current game */
+    private HintService hints;
+
+    /**
+     * Follows the game down the word file's strategy tree, or null if
+     * there is no tree
+     */
+    private StrategyTree.Cursor treeCursor;
+
+    /** How long a hint may take, in milliseconds */
+    private static final long HINT_BUDGET = 250;
+
+    /** Records this player's finished games on the shared leaderboard */
+    private GameRecorder recorder;
+
+    /** How many entries of each ranking the top command shows */
+    private static final int TOP_SIZE = 10;
+
+    /** How many words of each list the trends command shows */
+    private static final int TRENDS_SIZE = 5;
+
+    /**
+     * How many guesses a second a network session may make in the long
+     * run (property <code>gurdle.guessRate</code>)
+     */
+    private static final double GUESS_RATE =
+            Double.parseDouble( System.getProperty( "gurdle.guessRate", "10" ) );
+
+    /**
+     * How many guesses a network session may make in a burst (property
+     * <code>gurdle.guessBurst</code>)
+     */
+    private static final int GUESS_BURST =
+            Integer.getInteger( "gurdle.guessBurst", 20 );
+
+    /** How many guesses were refused for coming too fast */
+    private static final Counter GUESSES_LIMITED =
+            Metrics.counter( "turdle.guessesLimited" );
+
+    /**
+     * Limits this session's guesses, so that bots cannot crowd out
+     * people; null for a console session
+     */
+    private TokenBucket guessLimit;
+
+    /** How many finished games a session keeps for the export command */
+    private static final int MAX_FINISHED_GAMES = 100;
+
+    /**
+     * The latest games finished in this session, oldest first, for the
+     * export command
+     */
+    private final ArrayDeque< GameSnapshot > finishedGames = new ArrayDeque<>();
+
     /**
      * Used to prevent this class displaying any info before the UI
      * has been completely set up.
@@ -38,31 +118,72 @@ public class Turdle extends ConsoleApplication
      */
     private boolean initialized;
 
+    /** The shared race this session is in, or null */
+    private RaceGame race;
+
+    /** This session's number in races */
+    private int racer;
+
+    /** How many of the race's rows this session has been shown */
+    private int raceRowsShown;
+
+    /** The most boards a multi-board game may have */
+    private static final int MAX_BOARDS = 32;
+
+    /** The multi-board game this session is playing, or null */
+    private MultiModel multi;
+
+    /** Each board's message after the last guess in it, or null */
+    private String[] boardMessages;
+
+    /** Separates the parts of a saved session */
+    private static final String STATE_SEPARATOR = ".";
+
+    /** How many parts a saved session has */
+    private static final int STATE_PARTS = 5;
+
+    /** The player whose board this session is watching, or null */
+    private String watching;
+
     /** Where this class's messages must be sent */
     private PrintWriter out;
 
+    /** The board as last drawn (reused) */
+    private final StringBuilder board = new StringBuilder();
+
     /**
      * Create the Wordle model and register this object as an observer
-     * of it. If there was a command line argument, use that as the first
-     * secret word.
+     * of it. Secrets come from the player's schedule. If there was a
+     * command line argument, use that as the first secret word.
      */
     @Override public void init() throws Exception {
         this.initialized = false;
         this.model = new Model();
         this.model.addObserver( this );
+        this.guessLimit = super.isRemote()
+                ? new TokenBucket( GUESS_RATE, GUESS_BURST ) : null;
+        this.hints = new HintService( this.model );
+        final StrategyTree tree = StrategyTree.shared();
+        this.treeCursor = tree == null ? null : tree.cursor();
+        this.recorder = new GameRecorder(
+                this.model, Leaderboard.shared(), Spectators.claimDefault( this ) );
+        GameAnalytics.watchShared( this.model );
+        this.racer = Races.enter( this.recorder.player() );
+        Schedules.resume( this.model, this.recorder.player() );
 
         List< String > paramStrings = super.getArguments();
         if ( paramStrings.size() == 1 ) {
             final String firstWord = paramStrings.get( 0 );
-            if ( firstWord.length() == Model.WORD_SIZE ) {
+            try {
                 this.model.newGame( firstWord );
+                this.recorder.disqualify(); // the secret was chosen
             }
-            else {
+            catch( IllegalArgumentException iae ) {
                 throw new Exception(
                         String.format(
-                                "\"%s\" is not the required word length (%d)." +
+                                "\"%s\" cannot be the secret: %s." +
                                 System.lineSeparator(),
-                                firstWord, Model.WORD_SIZE
+                                firstWord, iae.getMessage()
                         )
                 );
             }
@@ -85,26 +206,90 @@ public class Turdle extends ConsoleApplication
      * Tell the model to start a new game.
      */
     private void newGame() {
+        this.race = null;
+        this.multi = null;
         this.model.newGame();
     }
 
     /**
      * Set up the PTUI.
-     * Here, the handlers for "guess", "cheat", and "new" are created.
+     * Here, the handlers for "guess", "cheat", "new", "variant" (if there
+     * is a lexicon), "daily", "absurd", "multi", "race", "hint", "name", "top", "rank",
+     * "trends", "export", "watch", "save", and "load" are created.
      * @param out the output stream to use from now on
      */
     public void start( PrintWriter out ) {
         this.out = out;
         this.initialized = true;
         super.setOnCommand( "guess", 1, "<word>: Make a guess",
-                            args -> this.model.enterNewGuess( args[ 0 ] )
+                            args -> this.guess( args.get( 0 ) )
         );
-        super.setOnCommand( "cheat", 0, ": Show the secret word",
+        super.setOnCommand( "cheat", 0, ": Show the secret word (the game is left off the leaderboard)",
                             args -> this.cheat()
         );
         super.setOnCommand("new", 0, ": Start a new game",
                 args -> this.newGame()
         );
+        if ( Model.hasLexicon() ) { // no other lengths without one
+            super.setOnCommand( "variant", 2,
+                                "<letters> <tries>: Play words of another length from the next game",
+                                args -> this.variant( args.get( 0 ).toString(),
+                                                      args.get( 1 ).toString() )
+            );
+        }
+        super.setOnCommand( "daily", 0, ": Play today's word, the same for everyone",
+                            args -> {
+                                this.race = null;
+                                this.multi = null;
+                                this.model.newDailyGame();
+                            }
+        );
+        super.setOnCommand( "absurd", 0,
+                            ": Start a game whose secret dodges your guesses",
+                            args -> {
+                                this.race = null;
+                                this.multi = null;
+                                this.model.newAdversarialGame();
+                            }
+        );
+        super.setOnCommand( "multi", 1,
+                            "<boards>: Play that many boards at once, up to " +
+                            MAX_BOARDS + "; guesses go to them until a new game",
+                            args -> this.multi( args.get( 0 ).toString() )
+        );
+        super.setOnCommand( "race", 0,
+                            ": Join the race everyone shares; guesses go to it until a new game",
+                            args -> this.race()
+        );
+        super.setOnCommand( "hint", 0, ": Suggest a next guess (shown when found)",
+                            args -> this.hint()
+        );
+        super.setOnCommand( ShardRouter.NAME, 1, "<player>: Set your leaderboard name",
+                            args -> this.name( args.get( 0 ).toString() )
+        );
+        super.setOnCommand( "top", 0, ": Show the leaderboard",
+                            args -> this.top()
+        );
+        super.setOnCommand( "rank", 0, ": Show how your last game ranks",
+                            args -> this.rank()
+        );
+        super.setOnCommand( "trends", 0, ": Show the popular openers and hard words",
+                            args -> this.trends()
+        );
+        super.setOnCommand( "export", 1,
+                            "<file>: Save move-by-move reports of this session's games as CSV (console only)",
+                            args -> this.export( args.get( 0 ).toString() )
+        );
+        super.setOnCommand( "watch", 1,
+                            "<player>: Watch a player's board (- to stop)",
+                            args -> this.watch( args.get( 0 ).toString() )
+        );
+        super.setOnCommand( ShardRouter.SAVE, 0, ": Show the session so far, to load elsewhere",
+                            args -> this.save()
+        );
+        super.setOnCommand( ShardRouter.LOAD, 1, "<state>: Pick up a saved session",
+                            args -> this.load( args.get( 0 ).toString() )
+        );
     }
 
 
@@ -114,6 +299,10 @@ public class Turdle extends ConsoleApplication
      * state of all the legitimate guesses.
      * Print the provided message.
      * If the user lost, display the secret word.
+     * If anyone is watching this player, send them the board too.
+     * When a game of up to five letters ends, display a move-by-move
+     * report of it (except in batch mode) once it has been worked out in
+     * the background.
      * @param model the observed subject of this observer
      * @param message the message the model wants conveyed to the user
      */
@@ -121,49 +310,547 @@ public class Turdle extends ConsoleApplication
     public void update( Model model, String message ) {
         if ( !this.initialized ) return; // Too soon; no PTUI set up yet.
 
+        this.board.setLength( 0 );
+        render( model, message, this.board );
+        this.out.print( this.board );
+        final Broadcaster< ByteBuffer > feed =
+                Spectators.feedIfWatched( this.recorder.player(), this );
+        if ( feed != null ) {
+            this.board.insert( 0, "[" + this.recorder.player() + "]" +
+                                  System.lineSeparator() );
+            feed.publish( ByteBuffer.wrap( this.board.toString().getBytes(
+                    StandardCharsets.UTF_8 ) ).asReadOnlyBuffer() );
+        }
+        final Model.GameState gamestate = model.gameState();
+        if ( ( gamestate == Model.GameState.WON ||
+               gamestate == Model.GameState.LOST ) &&
+             model.wordSize() <= BulkScorer.MAX_WORD_SIZE ) { // can analyze
+            final GameSnapshot game = GameSnapshot.of( model );
+            if ( this.finishedGames.size() == MAX_FINISHED_GAMES ) {
+                this.finishedGames.removeFirst();
+            }
+            this.finishedGames.addLast( game );
+            if ( !super.isBatch() ) { // too slow for load-test scripts
+                CompletableFuture.supplyAsync( () -> GameReport.of( game ) )
+                        .thenAccept( report -> super.tell(
+                                report + System.lineSeparator() ) );
+            }
+        }
+    }
+
+    /**
+     * Draw the board: each guess, with a line of markers under it, then
+     * the message if the game is not going on, and the secret if it was
+     * lost.
+     * @param model the game
+     * @param message the model's message
+     * @param board where to draw it
+     */
+    private static void render( Model model, String message, StringBuilder board ) {
+        final String newLine = System.lineSeparator();
         for ( int guessNum = 0; guessNum < model.numAttempts(); ++guessNum ) {
-            for ( int charPos = 0; charPos < Model.WORD_SIZE; ++charPos ) {
+            for ( int charPos = 0; charPos < model.wordSize(); ++charPos ) {
                 CharChoice cc = model.get( guessNum, charPos );
-                final char ch = cc.getChar();
-                this.out.print( ch );
+                board.append( cc.getChar() );
             }
-            this.out.println();
-            for ( int charPos = 0; charPos < Model.WORD_SIZE; ++charPos ) {
+            board.append( newLine );
+            for ( int charPos = 0; charPos < model.wordSize(); ++charPos ) {
                 CharChoice cc = model.get( guessNum, charPos );
-                final CharChoice.Status ccStatus = cc.getStatus();
-                this.out.print( Turdle.CHAR_FILL.get( ccStatus ) );
+                board.append( Turdle.CHAR_FILL.get( cc.getStatus() ) );
             }
-            this.out.println();
+            board.append( newLine );
         }
         final Model.GameState gamestate = model.gameState();
         if ( gamestate != Model.GameState.ONGOING ) {
-            this.out.print( message );
+            board.append( message );
         }
         if ( gamestate == Model.GameState.LOST ) {
-            this.out.print( " The secret word was " );
-            cheat();
+            board.append( " The secret word was " ).append( model.secret() );
+        }
+        board.append( newLine );
+    }
+
+    /**
+     * Watch another player's board, or stop watching.
+     * @param player the player's name, or "-" to stop
+     */
+    private void watch( String player ) {
+        if ( this.watching != null ) {
+            Spectators.unwatch( this.watching );
+            this.watching = null;
+        }
+        if ( player.equals( "-" ) ) {
+            super.follow( null );
+            this.out.println( "Stopped watching." );
+        }
+        else {
+            super.follow( Spectators.watch( player ) );
+            this.watching = player;
+            this.out.println( "Watching " + player + "." );
+        }
+    }
+
+    /**
+     * Play under another name, unless another session has it. The next
+     * games' secrets come from that name's schedule.
+     * @param player the name
+     */
+    private void name( String player ) {
+        if ( Spectators.claim( player, this ) ) {
+            final String old = this.recorder.player();
+            this.recorder.setPlayer( player );
+            Races.rename( this.racer, player );
+            if ( !old.equals( player ) ) {
+                Schedules.suspend( this.model, old );
+                Schedules.resume( this.model, player );
+                Spectators.release( old, this );
+            }
+        }
+        else {
+            this.out.println( player + " is taken." );
+        }
+    }
+
+    /**
+     * Pass a guess to the model, unless this session is guessing faster
+     * than it is allowed to.
+     * @param word the guess
+     */
+    private void guess( CharSequence word ) {
+        if ( this.guessLimit != null && !this.guessLimit.tryAcquire() ) {
+            GUESSES_LIMITED.increment();
+            this.out.println( "Too many guesses; slow down." );
+            return;
+        }
+        if ( this.race != null ) {
+            this.raceGuess( word );
+        }
+        else if ( this.multi != null ) {
+            this.multiGuess( word );
+        }
+        else {
+            this.model.enterNewGuess( word );
+        }
+    }
+
+    /**
+     * Join the race going on, or start one, and show its rows so far.
+     */
+    private void race() {
+        if ( this.racer < 0 ) {
+            this.out.println( "Too many racers; try again later." );
+            return;
+        }
+        this.multi = null;
+        this.race = Races.join( this.model.dictionary() );
+        this.raceRowsShown = 0;
+        this.out.println( "Racing: first to find the word wins; " +
+                          Races.MAX_ROWS + " rows for everyone." );
+        this.showRace();
+    }
+
+    /**
+     * Start a game on several boards at once, with the usual words and
+     * five more tries than boards.
+     * @param boards the number of boards
+     */
+    private void multi( String boards ) {
+        final int numBoards;
+        try {
+            numBoards = Integer.parseInt( boards );
+        }
+        catch( NumberFormatException nfe ) {
+            this.out.println( "The number of boards must be a number." );
+            return;
+        }
+        if ( numBoards < 1 || numBoards > MAX_BOARDS ) {
+            this.out.println( "Play 1 to " + MAX_BOARDS + " boards." );
+            return;
+        }
+        final MultiModel game =
+                new MultiModel( this.model.dictionary(), numBoards, numBoards + 5 );
+        this.boardMessages = new String[ numBoards ];
+        for ( int b = 0; b < numBoards; ++b ) {
+            final int board = b;
+            game.addObserver( b, ( m, message ) ->
+                    this.boardMessages[ board ] = message );
+        }
+        game.newGame();
+        this.race = null;
+        this.multi = game;
+        this.out.println( numBoards + " boards, " + game.numTries() +
+                          " tries: find every word." );
+    }
+
+    /**
+     * Play a guess on every board not yet solved, and show how it scored
+     * on each, then the result if the game is over.
+     * @param word the guess
+     */
+    private void multiGuess( CharSequence word ) {
+        final MultiModel game = this.multi;
+        Arrays.fill( this.boardMessages, null );
+        final int row = game.numAttempts();
+        game.enterNewGuess( word );
+        if ( game.numAttempts() == row ) {
+            this.out.println( "Illegal word." );
+            return;
+        }
+        for ( int b = 0; b < game.numBoards(); ++b ) {
+            if ( this.boardMessages[ b ] == null ) {
+                continue; // solved before this row
+            }
+            this.out.printf( "%2d ", b + 1 );
+            for ( int pos = 0; pos < game.wordSize(); ++pos ) {
+                this.out.print( game.getChar( row, pos ) );
+            }
+            this.out.print( ' ' );
+            for ( int pos = 0; pos < game.wordSize(); ++pos ) {
+                this.out.print( CHAR_FILL.get( game.getStatus( b, row, pos ) ) );
+            }
+            this.out.println( game.isSolved( b ) ? "  solved" : "" );
+        }
+        final Model.GameState state = game.gameState();
+        if ( state != Model.GameState.ONGOING ) {
+            if ( state == Model.GameState.WON ) {
+                this.out.println( "You won!" );
+            }
+            else {
+                final StringJoiner missed = new StringJoiner( " " );
+                for ( int b = 0; b < game.numBoards(); ++b ) {
+                    if ( !game.isSolved( b ) ) {
+                        missed.add( game.secret( b ) );
+                    }
+                }
+                this.out.println( "You lost 😥. The words not found were " + missed );
+            }
+            this.out.println( "Type multi to play again." );
+            this.multi = null;
+        }
+    }
+
+    /**
+     * Play a guess in the race, then show the rows played since this
+     * session last looked, and the result if the race is over.
+     * @param word the guess
+     */
+    private void raceGuess( CharSequence word ) {
+        if ( this.race.guess( this.racer, word ) == RaceGame.ILLEGAL_WORD ) {
+            this.out.println( "Illegal word." );
+            return;
+        }
+        this.showRace();
+    }
+
+    /**
+     * Show the race's rows not yet shown, each with who played it, and
+     * how it ended if it has.
+     */
+    private void showRace() {
+        final RaceGame shown = this.race;
+        final int wordSize = shown.dictionary().wordSize();
+        final int numRows = shown.numRows();
+        for ( ; this.raceRowsShown < numRows; ++this.raceRowsShown ) {
+            final int row = this.raceRowsShown;
+            final int pattern = shown.pattern( row );
+            this.out.print( shown.dictionary().get( shown.guessIndex( row ) ) );
+            this.out.print( ' ' );
+            for ( int pos = 0; pos < wordSize; ++pos ) {
+                this.out.print( switch ( Feedback.digit( pattern, pos ) ) {
+                    case Feedback.RIGHT_POS -> '^';
+                    case Feedback.WRONG_POS -> '*';
+                    default -> ' ';
+                } );
+            }
+            this.out.println( "  " + Races.name( shown.player( row ) ) );
+        }
+        final Model.GameState state = shown.gameState();
+        if ( state != Model.GameState.ONGOING ) {
+            this.out.println( state == Model.GameState.WON
+                    ? ( shown.winner() == this.racer ? "You won the race!"
+                            : Races.name( shown.winner() ) + " won the race." )
+                    : "Nobody found it." );
+            this.out.println( "The word was " + shown.secret() +
+                              ". Type race to race again." );
+            this.race = null;
+        }
+    }
+
+    /**
+     * Print the session, for the load command here or in another process
+     * (such as a {@link ShardRouter} moving the session): the game so far,
+     * the player's name, the next games' length and tries, the player
+     * being watched, and how far along the player's schedule of secrets
+     * is, separated by {@link #STATE_SEPARATOR}.
+     */
+    private void save() {
+        final Base64.Encoder text = Base64.getUrlEncoder().withoutPadding();
+        this.out.println( ShardRouter.STATE_MARKER + String.join(
+                STATE_SEPARATOR,
+                this.model.save(),
+                text.encodeToString( this.recorder.player().getBytes(
+                        StandardCharsets.UTF_8 ) ),
+                this.model.nextWordSize() + "x" + this.model.nextNumTries(),
+                text.encodeToString( ( this.watching == null ? "" : this.watching )
+                        .getBytes( StandardCharsets.UTF_8 ) ),
+                String.valueOf( this.model.scheduler().counter() ) ) );
+    }
+
+    /**
+     * Pick up a session saved by the save command, here or in another
+     * process. The game is left off the leaderboard. The player's name is
+     * kept unless another session here has it, along with their place in
+     * their schedule of secrets, and so are the next games' length and
+     * tries if they can be played here.
+     * @param state the saved session (or just a saved game)
+     */
+    private void load( String state ) {
+        final String[] parts = state.split( Pattern.quote( STATE_SEPARATOR ), -1 );
+        if ( parts.length != 1 && parts.length != STATE_PARTS ) {
+            this.out.println( "Cannot load: not a saved session" );
+            return;
+        }
+        this.recorder.setPaused( true );
+        try {
+            this.model.restore( parts[ 0 ] );
+            this.recorder.disqualify(); // not played here from the start
+            this.race = null;
+            this.multi = null;
+        }
+        catch( IllegalArgumentException iae ) {
+            this.out.println( "Cannot load: " + iae.getMessage() );
+            return;
+        }
+        finally {
+            this.recorder.setPaused( false );
+        }
+        if ( parts.length == STATE_PARTS ) {
+            try {
+                final Base64.Decoder text = Base64.getUrlDecoder();
+                final String player = new String( text.decode( parts[ 1 ] ),
+                                                  StandardCharsets.UTF_8 );
+                this.name( player );
+                if ( this.recorder.player().equals( player ) ) {
+                    this.model.scheduleSecrets( Schedules.key( player ),
+                                                Long.parseLong( parts[ 4 ] ) );
+                }
+                final int x = parts[ 2 ].indexOf( 'x' );
+                this.model.setVariant(
+                        Integer.parseInt( parts[ 2 ].substring( 0, x ) ),
+                        Integer.parseInt( parts[ 2 ].substring( x + 1 ) ) );
+                final String watched = new String( text.decode( parts[ 3 ] ),
+                                                   StandardCharsets.UTF_8 );
+                if ( !watched.isEmpty() ) {
+                    this.watch( watched );
+                }
+            }
+            catch( IllegalArgumentException | IndexOutOfBoundsException e ) {
+                this.out.println( "Cannot load all of the session: " +
+                                  e.getMessage() );
+            }
+        }
+    }
+
+    /**
+     * Change the word length and number of tries of the following games.
+     * @param letters the word length
+     * @param tries the number of tries
+     */
+    private void variant( String letters, String tries ) {
+        try {
+            this.model.setVariant( Integer.parseInt( letters ),
+                                   Integer.parseInt( tries ) );
+            this.out.printf( "New games will be %s letters, %s tries.%n",
+                             letters, tries );
+        }
+        catch( NumberFormatException nfe ) {
+            this.out.println( "The length and tries must be numbers." );
+        }
+        catch( IllegalArgumentException iae ) {
+            this.out.println( "Cannot play that: " + iae.getMessage() );
+        }
+    }
+
+    /**
+     * Suggest the strategy tree's next guess if the game is still on the
+     * tree. Otherwise start looking for a hint, and display the best guess
+     * the hint service finds within its time budget once it is done,
+     * without holding up the next command. A hint is cancelled if the game
+     * changes first.
+     */
+    private void hint() {
+        if ( this.model.wordSize() > BulkScorer.MAX_WORD_SIZE ) {
+            this.out.println( "No hints for words that long." );
+            return;
+        }
+        if ( this.treeCursor != null ) {
+            final int guess = this.treeCursor.suggest( this.model );
+            if ( guess != StrategyTree.OFF_TREE ) {
+                this.out.println( "Try " + this.model.gameDictionary().get( guess ) +
+                                  " (strategy tree)" );
+                return;
+            }
+        }
+        final String newLine = System.lineSeparator();
+        this.hints.hint( HINT_BUDGET ).whenComplete( ( hint, failure ) -> {
+            if ( failure instanceof CancellationException ) {
+                super.tell( "Hint cancelled." + newLine );
+            }
+            else if ( failure != null ) {
+                super.tell( "No hint: " + failure.getMessage() + newLine );
+            }
+            else {
+                super.tell( ( hint == null ? "No hint yet." : "Try " + hint ) +
+                            newLine );
+            }
+        } );
+    }
+
+    /**
+     * Display the best games and streaks on the leaderboard.
+     */
+    private void top() {
+        final Leaderboard board = this.recorder.leaderboard();
+        this.out.println( "Fewest guesses:" );
+        for ( GameResult result: board.fewestGuesses( TOP_SIZE ) ) {
+            this.out.println( "\t" + result );
+        }
+        this.out.println( "Fastest:" );
+        for ( GameResult result: board.fastest( TOP_SIZE ) ) {
+            this.out.println( "\t" + result );
+        }
+        this.out.println( "Longest streaks:" );
+        for ( Leaderboard.Streak streak: board.longestStreaks( TOP_SIZE ) ) {
+            this.out.println( "\t" + streak );
+        }
+    }
+
+    /**
+     * Display where the player's last game stands among all games played,
+     * and their current streak.
+     */
+    private void rank() {
+        final GameResult last = this.recorder.last();
+        if ( last == null ) {
+            this.out.println( "No finished game yet." );
         }
         else {
-            this.out.println();
+            final Leaderboard board = this.recorder.leaderboard();
+            this.out.printf( "%s -- better than %.1f%% of %d games; streak %d%n",
+                    last, board.percentile( last.won(), last.guesses() ),
+                    board.size(), board.streak( last.player() ) );
+        }
+    }
+
+    /**
+     * Display what all players' games so far have in common, as of the
+     * shared analytics' latest snapshot.
+     */
+    private void trends() {
+        final GameAnalytics analytics =
+                GameAnalytics.shared( this.model.dictionary() );
+        final GameAnalytics.Snapshot latest = analytics.latest();
+        final GameAnalytics.Snapshot snapshot =
+                latest != null ? latest : analytics.snapshot();
+        this.out.println( snapshot.games() + " games played" );
+        this.out.println( "Favorite openers: " +
+                          snapshot.topOpeners( TRENDS_SIZE ) );
+        this.out.println( "Hardest secrets: " +
+                          snapshot.hardestWords( TRENDS_SIZE, 1 ) );
+    }
+
+    /**
+     * Analyze the games finished in this session (the latest
+     * {@link #MAX_FINISHED_GAMES}) and save the reports, in the
+     * background. Only at the console: a network client may not write
+     * files on the server.
+     *
+     * @param fileName where to save them
+     */
+    private void export( String fileName ) {
+        if ( super.isRemote() ) {
+            this.out.println( "Export is only available at the console." );
+            return;
         }
+        final List< GameSnapshot > games = new ArrayList<>( this.finishedGames );
+        this.out.println( "Saving " + games.size() + " games..." );
+        CompletableFuture.runAsync( () -> {
+            final List< GameReport > reports = GameReport.analyze( games );
+            try ( PrintWriter csv = new PrintWriter( new FileWriter( fileName ) ) ) {
+                GameReport.writeCsv( reports, csv );
+                super.tell( reports.size() + " games saved to " + fileName +
+                            System.lineSeparator() );
+            }
+            catch( IOException ioe ) {
+                super.tell( "Cannot write " + fileName + ": " +
+                            ioe.getMessage() + System.lineSeparator() );
+            }
+        } );
     }
 
     /**
-     * Display the answer. (for testing purposes)
+     * Keep the player's place in their schedule, let go of this session's
+     * name, and stop watching.
+     */
+    @Override
+    public void stop() {
+        if ( this.recorder != null ) {
+            Schedules.suspend( this.model, this.recorder.player() );
+            Spectators.release( this.recorder.player(), this );
+            Races.leave( this.racer );
+        }
+        if ( this.watching != null ) {
+            Spectators.unwatch( this.watching );
+            this.watching = null;
+        }
+    }
+
+    /**
+     * Display the answer, and leave this game off the leaderboard.
+     * (for testing purposes)
      */
     private void cheat() {
+        this.recorder.disqualify();
         this.out.println( this.model.secret() );
     }
 
     /**
-     * Start up the console application.
-     * @param args a single, optional word, to use as the first secret word
+     * Start up the console application, or serve it to network clients,
+     * reloading the word file whenever it changes.
+     * @param args a single, optional word, to use as the first secret word,
+     *             optionally with the batch flag and/or the port flag
+     *             followed by a port number
      */
     public static void main( String[] args ) {
-        if ( args.length > 1 ) {
-            System.err.println( "Usage: java Turdle [1st-secret-word]" );
+        final List< String > rest = new ArrayList<>( Arrays.asList( args ) );
+        int port = -1;
+        boolean badPort = false;
+        final int portAt = rest.indexOf( ConsoleServer.PORT_FLAG );
+        if ( portAt >= 0 ) {
+            try {
+                port = Integer.parseInt( rest.get( portAt + 1 ) );
+                rest.subList( portAt, portAt + 2 ).clear();
+            }
+            catch( IndexOutOfBoundsException | NumberFormatException e ) {
+                badPort = true;
+            }
+        }
+        final long numWords = rest.stream()
+                .filter( arg -> !arg.equals( ConsoleApplication.BATCH_FLAG ) )
+                .count();
+        if ( numWords > 1 || badPort ) {
+            System.err.println(
+                    "Usage: java Turdle [" + ConsoleApplication.BATCH_FLAG +
+                    "] [" + ConsoleServer.PORT_FLAG + " port]" +
+                    " [1st-secret-word]" );
+        }
+        else if ( port >= 0 ) {
+            Model.reloadWordsOnChange();
+            ConsoleServer.launch(
+                    Turdle.class, rest.toArray( String[]::new ), port );
         }
         else {
+            Model.reloadWordsOnChange();
             ConsoleApplication.launch( Turdle.class, args );
         }
     }
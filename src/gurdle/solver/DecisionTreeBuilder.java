@@ -0,0 +1,524 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.PackedWords;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * Offline builder of a {@link StrategyTree} for the word file.
+ * <br><br>
+ * At every node the guesses are ranked by entropy over the words still
+ * possible. Near the top of the tree (the first <code>--levels</code>
+ * levels) the best <code>--width</code> guesses are each expanded into a
+ * full subtree and the one with the fewest total guesses is kept; below
+ * that the single best guess is used. Subtrees are built in parallel on
+ * the fork/join pool, and the ranking at large nodes is parallel too.
+ * <br><br>
+ * Every finished subtree under a root guess is appended to a checkpoint
+ * file, so an interrupted build picks up where it left off. At the end
+ * the tree is written out and its average and maximum depth (number of
+ * guesses needed, over all secrets) are reported.
+ * <br><br>
+ * Usage: <code>java gurdle.solver.DecisionTreeBuilder [--width N]
+ * [--levels N] [--out file] [--checkpoint file]</code>
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class DecisionTreeBuilder {
+
+    /**
+     * Below this many candidates guesses are ranked on one thread
+     */
+    private static final int PARALLEL_RANKING = 128;
+
+    /**
+     * A node of the tree under construction
+     *
+     * @param guess        the dictionary position of the word to guess
+     * @param patterns     the feedback leading to each child, in order
+     * @param children     the subtrees
+     * @param totalGuesses the guesses needed to solve every secret in this
+     *                     subtree, added up
+     * @param maxDepth     the most guesses needed for any secret
+     */
+    private record Node(int guess, int[] patterns, Node[] children,
+                        long totalGuesses, int maxDepth) {}
+
+    /**
+     * One entropy scorer per worker thread
+     */
+    private static final ThreadLocal<EntropyScorer> SCORERS =
+            ThreadLocal.withInitial(EntropyScorer::new);
+
+    /**
+     * The words (guesses and possible secrets)
+     */
+    private final Dictionary words;
+
+    /**
+     * How many guesses to try at a node near the top of the tree
+     */
+    private final int width;
+
+    /**
+     * How many levels of the tree try more than one guess
+     */
+    private final int levels;
+
+    /**
+     * The pattern of a winning guess
+     */
+    private final int winner;
+
+    /**
+     * The first int of a checkpoint file
+     */
+    private static final int CHECKPOINT_MAGIC = 0x44544350;
+
+    /**
+     * Subtrees finished in an earlier run, keyed by root guess and pattern
+     */
+    private final Map<Long, Node> finished = new ConcurrentHashMap<>();
+
+    /**
+     * Where finished subtrees are appended (null: no checkpointing)
+     */
+    private DataOutputStream checkpoint;
+
+    /**
+     * Set up a builder.
+     *
+     * @param words  the words
+     * @param width  guesses tried at each node near the top (at least 1)
+     * @param levels how many levels try more than one guess
+     */
+    public DecisionTreeBuilder(Dictionary words, int width, int levels) {
+        this.words = words;
+        this.width = Math.max(width, 1);
+        this.levels = levels;
+        this.winner = Feedback.allRight(words.wordSize());
+    }
+
+    /**
+     * Build the tree, checkpointing to a file.
+     *
+     * @param checkpointFile where finished subtrees are saved, or null
+     * @return the flattened tree
+     * @throws IOException if the checkpoint file cannot be used
+     */
+    public StrategyTree build(String checkpointFile) throws IOException {
+        if (checkpointFile != null) {
+            final boolean resume = this.readCheckpoint(checkpointFile);
+            this.checkpoint = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(checkpointFile, resume)));
+            if (!resume) {
+                this.checkpoint.writeInt(CHECKPOINT_MAGIC);
+                this.checkpoint.writeInt(this.words.version());
+                this.checkpoint.writeInt(this.width);
+                this.checkpoint.writeInt(this.levels);
+                this.checkpoint.flush();
+            }
+        }
+        try {
+            final int[] all = IntStream.range(0, this.words.size()).toArray();
+            final Node root = new Subtree(all, 0, -1, -1).invoke();
+            System.out.printf("Secrets: %d, average guesses: %.4f, maximum: %d%n",
+                    all.length, (double) root.totalGuesses() / all.length,
+                    root.maxDepth());
+            return new StrategyTree(flatten(root), this.words.version());
+        } finally {
+            if (this.checkpoint != null) {
+                this.checkpoint.close();
+            }
+        }
+    }
+
+    /**
+     * Builds the best subtree for a set of candidates (never serialized).
+     */
+    @SuppressWarnings("serial")
+    private class Subtree extends RecursiveTask<Node> {
+
+        /**
+         * The dictionary positions of the words that could be the secret
+         */
+        private final int[] candidates;
+
+        /**
+         * How deep in the tree this node is (0 for the root)
+         */
+        private final int level;
+
+        /**
+         * The root guess above this node (or -1 at the root)
+         */
+        private final int rootGuess;
+
+        /**
+         * The pattern under the root guess (or -1 if not directly below)
+         */
+        private final int rootPattern;
+
+        /**
+         * Set up the task.
+         *
+         * @param candidates  the words that could be the secret
+         * @param level       the depth of this node
+         * @param rootGuess   the guess at the root, if this is its child
+         * @param rootPattern the pattern leading here from the root
+         */
+        Subtree(int[] candidates, int level, int rootGuess, int rootPattern) {
+            this.candidates = candidates;
+            this.level = level;
+            this.rootGuess = rootGuess;
+            this.rootPattern = rootPattern;
+        }
+
+        @Override
+        protected Node compute() {
+            if (this.level == 1) {
+                final Node done = DecisionTreeBuilder.this.finished.get(
+                        key(this.rootGuess, this.rootPattern));
+                if (done != null) {
+                    return done;
+                }
+            }
+            final Node node = this.search();
+            if (this.level == 1) {
+                DecisionTreeBuilder.this.save(this.rootGuess, this.rootPattern, node);
+            }
+            return node;
+        }
+
+        /**
+         * Try the top-ranked guesses and keep the best subtree.
+         *
+         * @return the best subtree found
+         */
+        private Node search() {
+            if (this.candidates.length == 1) {
+                return new Node(this.candidates[0], new int[0], new Node[0], 1, 1);
+            }
+            final int tries = this.level < DecisionTreeBuilder.this.levels
+                    ? DecisionTreeBuilder.this.width : 1;
+            Node best = null;
+            for (int guess : DecisionTreeBuilder.this.rank(this.candidates, tries)) {
+                final Node node = this.expand(guess);
+                if (node != null && (best == null ||
+                        node.totalGuesses() < best.totalGuesses() ||
+                        (node.totalGuesses() == best.totalGuesses() &&
+                                node.maxDepth() < best.maxDepth()))) {
+                    best = node;
+                }
+            }
+            if (best == null) { // nothing split the candidates; guess them
+                best = this.expand(this.candidates[0]);
+            }
+            return best;
+        }
+
+        /**
+         * Build the subtree for one guess.
+         *
+         * @param guess the guess at this node
+         * @return the subtree, or null if the guess does not narrow down
+         * the candidates
+         */
+        private Node expand(int guess) {
+            final Dictionary words = DecisionTreeBuilder.this.words;
+            final EntropyScorer scorer = SCORERS.get();
+            scorer.partition(words.letters(), guess * words.wordSize(),
+                    new PackedWords(words, this.candidates, this.candidates.length));
+            final int[] counts = scorer.counts().clone();
+            final byte[] patterns = scorer.patterns();
+            if (counts[DecisionTreeBuilder.this.winner] == 0 &&
+                    Arrays.stream(counts).max().orElse(0) == this.candidates.length) {
+                return null;
+            }
+
+            // Bucket the candidates by pattern (a counting sort).
+            final int[][] buckets = new int[counts.length][];
+            final int[] fill = new int[counts.length];
+            for (int p = 0; p < counts.length; ++p) {
+                if (counts[p] > 0 && p != DecisionTreeBuilder.this.winner) {
+                    buckets[p] = new int[counts[p]];
+                }
+            }
+            for (int i = 0; i < this.candidates.length; ++i) {
+                final int p = patterns[i] & 0xFF;
+                if (buckets[p] != null) {
+                    buckets[p][fill[p]++] = this.candidates[i];
+                }
+            }
+
+            final List<Subtree> tasks = new ArrayList<>();
+            final List<Integer> childPatterns = new ArrayList<>();
+            for (int p = 0; p < buckets.length; ++p) {
+                if (buckets[p] != null) {
+                    tasks.add(new Subtree(buckets[p], this.level + 1,
+                            this.level == 0 ? guess : this.rootGuess,
+                            this.level == 0 ? p : -1));
+                    childPatterns.add(p);
+                }
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            final Node[] children = new Node[tasks.size()];
+            long total = this.candidates.length;
+            int deepest = 0;
+            for (int c = 0; c < children.length; ++c) {
+                children[c] = tasks.get(c).join();
+                total += children[c].totalGuesses();
+                deepest = Math.max(deepest, children[c].maxDepth());
+            }
+            return new Node(guess,
+                    childPatterns.stream().mapToInt(Integer::intValue).toArray(),
+                    children, total, deepest + 1);
+        }
+    }
+
+    /**
+     * Find the guesses with the highest entropy over the candidates.
+     * Words that could be the secret win ties.
+     *
+     * @param candidates the words that could be the secret
+     * @param howMany    how many guesses to return
+     * @return the best guesses, best first
+     */
+    private int[] rank(int[] candidates, int howMany) {
+        final Dictionary words = this.words;
+        final PackedWords packed = new PackedWords(words, candidates, candidates.length);
+        final boolean[] isCandidate = new boolean[words.size()];
+        for (int c : candidates) {
+            isCandidate[c] = true;
+        }
+        final double[] scores = new double[words.size()];
+        IntStream range = IntStream.range(0, words.size());
+        if (candidates.length >= PARALLEL_RANKING) {
+            range = range.parallel();
+        }
+        range.forEach(g -> scores[g] = SCORERS.get().entropy(
+                words.letters(), g * words.wordSize(), packed)
+                + (isCandidate[g] ? 1e-9 : 0.0));
+
+        final int[] best = new int[Math.min(howMany, scores.length)];
+        for (int k = 0; k < best.length; ++k) {
+            int top = -1;
+            for (int g = 0; g < scores.length; ++g) {
+                if (scores[g] >= 0 && (top < 0 || scores[g] > scores[top])) {
+                    top = g;
+                }
+            }
+            best[k] = top;
+            scores[top] = -1;
+        }
+        return best;
+    }
+
+    /**
+     * Turn a node tree into the flat layout of {@link StrategyTree}.
+     *
+     * @param root the root node
+     * @return the flat array, root at offset 0
+     */
+    private static int[] flatten(Node root) {
+        int[] out = new int[1024];
+        int[] length = {0};
+        out = flatten(root, out, length);
+        return Arrays.copyOf(out, length[0]);
+    }
+
+    /**
+     * Append a node and (after it) its subtrees.
+     *
+     * @param node   the node
+     * @param out    the array being filled (may be replaced by a bigger one)
+     * @param length in/out: how much of out is used
+     * @return the array, which may have been replaced
+     */
+    private static int[] flatten(Node node, int[] out, int[] length) {
+        final int at = length[0];
+        final int size = 2 + 2 * node.children().length;
+        if (at + size > out.length) {
+            out = Arrays.copyOf(out, Math.max(out.length * 2, at + size));
+        }
+        out[at] = node.guess();
+        out[at + 1] = node.children().length;
+        length[0] += size;
+        for (int c = 0; c < node.children().length; ++c) {
+            out[at + 2 + 2 * c] = node.patterns()[c];
+            out[at + 3 + 2 * c] = length[0];
+            out = flatten(node.children()[c], out, length);
+        }
+        return out;
+    }
+
+    /**
+     * Turn a flat subtree back into nodes.
+     *
+     * @param flat the flat array
+     * @param at   the node's offset
+     * @return the node
+     */
+    private static Node unflatten(int[] flat, int at) {
+        final int numChildren = flat[at + 1];
+        final int[] patterns = new int[numChildren];
+        final Node[] children = new Node[numChildren];
+        for (int c = 0; c < numChildren; ++c) {
+            patterns[c] = flat[at + 2 + 2 * c];
+            children[c] = unflatten(flat, flat[at + 3 + 2 * c]);
+        }
+        return new Node(flat[at], patterns, children, 0, 0);
+    }
+
+    /**
+     * The key of a subtree directly under the root
+     *
+     * @param rootGuess the root guess
+     * @param pattern   the pattern under it
+     * @return the key
+     */
+    private static long key(int rootGuess, int pattern) {
+        return ((long) rootGuess << 32) | pattern;
+    }
+
+    /**
+     * Append a finished subtree to the checkpoint file. The file starts
+     * with {@link #CHECKPOINT_MAGIC}, the dictionary version, the width
+     * and the levels; then each record is the dictionary version, root
+     * guess, pattern, total guesses, maximum depth, and the flattened
+     * subtree (length, then ints).
+     *
+     * @param rootGuess the root guess
+     * @param pattern   the pattern under it
+     * @param node      the subtree
+     */
+    private synchronized void save(int rootGuess, int pattern, Node node) {
+        if (this.checkpoint == null) {
+            return;
+        }
+        try {
+            final int[] flat = flatten(node);
+            this.checkpoint.writeInt(this.words.version());
+            this.checkpoint.writeInt(rootGuess);
+            this.checkpoint.writeInt(pattern);
+            this.checkpoint.writeLong(node.totalGuesses());
+            this.checkpoint.writeInt(node.maxDepth());
+            this.checkpoint.writeInt(flat.length);
+            for (int n : flat) {
+                this.checkpoint.writeInt(n);
+            }
+            this.checkpoint.flush();
+        } catch (IOException ioe) {
+            System.err.println("Cannot write checkpoint: " + ioe.getMessage());
+            this.checkpoint = null;
+        }
+    }
+
+    /**
+     * Load the subtrees saved by an earlier run. A torn last record (from
+     * a crash while writing) is ignored. A checkpoint made for other
+     * words, or with another width or number of levels, is not used.
+     *
+     * @param fileName the checkpoint file
+     * @return true if the checkpoint can be added to, false if it must
+     * be started over
+     * @throws IOException if the file exists but cannot be read
+     */
+    private boolean readCheckpoint(String fileName) throws IOException {
+        if (!new File(fileName).exists()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(fileName)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC
+                    || in.readInt() != this.words.version()
+                    || in.readInt() != this.width
+                    || in.readInt() != this.levels) {
+                System.out.println("Checkpoint " + fileName +
+                        " was made with other words or options; starting over");
+                return false;
+            }
+            while (true) {
+                final int version = in.readInt();
+                final int rootGuess = in.readInt();
+                final int pattern = in.readInt();
+                final long total = in.readLong();
+                final int maxDepth = in.readInt();
+                final int[] flat = new int[in.readInt()];
+                for (int i = 0; i < flat.length; ++i) {
+                    flat[i] = in.readInt();
+                }
+                if (version == this.words.version()) {
+                    final Node n = unflatten(flat, 0);
+                    this.finished.put(key(rootGuess, pattern), new Node(
+                            n.guess(), n.patterns(), n.children(), total, maxDepth));
+                }
+            }
+        } catch (EOFException eof) {
+            if (this.finished.isEmpty() && new File(fileName).length() < 16) {
+                return false; // not even a whole header
+            }
+        }
+        System.out.println("Resuming with " + this.finished.size() +
+                " finished subtrees");
+        return true;
+    }
+
+    /**
+     * Build the tree for the word file.
+     *
+     * @param args options: --width N, --levels N, --out file,
+     *             --checkpoint file
+     */
+    public static void main(String[] args) {
+        int width = 3;
+        int levels = 2;
+        String outFile = StrategyTree.FILE_NAME;
+        String checkpointFile = StrategyTree.FILE_NAME + ".ckpt";
+        for (int a = 0; a + 1 < args.length; a += 2) {
+            switch (args[a]) {
+                case "--width" -> width = Integer.parseInt(args[a + 1]);
+                case "--levels" -> levels = Integer.parseInt(args[a + 1]);
+                case "--out" -> outFile = args[a + 1];
+                case "--checkpoint" -> checkpointFile = args[a + 1];
+                default -> {
+                    System.err.println("Usage: java DecisionTreeBuilder " +
+                            "[--width N] [--levels N] [--out file] [--checkpoint file]");
+                    return;
+                }
+            }
+        }
+        try {
+            final long start = System.nanoTime();
+            final Dictionary words = Dictionary.load(Model.WORD_FILE_NAME);
+            final StrategyTree tree =
+                    new DecisionTreeBuilder(words, width, levels).build(checkpointFile);
+            tree.write(outFile);
+            System.out.printf("Wrote %s in %.1f s%n",
+                    outFile, (System.nanoTime() - start) / 1e9);
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+        }
+    }
+}
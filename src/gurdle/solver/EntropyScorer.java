@@ -0,0 +1,113 @@
+package gurdle.solver;
+
+import gurdle.BulkScorer;
+import gurdle.PackedWords;
+
+import java.util.Arrays;
+
+/**
+ * Measures how much a guess would tell the player: the entropy, in bits,
+ * of the distribution of feedback patterns it would produce over the
+ * words that could still be the secret.
+ * The scratch buffers are reused from call to call, so an instance must
+ * not be shared between threads; give each worker its own.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class EntropyScorer {
+
+    /**
+     * The number of pattern buckets (every pattern fits in a byte)
+     */
+    static final int NUM_BUCKETS = 256;
+
+    /**
+     * Does the scoring
+     */
+    private final BulkScorer bulk = BulkScorer.get();
+
+    /**
+     * Scratch: the pattern for each candidate
+     */
+    private byte[] patterns = new byte[0];
+
+    /**
+     * Scratch: how many candidates give each pattern
+     */
+    private final int[] counts = new int[NUM_BUCKETS];
+
+    /**
+     * Score a guess against every candidate and count the bucket sizes.
+     * The per-candidate patterns are left in {@link #patterns()} and the
+     * bucket sizes in {@link #counts()}.
+     *
+     * @param letters    holds the guess's letters
+     * @param guessOff   where the guess starts in letters
+     * @param candidates the words that could still be the secret
+     */
+    public void partition(byte[] letters, int guessOff, PackedWords candidates) {
+        final int n = candidates.size();
+        if (this.patterns.length < n) {
+            this.patterns = new byte[Math.max(n, this.patterns.length * 2)];
+        }
+        this.bulk.score(letters, guessOff, candidates, this.patterns);
+        Arrays.fill(this.counts, 0);
+        for (int i = 0; i < n; ++i) {
+            this.counts[this.patterns[i] & 0xFF] += 1;
+        }
+    }
+
+    /**
+     * The entropy of a guess's feedback over the candidates
+     *
+     * @param letters    holds the guess's letters
+     * @param guessOff   where the guess starts in letters
+     * @param candidates the words that could still be the secret
+     * @return the expected information, in bits
+     */
+    public double entropy(byte[] letters, int guessOff, PackedWords candidates) {
+        this.partition(letters, guessOff, candidates);
+        return entropy(this.counts, candidates.size());
+    }
+
+    /**
+     * The entropy of a distribution given as bucket sizes
+     *
+     * @param counts the bucket sizes
+     * @param total  the sum of the bucket sizes
+     * @return the entropy, in bits
+     */
+    public static double entropy(int[] counts, int total) {
+        if (total == 0) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        for (int c : counts) {
+            if (c > 0) {
+                sum += c * Math.log(c);
+            }
+        }
+        return (Math.log(total) - sum / total) / Math.log(2);
+    }
+
+    /**
+     * The patterns from the last {@link #partition}, one per candidate;
+     * read them with <code>&amp; 0xFF</code>
+     *
+     * @return the scratch array (longer than the number of candidates)
+     */
+    public byte[] patterns() {
+        return this.patterns;
+    }
+
+    /**
+     * The bucket sizes from the last {@link #partition}, indexed by
+     * pattern
+     *
+     * @return the scratch array
+     */
+    public int[] counts() {
+        return this.counts;
+    }
+}
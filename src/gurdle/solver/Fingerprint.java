@@ -0,0 +1,46 @@
+package gurdle.solver;
+
+/**
+ * A 128-bit fingerprint of a set of possible secrets: two independent
+ * 64-bit hashes of the sorted dictionary positions, seeded with the
+ * dictionary version. Two different sets (or the same positions in two
+ * different dictionaries) are vanishingly unlikely to collide, so the
+ * fingerprint can stand in for the set as a cache key.
+ *
+ * @param hi the first hash
+ * @param lo the second hash
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public record Fingerprint(long hi, long lo) {
+
+    /**
+     * Fingerprint a set of possible secrets.
+     *
+     * @param candidates        the dictionary positions, in increasing
+     *                          order
+     * @param dictionaryVersion the version of the dictionary they are in
+     * @return the fingerprint
+     */
+    public static Fingerprint of(int[] candidates, int dictionaryVersion) {
+        long hi = 0x243F6A8885A308D3L ^ dictionaryVersion;
+        long lo = 0x13198A2E03707344L ^ ((long) dictionaryVersion << 32);
+        for (int c : candidates) {
+            hi = mix(hi ^ c) + 0x9E3779B97F4A7C15L;
+            lo = mix(lo + c * 0xC2B2AE3D27D4EB4FL) ^ 0x165667B19E3779F9L;
+        }
+        return new Fingerprint(mix(hi ^ candidates.length), mix(lo + candidates.length));
+    }
+
+    /**
+     * A 64-bit finalizer (from SplitMix64)
+     *
+     * @param z the value to scramble
+     * @return the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,250 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.PackedWords;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A move-by-move look back at a finished game: for each guess, how many
+ * words could still have been the secret, how much the guess could be
+ * expected to tell (against the best guess available), and how much it
+ * actually told. The difference between the last two is luck; the ratio
+ * of the first two is skill.
+ * <br><br>
+ * Reports for many games are worked out in parallel by
+ * {@link #analyze(List)}. Each worker thread keeps its own scratch
+ * buffers, so the only allocation per row is the packed candidate set.
+ *
+ * @param moves the analysis of each row
+ * @param won   true if the game was won
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public record GameReport(List<Move> moves, boolean won) {
+
+    /**
+     * The analysis of one row
+     *
+     * @param guess      the word guessed
+     * @param candidates how many words could still have been the secret
+     * @param expected   the expected information of the guess, in bits
+     * @param bestGuess  the guess with the most expected information
+     * @param best       its expected information, in bits
+     * @param actual     the information the guess's feedback gave, in bits
+     */
+    public record Move(String guess, int candidates, double expected,
+                       String bestGuess, double best, double actual) {
+
+        /**
+         * How close the guess came to the best one
+         *
+         * @return expected over best information, from 0 to 1
+         */
+        public double skill() {
+            return this.best == 0 ? 1.0 : this.expected / this.best;
+        }
+
+        /**
+         * How much more the feedback told than could be expected
+         *
+         * @return actual minus expected information, in bits
+         */
+        public double luck() {
+            return this.actual - this.expected;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %6d %6.2f %6.2f (%s) %6.2f %+6.2f",
+                    this.guess, this.candidates, this.expected, this.best,
+                    this.bestGuess, this.actual, this.luck());
+        }
+    }
+
+    /**
+     * The heading of the CSV export
+     */
+    public static final String CSV_HEADER =
+            "game,row,guess,candidates,expected,best_guess,best,actual,skill,luck,won";
+
+    /**
+     * A dictionary and its best opening guess
+     *
+     * @param words   the dictionary
+     * @param guess   the guess's position
+     * @param entropy its expected information
+     */
+    private record Opening(Dictionary words, int guess, double entropy) {}
+
+    /**
+     * The best opening of the dictionary most recently analyzed (every
+     * game's first row has the same, expensive, answer)
+     */
+    private static volatile Opening opening;
+
+    /**
+     * Each worker thread's scratch buffers
+     */
+    private static final ThreadLocal<Analyzer> ANALYZERS =
+            ThreadLocal.withInitial(Analyzer::new);
+
+    /**
+     * Analyze one game, on the caller's thread.
+     *
+     * @param game the finished game
+     * @return its report
+     */
+    public static GameReport of(GameSnapshot game) {
+        return ANALYZERS.get().analyze(game);
+    }
+
+    /**
+     * Analyze many games in parallel.
+     *
+     * @param games the finished games
+     * @return their reports, in the same order
+     */
+    public static List<GameReport> analyze(List<GameSnapshot> games) {
+        return games.parallelStream().map(GameReport::of).toList();
+    }
+
+    /**
+     * Write reports as CSV, one line per row of each game, after a
+     * heading line.
+     *
+     * @param reports the reports; the game column is the position in
+     *                this list
+     * @param out     where to write
+     */
+    public static void writeCsv(List<GameReport> reports, PrintWriter out) {
+        out.println(CSV_HEADER);
+        for (int g = 0; g < reports.size(); ++g) {
+            final GameReport report = reports.get(g);
+            for (int r = 0; r < report.moves().size(); ++r) {
+                final Move m = report.moves().get(r);
+                out.printf("%d,%d,%s,%d,%.4f,%s,%.4f,%.4f,%.4f,%.4f,%b%n",
+                        g, r, m.guess(), m.candidates(), m.expected(), m.bestGuess(),
+                        m.best(), m.actual(), m.skill(), m.luck(), report.won());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * The report as a table, one line per row
+     *
+     * @return the table
+     */
+    @Override
+    public String toString() {
+        final StringBuilder table = new StringBuilder(
+                "guess  left   bits   best            got   luck");
+        for (Move m : this.moves) {
+            table.append(System.lineSeparator()).append(m);
+        }
+        return table.toString();
+    }
+
+    /**
+     * One worker's scratch space, and the analysis itself
+     */
+    private static class Analyzer {
+
+        /**
+         * Scores guesses against the candidates
+         */
+        private final EntropyScorer scorer = new EntropyScorer();
+
+        /**
+         * The words that could still be the secret
+         */
+        private int[] candidates = new int[0];
+
+        /**
+         * The words still possible after the row being analyzed
+         */
+        private int[] remaining = new int[0];
+
+        /**
+         * Analyze a game.
+         *
+         * @param game the finished game
+         * @return its report
+         */
+        GameReport analyze(GameSnapshot game) {
+            final Dictionary words = game.words();
+            final int wordSize = words.wordSize();
+            final byte[] letters = words.letters();
+            final int n = words.size();
+            if (this.candidates.length < n) {
+                this.candidates = new int[n];
+                this.remaining = new int[n];
+            }
+            for (int i = 0; i < n; ++i) {
+                this.candidates[i] = i;
+            }
+            int count = n;
+            final List<Move> moves = new ArrayList<>(game.numRows());
+            for (int r = 0; r < game.numRows(); ++r) {
+                final int guess = game.guesses()[r];
+                if (guess < 0 || count == 0) {
+                    continue; // not from this dictionary; tells us nothing
+                }
+                final PackedWords packed = count == n
+                        ? GameSnapshot.packed(words)
+                        : new PackedWords(words, this.candidates, count);
+
+                // The best guess first, since partitioning overwrites the
+                // scorer's patterns.
+                int bestGuess;
+                double best;
+                final Opening known = opening;
+                if (count == n && known != null && known.words() == words) {
+                    bestGuess = known.guess();
+                    best = known.entropy();
+                } else {
+                    // Possible secrets win ties.
+                    bestGuess = this.candidates[0];
+                    best = this.scorer.entropy(letters, bestGuess * wordSize, packed);
+                    for (int g = 0; g < n; ++g) {
+                        final double e = this.scorer.entropy(letters, g * wordSize, packed);
+                        if (e > best) {
+                            best = e;
+                            bestGuess = g;
+                        }
+                    }
+                    if (count == n) {
+                        opening = new Opening(words, bestGuess, best);
+                    }
+                }
+
+                this.scorer.partition(letters, guess * wordSize, packed);
+                final double expected = EntropyScorer.entropy(this.scorer.counts(), count);
+                final byte[] patterns = this.scorer.patterns();
+                int left = 0;
+                for (int i = 0; i < count; ++i) {
+                    if ((patterns[i] & 0xFF) == game.patterns()[r]) {
+                        this.remaining[left++] = this.candidates[i];
+                    }
+                }
+                final double actual = left == 0
+                        ? 0.0 : Math.log((double) count / left) / Math.log(2);
+                moves.add(new Move(words.get(guess), count, expected,
+                        words.get(bestGuess), best, actual));
+
+                final int[] swap = this.candidates;
+                this.candidates = this.remaining;
+                this.remaining = swap;
+                count = left;
+            }
+            final int rows = game.numRows();
+            final boolean won = rows > 0
+                    && game.patterns()[rows - 1] == Feedback.allRight(wordSize);
+            return new GameReport(moves, won);
+        }
+    }
+}
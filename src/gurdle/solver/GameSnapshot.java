@@ -0,0 +1,116 @@
+package gurdle.solver;
+
+import gurdle.BulkScorer;
+import gurdle.Dictionary;
+import gurdle.Model;
+import gurdle.PackedWords;
+
+import java.util.Arrays;
+
+/**
+ * What a solver needs to know about a game: the words, and the rows
+ * confirmed so far (each guess's dictionary position and its feedback).
+ * Taking a snapshot is cheap, so it can be done on the thread that owns
+ * the {@link Model}; the expensive work is then done on the copy.
+ *
+ * @param words    the legal words
+ * @param guesses  the dictionary position of each row's guess
+ * @param patterns the feedback of each row
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public record GameSnapshot(Dictionary words, int[] guesses, int[] patterns) {
+
+    /**
+     * A dictionary and its packed words
+     *
+     * @param words  the dictionary
+     * @param packed all its words, packed
+     */
+    private record Packing(Dictionary words, PackedWords packed) {}
+
+    /**
+     * The most recently packed dictionary, shared by all solvers
+     */
+    private static volatile Packing lastPacking;
+
+    /**
+     * Copy the confirmed rows of a game.
+     *
+     * @param model the game
+     * @return the snapshot
+     */
+    public static GameSnapshot of(Model model) {
+        final Dictionary words = model.gameDictionary();
+        final int rows = model.numAttempts();
+        final int[] guesses = new int[rows];
+        final int[] patterns = new int[rows];
+        final StringBuilder guess = new StringBuilder(words.wordSize());
+        for (int r = 0; r < rows; ++r) {
+            guess.setLength(0);
+            for (int c = 0; c < words.wordSize(); ++c) {
+                guess.append(model.get(r, c).getChar());
+            }
+            guesses[r] = words.indexOf(guess);
+            patterns[r] = model.pattern(r);
+        }
+        return new GameSnapshot(words, guesses, patterns);
+    }
+
+    /**
+     * Every word of a dictionary in bulk-scoring layout, packed once and
+     * then shared
+     *
+     * @param words the dictionary
+     * @return the packed words
+     */
+    public static PackedWords packed(Dictionary words) {
+        Packing packing = lastPacking;
+        if (packing == null || packing.words() != words) {
+            packing = new Packing(words, new PackedWords(words));
+            lastPacking = packing;
+        }
+        return packing.packed();
+    }
+
+    /**
+     * The words that are still possible secrets: those that would have
+     * given every row the feedback it got.
+     *
+     * @return their dictionary positions, in increasing order
+     */
+    public int[] candidates() {
+        final PackedWords all = packed(this.words);
+        final int n = all.size();
+        final byte[] feedback = new byte[n];
+        final boolean[] out = new boolean[n];
+        final BulkScorer bulk = BulkScorer.get();
+        for (int r = 0; r < this.guesses.length; ++r) {
+            if (this.guesses[r] < 0) {
+                continue; // not from this dictionary; tells us nothing
+            }
+            bulk.score(this.words.letters(), this.guesses[r] * this.words.wordSize(),
+                    all, feedback);
+            for (int i = 0; i < n; ++i) {
+                out[i] |= (feedback[i] & 0xFF) != this.patterns[r];
+            }
+        }
+        int[] result = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; ++i) {
+            if (!out[i]) {
+                result[count++] = i;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * How many rows have been played
+     *
+     * @return the number of confirmed guesses
+     */
+    public int numRows() {
+        return this.guesses.length;
+    }
+}
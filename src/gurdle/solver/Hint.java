@@ -0,0 +1,33 @@
+package gurdle.solver;
+
+/**
+ * A suggested next guess.
+ *
+ * @param guess      the suggested word
+ * @param level      how far the search got before it had to answer
+ * @param entropy    the expected information of the guess, in bits, as
+ *                   far as the search measured it (0 for a greedy pick)
+ * @param candidates how many words could still be the secret
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public record Hint(String guess, Level level, double entropy, int candidates) {
+
+    /**
+     * The refinement levels of the search, from cheapest to best
+     */
+    public enum Level {
+        /** a quick letter-frequency pick among the possible secrets */
+        GREEDY,
+        /** every guess ranked by entropy over a sample of the secrets */
+        SAMPLED_ENTROPY,
+        /** the top guesses ranked by entropy over all possible secrets */
+        FULL_ENTROPY
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s, %.2f bits, %d possible)",
+                this.guess, this.level, this.entropy, this.candidates);
+    }
+}
@@ -0,0 +1,208 @@
+package gurdle.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, thread-safe, least-recently-used cache of solver results,
+ * keyed by the {@link Fingerprint} of the set of possible secrets.
+ * Many players reach the same set (after the same opening guesses, for
+ * instance), and they all get the same answer, so it need only be worked
+ * out once.
+ * <br><br>
+ * The cache is split into independently locked segments, chosen by key,
+ * so concurrent lookups rarely wait for each other. Each segment evicts
+ * its least recently used entry when full. Hits, misses and evictions
+ * are counted.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class HintCache {
+
+    /**
+     * The best guesses for a set of possible secrets, best first
+     *
+     * @param guesses   dictionary positions of the guesses
+     * @param entropies the expected information of each guess, in bits
+     */
+    public record Ranking(int[] guesses, double[] entropies) {}
+
+    /**
+     * The number of segments (a power of 2)
+     */
+    private static final int SEGMENTS = 16;
+
+    /**
+     * The cache used by all hint services
+     */
+    private static final HintCache SHARED = new HintCache(1 << 16);
+
+    /**
+     * The segments
+     */
+    private final Segment[] segments;
+
+    /**
+     * Lookups that found an entry
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Lookups that found nothing
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Entries thrown out to make room
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * One segment: an access-ordered map that drops its eldest entry
+     * when it grows past its share of the capacity (never serialized)
+     */
+    @SuppressWarnings("serial")
+    private class Segment extends LinkedHashMap<Fingerprint, Ranking> {
+
+        /**
+         * The most entries this segment holds
+         */
+        private final int capacity;
+
+        /**
+         * Create an empty segment.
+         *
+         * @param capacity the most entries it holds
+         */
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Fingerprint, Ranking> eldest) {
+            if (this.size() > this.capacity) {
+                HintCache.this.evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Create an empty cache.
+     *
+     * @param capacity the most entries the cache holds
+     */
+    public HintCache(int capacity) {
+        this.segments = new Segment[SEGMENTS];
+        for (int s = 0; s < SEGMENTS; ++s) {
+            this.segments[s] = new Segment(Math.max(1, capacity / SEGMENTS));
+        }
+    }
+
+    /**
+     * The cache shared by all hint services
+     *
+     * @return the shared cache
+     */
+    public static HintCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Which segment holds a key
+     *
+     * @param key the key
+     * @return the segment
+     */
+    private Segment segment(Fingerprint key) {
+        return this.segments[(int) (key.hi() >>> 60) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Look up the ranking for a set of possible secrets.
+     *
+     * @param key the set's fingerprint
+     * @return the ranking, or null if it is not cached
+     */
+    public Ranking get(Fingerprint key) {
+        final Segment segment = this.segment(key);
+        final Ranking ranking;
+        synchronized (segment) {
+            ranking = segment.get(key);
+        }
+        if (ranking != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+        return ranking;
+    }
+
+    /**
+     * Remember the ranking for a set of possible secrets.
+     *
+     * @param key     the set's fingerprint
+     * @param ranking the best guesses
+     */
+    public void put(Fingerprint key, Ranking ranking) {
+        final Segment segment = this.segment(key);
+        synchronized (segment) {
+            segment.put(key, ranking);
+        }
+    }
+
+    /**
+     * How many entries are cached
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * How many lookups found an entry
+     *
+     * @return the hit count
+     */
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * How many lookups found nothing
+     *
+     * @return the miss count
+     */
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * How many entries were thrown out to make room
+     *
+     * @return the eviction count
+     */
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        final long hits = this.hits();
+        final long lookups = hits + this.misses();
+        return String.format("%d entries, %d hits, %d misses (%.1f%% hit), %d evictions",
+                this.size(), hits, this.misses(),
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups, this.evictions());
+    }
+}
@@ -0,0 +1,345 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+import gurdle.PackedWords;
+import util.Observer;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Suggests the next guess for a game without ever keeping the caller
+ * waiting longer than it asked to.
+ * <br><br>
+ * The search runs on a shared pool of background threads and refines
+ * its answer in stages (see {@link Hint.Level}). When the latency budget
+ * runs out, the best answer found so far is delivered, along with the
+ * stage it came from. The service watches its {@link Model}: any change
+ * (a letter typed, a guess confirmed, a new game) makes the current
+ * answer stale, so the search in progress is stopped and its future is
+ * cancelled.
+ * <br><br>
+ * Finished searches are remembered in a {@link HintCache} keyed by the
+ * set of possible secrets, so a position any player has already reached
+ * is answered at once, at full strength.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class HintService implements Observer<Model, String> {
+
+    /**
+     * How many possible secrets the sampled stage looks at
+     */
+    private static final int SAMPLE_SIZE = 128;
+
+    /**
+     * How many of the sampled stage's best guesses the full stage checks
+     */
+    private static final int SHORTLIST_SIZE = 256;
+
+    /**
+     * How many guesses are scored between checks of the deadline
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * How many of the best guesses a cached ranking keeps
+     */
+    private static final int RANKING_SIZE = 10;
+
+    /**
+     * The background threads shared by all hint services
+     */
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), r -> {
+                Thread t = new Thread(r, "hint-search");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * The game being helped
+     */
+    private final Model model;
+
+    /**
+     * Where finished searches are remembered
+     */
+    private final HintCache cache;
+
+    /**
+     * The search in progress, if any (only touched on the model's thread)
+     */
+    private Search current;
+
+    /**
+     * Create a hint service for a game, using the shared cache, and start
+     * watching the game.
+     *
+     * @param model the game
+     */
+    public HintService(Model model) {
+        this(model, HintCache.shared());
+    }
+
+    /**
+     * Create a hint service for a game and start watching it.
+     *
+     * @param model the game
+     * @param cache where finished searches are remembered
+     */
+    public HintService(Model model, HintCache cache) {
+        this.model = model;
+        this.cache = cache;
+        model.addObserver(this);
+    }
+
+    /**
+     * Start looking for a hint. Any earlier search is cancelled.
+     * Must be called on the thread that drives the model.
+     *
+     * @param budgetMillis how long the caller is willing to wait
+     * @return completes with the best hint found within the budget (null
+     * if not even the list of possible secrets was ready), or is
+     * cancelled if the game changes first
+     */
+    public CompletableFuture<Hint> hint(long budgetMillis) {
+        this.cancel();
+        final Search search = new Search(GameSnapshot.of(this.model), this.cache);
+        this.current = search;
+        search.task = WORKERS.submit(search);
+        CompletableFuture.delayedExecutor(budgetMillis, TimeUnit.MILLISECONDS)
+                .execute(search::finish);
+        return search.result;
+    }
+
+    /**
+     * Stop the search in progress, if any.
+     */
+    public void cancel() {
+        if (this.current != null) {
+            this.current.stopped = true;
+            this.current.task.cancel(true);
+            this.current.result.cancel(false);
+            this.current = null;
+        }
+    }
+
+    /**
+     * The game changed, so any hint being worked on is out of date.
+     *
+     * @param model   the game
+     * @param message not used
+     */
+    @Override
+    public void update(Model model, String message) {
+        this.cancel();
+    }
+
+    /**
+     * One search, from snapshot to answer
+     */
+    private static class Search implements Runnable {
+
+        /**
+         * The game as it was when the hint was asked for
+         */
+        private final GameSnapshot game;
+
+        /**
+         * Where finished searches are remembered
+         */
+        private final HintCache cache;
+
+        /**
+         * Delivered to the caller
+         */
+        private final CompletableFuture<Hint> result = new CompletableFuture<>();
+
+        /**
+         * The best hint so far
+         */
+        private final AtomicReference<Hint> best = new AtomicReference<>();
+
+        /**
+         * Set when the search should give up
+         */
+        private volatile boolean stopped;
+
+        /**
+         * The search's thread, so it can be interrupted
+         */
+        private Future<?> task;
+
+        /**
+         * Set up a search.
+         *
+         * @param game  the game to find a hint for
+         * @param cache where finished searches are remembered
+         */
+        Search(GameSnapshot game, HintCache cache) {
+            this.game = game;
+            this.cache = cache;
+        }
+
+        /**
+         * Stop, and hand over whatever has been found.
+         */
+        void finish() {
+            this.stopped = true;
+            this.result.complete(this.best.get());
+        }
+
+        @Override
+        public void run() {
+            final Dictionary words = this.game.words();
+            final int[] candidates = this.game.candidates();
+            if (candidates.length == 0 || this.stopped) {
+                this.finish();
+                return;
+            }
+            if (candidates.length <= 2) {
+                this.best.set(new Hint(words.get(candidates[0]),
+                        Hint.Level.FULL_ENTROPY, candidates.length - 1, candidates.length));
+                this.finish();
+                return;
+            }
+
+            final Fingerprint key = Fingerprint.of(candidates, words.version());
+            final HintCache.Ranking known = this.cache.get(key);
+            if (known != null) {
+                this.best.set(new Hint(words.get(known.guesses()[0]),
+                        Hint.Level.FULL_ENTROPY, known.entropies()[0], candidates.length));
+                this.finish();
+                return;
+            }
+
+            // Stage 1: the possible secret whose letters are most common.
+            this.best.set(new Hint(words.get(greedy(words, candidates)),
+                    Hint.Level.GREEDY, 0.0, candidates.length));
+
+            // Stage 2: rank every guess against a sample of the secrets.
+            final EntropyScorer scorer = new EntropyScorer();
+            final int[] sample = sample(candidates, SAMPLE_SIZE);
+            final PackedWords sampled = new PackedWords(words, sample, sample.length);
+            final double[] scores = new double[words.size()];
+            for (int g = 0; g < words.size(); ++g) {
+                if (g % CHUNK == 0 && this.stopped) {
+                    return;
+                }
+                scores[g] = scorer.entropy(words.letters(), g * words.wordSize(), sampled);
+            }
+            final int[] shortlist = top(scores, candidates, SHORTLIST_SIZE);
+            this.best.set(new Hint(words.get(shortlist[0]), Hint.Level.SAMPLED_ENTROPY,
+                    scores[shortlist[0]], candidates.length));
+
+            // Stage 3: rank the shortlist against every possible secret.
+            final PackedWords all = new PackedWords(words, candidates, candidates.length);
+            final double[] full = new double[words.size()];
+            for (int k = 0; k < shortlist.length; ++k) {
+                if (k % CHUNK == 0 && this.stopped) {
+                    return;
+                }
+                full[shortlist[k]] = scorer.entropy(
+                        words.letters(), shortlist[k] * words.wordSize(), all);
+            }
+            final int[] ranked = top(full, candidates, RANKING_SIZE);
+            final double[] entropies = new double[ranked.length];
+            for (int k = 0; k < ranked.length; ++k) {
+                entropies[k] = full[ranked[k]];
+            }
+            this.cache.put(key, new HintCache.Ranking(ranked, entropies));
+            this.best.set(new Hint(words.get(ranked[0]), Hint.Level.FULL_ENTROPY,
+                    entropies[0], candidates.length));
+            this.finish();
+        }
+    }
+
+    /**
+     * The possible secret whose distinct letters are the most common
+     * among all the possible secrets
+     *
+     * @param words      the dictionary
+     * @param candidates the possible secrets
+     * @return the dictionary position of the pick
+     */
+    static int greedy(Dictionary words, int[] candidates) {
+        final int wordSize = words.wordSize();
+        final byte[] letters = words.letters();
+        final int[] frequency = new int[Feedback.ALPHABET_SIZE];
+        for (int c : candidates) {
+            for (int p = 0; p < wordSize; ++p) {
+                frequency[letters[c * wordSize + p]] += 1;
+            }
+        }
+        int best = candidates[0];
+        int bestScore = -1;
+        for (int c : candidates) {
+            int score = 0;
+            int seen = 0;
+            for (int p = 0; p < wordSize; ++p) {
+                final int ch = letters[c * wordSize + p];
+                if ((seen & (1 << ch)) == 0) {
+                    seen |= 1 << ch;
+                    score += frequency[ch];
+                }
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Pick evenly spaced members of a set.
+     *
+     * @param candidates the set
+     * @param size       the most to pick
+     * @return the sample
+     */
+    static int[] sample(int[] candidates, int size) {
+        if (candidates.length <= size) {
+            return candidates;
+        }
+        final int[] sample = new int[size];
+        for (int i = 0; i < size; ++i) {
+            sample[i] = candidates[(int) ((long) i * candidates.length / size)];
+        }
+        return sample;
+    }
+
+    /**
+     * The highest-scoring guesses, best first. Possible secrets win ties.
+     *
+     * @param scores     each guess's score
+     * @param candidates the possible secrets, in increasing order
+     * @param howMany    how many to return
+     * @return the best guesses
+     */
+    static int[] top(double[] scores, int[] candidates, int howMany) {
+        final double[] adjusted = scores.clone();
+        for (int c : candidates) {
+            adjusted[c] += 1e-9;
+        }
+        final Integer[] order = new Integer[adjusted.length];
+        for (int g = 0; g < order.length; ++g) {
+            order[g] = g;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(adjusted[b], adjusted[a]));
+        final int[] best = new int[Math.min(howMany, order.length)];
+        for (int k = 0; k < best.length; ++k) {
+            best[k] = order[k];
+        }
+        return best;
+    }
+}
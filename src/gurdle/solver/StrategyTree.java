@@ -0,0 +1,291 @@
+package gurdle.solver;
+
+import gurdle.Dictionary;
+import gurdle.Model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A precomputed playing strategy: a decision tree whose nodes say which
+ * word to guess, and whose edges are the feedback patterns that lead to
+ * the next node. Trees are made offline by {@link DecisionTreeBuilder}.
+ * <br><br>
+ * The whole tree is one flat <code>int</code> array. A node at offset o
+ * is laid out as
+ * <pre>
+ *     guess, numChildren, pattern<sub>1</sub>, child<sub>1</sub>, ..., pattern<sub>k</sub>, child<sub>k</sub>
+ * </pre>
+ * where guess is a dictionary position, the patterns are in increasing
+ * order and each child is the offset of another node. A node with no
+ * children is a leaf: its guess is the secret. Following one edge is a
+ * binary search over at most 243 patterns, so it takes constant time.
+ * <br><br>
+ * The file holds a magic number, a format version, the
+ * {@link Dictionary#version() dictionary version} the tree was built
+ * for, the array length and the array itself. The tree for the word file
+ * is looked for in {@link #FILE_NAME}, and {@link #shared()} loads it once
+ * for every session.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class StrategyTree {
+
+    /**
+     * Returned instead of a node when play has left the tree
+     */
+    public static final int OFF_TREE = -1;
+
+    /**
+     * Where the word file's tree is kept
+     */
+    public static final String FILE_NAME = "data/wordle.tree";
+
+    /**
+     * "GTRE"
+     */
+    private static final int MAGIC = 0x47545245;
+
+    /**
+     * The file format version
+     */
+    private static final int FORMAT = 1;
+
+    /**
+     * The word file's tree, shared by all sessions (null if there is none)
+     */
+    private static StrategyTree shared;
+
+    /**
+     * True once the shared tree has been looked for
+     */
+    private static boolean sharedLoaded;
+
+    /**
+     * The nodes
+     */
+    private final int[] nodes;
+
+    /**
+     * The version of the dictionary whose positions the nodes use
+     */
+    private final int dictionaryVersion;
+
+    /**
+     * Wrap an already-flattened tree.
+     *
+     * @param nodes             the flat node array, root at offset 0
+     * @param dictionaryVersion the dictionary the tree was built for
+     */
+    public StrategyTree(int[] nodes, int dictionaryVersion) {
+        this.nodes = nodes;
+        this.dictionaryVersion = dictionaryVersion;
+    }
+
+    /**
+     * Read a tree file.
+     *
+     * @param fileName the file
+     * @return the tree
+     * @throws IOException if the file cannot be read or is not a tree file
+     */
+    public static StrategyTree load(String fileName) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(fileName)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException(fileName + " is not a strategy tree file");
+            }
+            final int version = in.readInt();
+            final int[] nodes = new int[in.readInt()];
+            for (int i = 0; i < nodes.length; ++i) {
+                nodes[i] = in.readInt();
+            }
+            return new StrategyTree(nodes, version);
+        }
+    }
+
+    /**
+     * The word file's tree, read from {@link #FILE_NAME} the first time
+     * it is asked for
+     *
+     * @return the tree, or null if there is no tree file, or it cannot be
+     * read
+     */
+    public static synchronized StrategyTree shared() {
+        if (!sharedLoaded) {
+            sharedLoaded = true;
+            if (Files.isReadable(Path.of(FILE_NAME))) {
+                try {
+                    shared = load(FILE_NAME);
+                } catch (IOException ioe) {
+                    System.err.println("Cannot read " + FILE_NAME + ": " +
+                            ioe.getMessage());
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Write this tree to a file.
+     *
+     * @param fileName the file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(fileName)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(this.dictionaryVersion);
+            out.writeInt(this.nodes.length);
+            for (int n : this.nodes) {
+                out.writeInt(n);
+            }
+        }
+    }
+
+    /**
+     * The version of the dictionary the tree was built for
+     *
+     * @return the dictionary version
+     */
+    public int dictionaryVersion() {
+        return this.dictionaryVersion;
+    }
+
+    /**
+     * The first node
+     *
+     * @return the root's offset
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * The word to guess at a node
+     *
+     * @param node the node's offset
+     * @return the guess's dictionary position
+     */
+    public int guess(int node) {
+        return this.nodes[node];
+    }
+
+    /**
+     * Follow the edge for a feedback pattern.
+     *
+     * @param node    the node's offset
+     * @param pattern the feedback the node's guess received
+     * @return the next node, or {@link #OFF_TREE} if the tree has no such
+     * edge (the game was won, or the feedback is impossible)
+     */
+    public int child(int node, int pattern) {
+        int lo = 0;
+        int hi = this.nodes[node + 1] - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int p = this.nodes[node + 2 + 2 * mid];
+            if (p < pattern) {
+                lo = mid + 1;
+            } else if (p > pattern) {
+                hi = mid - 1;
+            } else {
+                return this.nodes[node + 3 + 2 * mid];
+            }
+        }
+        return OFF_TREE;
+    }
+
+    /**
+     * Follows a {@link Model}'s game down the tree.
+     * Each call to {@link #suggest(Model)} only looks at the rows confirmed
+     * since the previous call, so keeping up with a game costs one edge
+     * lookup per row.
+     */
+    public class Cursor {
+
+        /**
+         * The current node, or OFF_TREE
+         */
+        private int node = StrategyTree.this.root();
+
+        /**
+         * How many of the model's rows have been followed
+         */
+        private int rowsSeen = 0;
+
+        /**
+         * The game being followed (see {@link Model#gameNumber()})
+         */
+        private long game = -1;
+
+        /**
+         * Go back to the root, for a new game. (A new game of the model
+         * is also noticed by {@link #suggest(Model)}.)
+         */
+        public void reset() {
+            this.node = StrategyTree.this.root();
+            this.rowsSeen = 0;
+        }
+
+        /**
+         * Catch up with the game and say what the tree would guess next.
+         * If the player guessed something other than what the tree said,
+         * the game is off the tree from then on.
+         *
+         * @param model the game being followed; it must use the dictionary
+         *              the tree was built for
+         * @return the dictionary position of the next guess, or
+         * {@link #OFF_TREE} if the tree cannot say
+         */
+        public int suggest(Model model) {
+            final Dictionary words = model.gameDictionary();
+            if (words.version() != StrategyTree.this.dictionaryVersion) {
+                return OFF_TREE;
+            }
+            if (model.gameNumber() != this.game) {
+                this.game = model.gameNumber();
+                this.reset();
+            }
+            final byte[] letters = words.letters();
+            final int wordSize = words.wordSize();
+            while (this.rowsSeen < model.numAttempts() && this.node != OFF_TREE) {
+                final int expected = StrategyTree.this.guess(this.node);
+                for (int c = 0; c < wordSize; ++c) {
+                    if (model.get(this.rowsSeen, c).getChar() !=
+                            'A' + letters[expected * wordSize + c]) {
+                        this.node = OFF_TREE;
+                        break;
+                    }
+                }
+                if (this.node != OFF_TREE) {
+                    this.node = StrategyTree.this.child(
+                            this.node, model.pattern(this.rowsSeen));
+                }
+                this.rowsSeen += 1;
+            }
+            this.rowsSeen = model.numAttempts();
+            return this.node == OFF_TREE
+                    ? OFF_TREE : StrategyTree.this.guess(this.node);
+        }
+    }
+
+    /**
+     * Start following a game from the root.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+}
@@ -0,0 +1,440 @@
+package gurdle.stats;
+
+import gurdle.Dictionary;
+import gurdle.Feedback;
+import gurdle.Model;
+import util.Observer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Totals across every game played on a dictionary: which openers players
+ * use, how often each letter is a hit in each position, and how many
+ * guesses each secret takes to solve.
+ * <br><br>
+ * Any number of models, on any threads, may be {@link #watch(Model)
+ * watched} at once, and {@link #watchShared(Model)} follows the shared
+ * aggregator across reloads of the word file. Every total is a
+ * {@link StripedCounters} counter, so sessions don't contend, and the
+ * memory used depends only on the size of the dictionary, never on the
+ * number of games. Counting a row allocates nothing. A {@link Snapshot}
+ * adds up the counters while games go on being recorded; the shared
+ * aggregator takes one every {@link #SNAPSHOT_MILLIS}, so that readers
+ * share it instead of each adding up every counter.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class GameAnalytics {
+
+    /**
+     * The time between the shared aggregator's snapshots, in milliseconds
+     */
+    public static final long SNAPSHOT_MILLIS = 1000;
+
+    /**
+     * Takes the periodic snapshots of all aggregators
+     */
+    private static final ScheduledExecutorService SNAPSHOTS =
+            Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "analytics-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * The aggregator shared by all sessions playing the current dictionary
+     */
+    private static GameAnalytics shared;
+
+    /**
+     * The words the totals are kept for; games on other dictionaries are
+     * not counted
+     */
+    private final Dictionary words;
+
+    /**
+     * How many games each word was the opener of
+     */
+    private final StripedCounters openers;
+
+    /**
+     * How many games each word was the secret of
+     */
+    private final StripedCounters secretGames;
+
+    /**
+     * For each secret, the total guesses taken, counting a loss as one
+     * more guess than the player had
+     */
+    private final StripedCounters secretGuesses;
+
+    /**
+     * How many games each word was the secret of and not found
+     */
+    private final StripedCounters secretLosses;
+
+    /**
+     * How often each letter was guessed in each position, at
+     * position * 26 + letter
+     */
+    private final StripedCounters letterGuessed;
+
+    /**
+     * How often a letter guessed in a position was right there
+     */
+    private final StripedCounters letterRight;
+
+    /**
+     * How often a letter guessed in a position was in the secret elsewhere
+     */
+    private final StripedCounters letterElsewhere;
+
+    /**
+     * The latest periodic snapshot
+     */
+    private volatile Snapshot latest;
+
+    /**
+     * The periodic snapshots, or null if they are not being taken
+     */
+    private ScheduledFuture<?> snapshots;
+
+    /**
+     * Create an aggregator with all totals 0.
+     *
+     * @param words the dictionary the games are played on
+     */
+    public GameAnalytics(Dictionary words) {
+        this.words = words;
+        final int n = words.size();
+        final int cells = words.wordSize() * Feedback.ALPHABET_SIZE;
+        this.openers = new StripedCounters(n);
+        this.secretGames = new StripedCounters(n);
+        this.secretGuesses = new StripedCounters(n);
+        this.secretLosses = new StripedCounters(n);
+        this.letterGuessed = new StripedCounters(cells);
+        this.letterRight = new StripedCounters(cells);
+        this.letterElsewhere = new StripedCounters(cells);
+    }
+
+    /**
+     * The aggregator shared by all sessions playing a dictionary. A new one
+     * is started when the dictionary changes, taking a snapshot every
+     * {@link #SNAPSHOT_MILLIS}; the old one's snapshots stop.
+     *
+     * @param words the dictionary
+     * @return the shared aggregator for it
+     */
+    public static synchronized GameAnalytics shared(Dictionary words) {
+        if (shared == null || shared.words != words) {
+            if (shared != null) {
+                shared.stopSnapshots();
+            }
+            shared = new GameAnalytics(words);
+            shared.snapshotEvery(SNAPSHOT_MILLIS);
+        }
+        return shared;
+    }
+
+    /**
+     * Start counting a model's games, from its next notification on.
+     *
+     * @param model the model
+     */
+    public void watch(Model model) {
+        model.addObserver(new Watcher(this));
+    }
+
+    /**
+     * Start counting a model's games, from its next notification on, in
+     * the shared aggregator of the word list each game is played on. When
+     * the word file is reloaded, the model's games go on being counted, in
+     * the new list's aggregator. Games on other words (the daily word or
+     * other lengths) are not counted.
+     *
+     * @param model the model
+     */
+    public static void watchShared(Model model) {
+        model.addObserver(new Watcher(null));
+    }
+
+    /**
+     * Take a snapshot every so often, to be read with {@link #latest()},
+     * instead of as often as before.
+     *
+     * @param periodMillis the time between snapshots, in milliseconds
+     */
+    public synchronized void snapshotEvery(long periodMillis) {
+        this.stopSnapshots();
+        this.snapshots = SNAPSHOTS.scheduleAtFixedRate(
+                () -> this.latest = this.snapshot(),
+                0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop taking periodic snapshots. The latest one can still be read.
+     */
+    public synchronized void stopSnapshots() {
+        if (this.snapshots != null) {
+            this.snapshots.cancel(false);
+            this.snapshots = null;
+        }
+    }
+
+    /**
+     * The latest periodic snapshot
+     *
+     * @return the snapshot, or null if none has been taken
+     */
+    public Snapshot latest() {
+        return this.latest;
+    }
+
+    /**
+     * Add up all the totals now. Games may go on being recorded meanwhile.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this.words,
+                this.openers.snapshot(), this.secretGames.snapshot(),
+                this.secretGuesses.snapshot(), this.secretLosses.snapshot(),
+                this.letterGuessed.snapshot(), this.letterRight.snapshot(),
+                this.letterElsewhere.snapshot());
+    }
+
+    /**
+     * Count one confirmed row.
+     *
+     * @param model the model
+     * @param row   which row
+     */
+    private void recordRow(Model model, int row) {
+        final int wordSize = this.words.wordSize();
+        final int pattern = model.pattern(row);
+        final int guess = model.guessIndex(row);
+        final byte[] letters = this.words.letters();
+        for (int p = 0; p < wordSize; ++p) {
+            final int cell = p * Feedback.ALPHABET_SIZE + letters[guess * wordSize + p];
+            this.letterGuessed.increment(cell);
+            switch (Feedback.digit(pattern, p)) {
+                case Feedback.RIGHT_POS -> this.letterRight.increment(cell);
+                case Feedback.WRONG_POS -> this.letterElsewhere.increment(cell);
+                default -> {}
+            }
+        }
+        if (row == 0) {
+            this.openers.increment(guess);
+        }
+    }
+
+    /**
+     * Count one finished game.
+     *
+     * @param model the model
+     */
+    private void recordEnd(Model model) {
+        final int secret = this.words.indexOf(model.secret());
+        if (secret >= 0) {
+            this.secretGames.increment(secret);
+            if (model.gameState() == Model.GameState.WON) {
+                this.secretGuesses.add(secret, model.numAttempts());
+            } else {
+                this.secretGuesses.add(secret, model.numAttempts() + 1);
+                this.secretLosses.increment(secret);
+            }
+        }
+    }
+
+    /**
+     * Follows one model, so that each row and each game end is counted
+     * once
+     */
+    private static class Watcher implements Observer<Model, String> {
+
+        /**
+         * The aggregator to count in, or null to count each game in the
+         * shared aggregator of its words
+         */
+        private final GameAnalytics fixed;
+
+        /**
+         * Where the game being followed is counted (null if it is not)
+         */
+        private GameAnalytics target;
+
+        /**
+         * The game being followed (see {@link Model#gameNumber()})
+         */
+        private long game = -1;
+
+        /**
+         * How many of its rows have been counted
+         */
+        private int rows;
+
+        /**
+         * True once its end has been counted
+         */
+        private boolean ended;
+
+        /**
+         * Create a watcher.
+         *
+         * @param fixed the aggregator to count in, or null to count each
+         *              game in the shared aggregator of its words
+         */
+        Watcher(GameAnalytics fixed) {
+            this.fixed = fixed;
+        }
+
+        @Override
+        public void update(Model model, String message) {
+            if (model.gameNumber() != this.game) {
+                this.game = model.gameNumber();
+                this.rows = 0;
+                this.ended = false;
+                this.target = this.fixed != null ? this.fixed
+                        : model.gameDictionary() == model.dictionary()
+                        ? GameAnalytics.shared(model.gameDictionary()) : null;
+            }
+            if (this.target == null || model.gameDictionary() != this.target.words) {
+                return;
+            }
+            while (this.rows < model.numAttempts()) {
+                this.target.recordRow(model, this.rows);
+                this.rows += 1;
+            }
+            final Model.GameState state = model.gameState();
+            if (!this.ended
+                    && (state == Model.GameState.WON || state == Model.GameState.LOST)) {
+                this.ended = true;
+                this.target.recordEnd(model);
+            }
+        }
+    }
+
+    /**
+     * The totals at one moment
+     *
+     * @param words           the dictionary
+     * @param openers         games opened with each word
+     * @param secretGames     games with each word as the secret
+     * @param secretGuesses   guesses taken on each secret
+     * @param secretLosses    games lost on each secret
+     * @param letterGuessed   each letter guessed in each position
+     * @param letterRight     ... and right there
+     * @param letterElsewhere ... and in the secret elsewhere
+     */
+    public record Snapshot(Dictionary words, long[] openers, long[] secretGames,
+                           long[] secretGuesses, long[] secretLosses,
+                           long[] letterGuessed, long[] letterRight,
+                           long[] letterElsewhere) {
+
+        /**
+         * How many games have finished
+         *
+         * @return the number of games
+         */
+        public long games() {
+            long total = 0;
+            for (long n : this.secretGames) {
+                total += n;
+            }
+            return total;
+        }
+
+        /**
+         * The most used openers
+         *
+         * @param k how many
+         * @return up to k words, most used first
+         */
+        public List<String> topOpeners(int k) {
+            return this.top(k, this.openers, 1, i -> this.openers[i]);
+        }
+
+        /**
+         * The secrets that take the most guesses on average
+         *
+         * @param k        how many
+         * @param minGames leave out secrets played fewer times than this
+         * @return up to k words, hardest first
+         */
+        public List<String> hardestWords(int k, long minGames) {
+            return this.top(k, this.secretGames, Math.max(1, minGames), this::averageGuesses);
+        }
+
+        /**
+         * The average guesses taken to find a secret, counting a loss as
+         * one more guess than the player had
+         *
+         * @param word the secret's position in the dictionary
+         * @return the average, or 0 if it has not been played
+         */
+        public double averageGuesses(int word) {
+            final long games = this.secretGames[word];
+            return games == 0 ? 0 : (double) this.secretGuesses[word] / games;
+        }
+
+        /**
+         * How often a letter guessed in a position was right there
+         *
+         * @param pos    the position
+         * @param letter the letter, 'A' to 'Z'
+         * @return the fraction of the times it was guessed there, or 0
+         */
+        public double hitRate(int pos, char letter) {
+            final int cell = pos * Feedback.ALPHABET_SIZE + (letter - 'A');
+            final long guessed = this.letterGuessed[cell];
+            return guessed == 0 ? 0 : (double) this.letterRight[cell] / guessed;
+        }
+
+        /**
+         * How often a letter guessed in a position was in the secret, but
+         * elsewhere
+         *
+         * @param pos    the position
+         * @param letter the letter, 'A' to 'Z'
+         * @return the fraction of the times it was guessed there, or 0
+         */
+        public double elsewhereRate(int pos, char letter) {
+            final int cell = pos * Feedback.ALPHABET_SIZE + (letter - 'A');
+            final long guessed = this.letterGuessed[cell];
+            return guessed == 0 ? 0 : (double) this.letterElsewhere[cell] / guessed;
+        }
+
+        /**
+         * The words that score highest
+         *
+         * @param k        how many
+         * @param games    how many games each word was in
+         * @param minGames leave out words with fewer games than this
+         * @param score    each word's score
+         * @return up to k words, highest first
+         */
+        private List<String> top(int k, long[] games, long minGames,
+                                 IntToDoubleFunction score) {
+            final List<Integer> ranked = new ArrayList<>();
+            for (int i = 0; i < this.words.size(); ++i) {
+                if (games[i] >= minGames) {
+                    ranked.add(i);
+                }
+            }
+            ranked.sort(Comparator.comparingDouble(score::applyAsDouble).reversed());
+            final List<String> result = new ArrayList<>(k);
+            for (int i = 0; i < Math.min(k, ranked.size()); ++i) {
+                result.add(this.words.get(ranked.get(i)));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package gurdle.stats;
+
+import gurdle.Model;
+import util.Observer;
+
+/**
+ * Watches a {@link Model} and records each of its games on a
+ * {@link Leaderboard} when the game ends. A game is recorded once, the
+ * first time the model reports it WON or LOST; its time is measured from
+ * the first notification of the game (the new-game one). A game the
+ * player did not play fairly from the start, such as one whose secret
+ * was shown or one picked up from a saved state, can be left out with
+ * {@link #disqualify()}. Only games of the usual shape
+ * ({@link Model#WORD_SIZE} letters, {@link Model#NUM_TRIES} tries) are
+ * recorded, so that every result on the leaderboard is comparable.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class GameRecorder implements Observer<Model, String> {
+
+    /**
+     * Where games are recorded
+     */
+    private final Leaderboard leaderboard;
+
+    /**
+     * Who is playing
+     */
+    private String player;
+
+    /**
+     * The game being watched (see {@link Model#gameNumber()})
+     */
+    private long game;
+
+    /**
+     * When the game being watched started, from {@link System#nanoTime()}
+     */
+    private long startNanos;
+
+    /**
+     * True once the game being watched has been recorded
+     */
+    private boolean recorded;
+
+    /**
+     * The last game recorded, or null
+     */
+    private GameResult last;
+
+    /**
+     * True while games are not to be recorded
+     */
+    private boolean paused;
+
+    /**
+     * Start recording a model's games. Register the recorder before the
+     * first game starts, or that game's time will be missed.
+     *
+     * @param model       the model
+     * @param leaderboard where games are recorded
+     * @param player      who is playing
+     */
+    public GameRecorder(Model model, Leaderboard leaderboard, String player) {
+        this.leaderboard = leaderboard;
+        this.player = player;
+        this.game = -1;
+        model.addObserver(this);
+    }
+
+    /**
+     * Record the games that end from now on under a different name.
+     *
+     * @param player who is playing
+     */
+    public void setPlayer(String player) {
+        this.player = player;
+    }
+
+    /**
+     * Do not record the game being played.
+     */
+    public void disqualify() {
+        this.recorded = true;
+    }
+
+    /**
+     * Stop or restart recording, such as while a game is being picked up
+     * from a saved state.
+     *
+     * @param paused true to record nothing until called with false
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * Who is playing?
+     *
+     * @return the player's name
+     */
+    public String player() {
+        return this.player;
+    }
+
+    /**
+     * The last game recorded
+     *
+     * @return its result, or null if no game has ended yet
+     */
+    public GameResult last() {
+        return this.last;
+    }
+
+    /**
+     * The leaderboard games are recorded on
+     *
+     * @return the leaderboard
+     */
+    public Leaderboard leaderboard() {
+        return this.leaderboard;
+    }
+
+    /**
+     * Note new games, and record games that have just ended.
+     *
+     * @param model   the model
+     * @param message not used
+     */
+    @Override
+    public void update(Model model, String message) {
+        if (model.gameNumber() != this.game) {
+            this.game = model.gameNumber();
+            this.startNanos = System.nanoTime();
+            this.recorded = model.wordSize() != Model.WORD_SIZE
+                    || model.numTries() != Model.NUM_TRIES; // not comparable
+        }
+        final Model.GameState state = model.gameState();
+        if (!this.recorded && !this.paused
+                && (state == Model.GameState.WON || state == Model.GameState.LOST)) {
+            this.recorded = true;
+            this.last = this.leaderboard.add(this.player, state == Model.GameState.WON,
+                    model.numAttempts(), (System.nanoTime() - this.startNanos) / 1_000_000);
+        }
+    }
+}
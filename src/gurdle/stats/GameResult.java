@@ -0,0 +1,23 @@
+package gurdle.stats;
+
+/**
+ * How one finished game went.
+ *
+ * @param player   who played it
+ * @param won      true if the secret was found
+ * @param guesses  how many rows were played
+ * @param millis   how long the game took, in milliseconds
+ * @param sequence the order in which the leaderboard received it (breaks
+ *                 ties, so equal games are never treated as duplicates)
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public record GameResult(String player, boolean won, int guesses, long millis,
+                         long sequence) {
+
+    @Override
+    public String toString() {
+        return String.format("%s: %s in %d (%.1fs)", this.player,
+                this.won ? "won" : "lost", this.guesses, this.millis / 1000.0);
+    }
+}
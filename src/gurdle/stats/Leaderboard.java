@@ -0,0 +1,336 @@
+package gurdle.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live rankings of finished games, shared by every session: the wins in
+ * the fewest guesses, the fastest wins, the longest winning streaks, and
+ * where any result stands among all of them.
+ * <br><br>
+ * Results may arrive from many threads at once, and nothing here takes
+ * a global lock. The rankings are concurrent skip lists, kept no longer
+ * than the leaderboard's capacity, so a top-K query just reads the first
+ * K entries. Percentiles come from one counter per possible outcome (won
+ * in 1, won in 2, ..., lost); the counters are striped, so concurrent
+ * results don't contend, and a query sums a few dozen of them. A
+ * player's streak is updated under that player's own map entry only.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class Leaderboard {
+
+    /**
+     * A player's best winning streak
+     *
+     * @param player who
+     * @param length how many games in a row they won
+     */
+    public record Streak(String player, int length) {
+
+        @Override
+        public String toString() {
+            return this.player + ": " + this.length + " in a row";
+        }
+    }
+
+    /**
+     * A player's current and best streaks
+     *
+     * @param current how many games in a row they have won so far
+     * @param best    their longest streak ever
+     */
+    private record Streaks(int current, int best) {}
+
+    /**
+     * Results of more guesses than this are counted with this many
+     */
+    public static final int MAX_GUESSES = 64;
+
+    /**
+     * Best first: fewer guesses, then faster, then earlier
+     */
+    private static final Comparator<GameResult> BY_GUESSES =
+            Comparator.comparingInt(GameResult::guesses)
+                    .thenComparingLong(GameResult::millis)
+                    .thenComparingLong(GameResult::sequence);
+
+    /**
+     * Best first: faster, then fewer guesses, then earlier
+     */
+    private static final Comparator<GameResult> BY_TIME =
+            Comparator.comparingLong(GameResult::millis)
+                    .thenComparingInt(GameResult::guesses)
+                    .thenComparingLong(GameResult::sequence);
+
+    /**
+     * Best first: longer, then by name
+     */
+    private static final Comparator<Streak> BY_LENGTH =
+            Comparator.comparingInt(Streak::length).reversed()
+                    .thenComparing(Streak::player);
+
+    /**
+     * The leaderboard used by all sessions
+     */
+    private static final Leaderboard SHARED = new Leaderboard(1000);
+
+    /**
+     * Numbers the results in order of arrival
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * The best wins by number of guesses
+     */
+    private final Ranking<GameResult> fewestGuesses;
+
+    /**
+     * The best wins by time
+     */
+    private final Ranking<GameResult> fastest;
+
+    /**
+     * Each player's best streak, longest first
+     */
+    private final ConcurrentSkipListSet<Streak> longestStreaks;
+
+    /**
+     * Each player's streaks
+     */
+    private final ConcurrentHashMap<String, Streaks> streaks;
+
+    /**
+     * How many results had each outcome (see {@link #outcome})
+     */
+    private final LongAdder[] outcomes;
+
+    /**
+     * A ranking that keeps only its best entries
+     *
+     * @param <T> what is ranked
+     */
+    private static class Ranking<T> {
+
+        /**
+         * The entries, best first
+         */
+        private final ConcurrentSkipListSet<T> entries;
+
+        /**
+         * How many entries there are (the skip list's own size() must
+         * walk the whole list)
+         */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * The most entries kept
+         */
+        private final int capacity;
+
+        /**
+         * Create an empty ranking.
+         *
+         * @param order    best first
+         * @param capacity the most entries kept
+         */
+        Ranking(Comparator<T> order, int capacity) {
+            this.entries = new ConcurrentSkipListSet<>(order);
+            this.capacity = capacity;
+        }
+
+        /**
+         * Add an entry if it ranks high enough, dropping the worst ones to
+         * make room.
+         *
+         * @param entry the entry
+         */
+        void offer(T entry) {
+            if (this.size.get() >= this.capacity && this.entries.higher(entry) == null) {
+                return; // full, and nothing kept is worse
+            }
+            if (this.entries.add(entry)) {
+                this.size.incrementAndGet();
+            }
+            while (this.size.get() > this.capacity && this.entries.pollLast() != null) {
+                this.size.decrementAndGet();
+            }
+        }
+
+        /**
+         * The best entries
+         *
+         * @param k how many
+         * @return up to k entries, best first
+         */
+        List<T> top(int k) {
+            final List<T> result = new ArrayList<>(k);
+            final Iterator<T> it = this.entries.iterator();
+            while (result.size() < k && it.hasNext()) {
+                result.add(it.next());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Create an empty leaderboard.
+     *
+     * @param capacity how many games each ranking keeps
+     */
+    public Leaderboard(int capacity) {
+        this.fewestGuesses = new Ranking<>(BY_GUESSES, capacity);
+        this.fastest = new Ranking<>(BY_TIME, capacity);
+        this.longestStreaks = new ConcurrentSkipListSet<>(BY_LENGTH);
+        this.streaks = new ConcurrentHashMap<>();
+        this.outcomes = new LongAdder[MAX_GUESSES + 1];
+        for (int o = 0; o < this.outcomes.length; ++o) {
+            this.outcomes[o] = new LongAdder();
+        }
+    }
+
+    /**
+     * The leaderboard shared by all sessions
+     *
+     * @return the shared leaderboard
+     */
+    public static Leaderboard shared() {
+        return SHARED;
+    }
+
+    /**
+     * Which outcome counter a result goes in: wins by number of guesses,
+     * then a loss, so a lower outcome is a better result
+     *
+     * @param won     true if the game was won
+     * @param guesses how many rows were played
+     * @return the outcome
+     */
+    private static int outcome(boolean won, int guesses) {
+        return won ? Math.min(Math.max(guesses, 1), MAX_GUESSES) - 1 : MAX_GUESSES;
+    }
+
+    /**
+     * Record a finished game. Safe to call from any thread. All results
+     * are ranked together, so they should all come from games of the same
+     * word length and number of tries.
+     *
+     * @param player  who played it
+     * @param won     true if the secret was found
+     * @param guesses how many rows were played
+     * @param millis  how long it took, in milliseconds
+     * @return the result, as recorded
+     */
+    public GameResult add(String player, boolean won, int guesses, long millis) {
+        final GameResult result = new GameResult(
+                player, won, guesses, millis, this.sequence.getAndIncrement());
+        this.outcomes[outcome(won, guesses)].increment();
+        if (won) {
+            this.fewestGuesses.offer(result);
+            this.fastest.offer(result);
+        }
+        this.streaks.compute(player, (name, old) -> {
+            final int oldBest = old == null ? 0 : old.best();
+            final int current = won ? (old == null ? 0 : old.current()) + 1 : 0;
+            final int best = Math.max(oldBest, current);
+            if (best != oldBest) {
+                this.longestStreaks.remove(new Streak(name, oldBest));
+                this.longestStreaks.add(new Streak(name, best));
+            }
+            return new Streaks(current, best);
+        });
+        return result;
+    }
+
+    /**
+     * The wins in the fewest guesses
+     *
+     * @param k how many
+     * @return up to k results, best first
+     */
+    public List<GameResult> fewestGuesses(int k) {
+        return this.fewestGuesses.top(k);
+    }
+
+    /**
+     * The fastest wins
+     *
+     * @param k how many
+     * @return up to k results, best first
+     */
+    public List<GameResult> fastest(int k) {
+        return this.fastest.top(k);
+    }
+
+    /**
+     * The players with the longest winning streaks
+     *
+     * @param k how many
+     * @return up to k players' best streaks, longest first
+     */
+    public List<Streak> longestStreaks(int k) {
+        final List<Streak> result = new ArrayList<>(k);
+        final Iterator<Streak> it = this.longestStreaks.iterator();
+        while (result.size() < k && it.hasNext()) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    /**
+     * How many games a player has won in a row, up to now
+     *
+     * @param player who
+     * @return the current streak
+     */
+    public int streak(String player) {
+        final Streaks s = this.streaks.get(player);
+        return s == null ? 0 : s.current();
+    }
+
+    /**
+     * Where a result stands among all those recorded: the percentage of
+     * games that went worse, counting ties as half worse
+     *
+     * @param won     true if the game was won
+     * @param guesses how many rows were played
+     * @return the percentile, from 0 to 100
+     */
+    public double percentile(boolean won, int guesses) {
+        final int mine = outcome(won, guesses);
+        long better = 0;
+        long same = 0;
+        long total = 0;
+        for (int o = 0; o < this.outcomes.length; ++o) {
+            final long n = this.outcomes[o].sum();
+            total += n;
+            if (o < mine) {
+                better += n;
+            } else if (o == mine) {
+                same += n;
+            }
+        }
+        return total == 0 ? 100.0 : 100.0 * (total - better - same / 2.0) / total;
+    }
+
+    /**
+     * How many games have been recorded
+     *
+     * @return the number of games
+     */
+    public long size() {
+        long total = 0;
+        for (LongAdder n : this.outcomes) {
+            total += n.sum();
+        }
+        return total;
+    }
+}
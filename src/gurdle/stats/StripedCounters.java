@@ -0,0 +1,114 @@
+package gurdle.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size array of counters that many threads can add to at once
+ * without contending, in the manner of {@link java.util.concurrent.atomic.LongAdder}
+ * but without an object per counter.
+ * <br><br>
+ * Every counter has one cell per stripe, and each thread adds to the
+ * cells of its own stripe. A stripe's cells are contiguous, so different
+ * stripes never share a cache line except at their edges. Reading a
+ * counter sums its cells; reads never block writers.
+ *
+ * @author RIT CS
+ * @author Tiffany Lee
+ */
+public class StripedCounters {
+
+    /**
+     * The number of stripes (a power of 2)
+     */
+    private final int stripes;
+
+    /**
+     * The number of counters
+     */
+    private final int size;
+
+    /**
+     * Counter i's cell for stripe s is at s * size + i
+     */
+    private final AtomicLongArray cells;
+
+    /**
+     * Create counters, all 0, with a stripe for each processor.
+     *
+     * @param size how many counters
+     */
+    public StripedCounters(int size) {
+        this.stripes = Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.size = size;
+        this.cells = new AtomicLongArray(this.stripes * size);
+    }
+
+    /**
+     * The current thread's stripe
+     *
+     * @return its index
+     */
+    private int stripe() {
+        final long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & (this.stripes - 1);
+    }
+
+    /**
+     * Add to a counter.
+     *
+     * @param i     which counter
+     * @param delta how much
+     */
+    public void add(int i, long delta) {
+        this.cells.getAndAdd(this.stripe() * this.size + i, delta);
+    }
+
+    /**
+     * Add one to a counter.
+     *
+     * @param i which counter
+     */
+    public void increment(int i) {
+        this.add(i, 1);
+    }
+
+    /**
+     * A counter's current value
+     *
+     * @param i which counter
+     * @return its sum over all stripes
+     */
+    public long get(int i) {
+        long sum = 0;
+        for (int s = 0; s < this.stripes; ++s) {
+            sum += this.cells.get(s * this.size + i);
+        }
+        return sum;
+    }
+
+    /**
+     * Every counter's current value. Adds made while this runs may or may
+     * not be included.
+     *
+     * @return the values, indexed like the counters
+     */
+    public long[] snapshot() {
+        final long[] sums = new long[this.size];
+        for (int s = 0; s < this.stripes; ++s) {
+            for (int i = 0; i < this.size; ++i) {
+                sums[i] += this.cells.get(s * this.size + i);
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * How many counters are there?
+     *
+     * @return the number of counters
+     */
+    public int size() {
+        return this.size;
+    }
+}
@@ -1,4 +1,5 @@
 module Guirdle {
     requires transitive javafx.controls;
+    requires static jdk.incubator.vector;
     exports gurdle.gui;
 }
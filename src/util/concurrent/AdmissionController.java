@@ -0,0 +1,108 @@
+package util.concurrent;
+
+import util.metrics.Counter;
+import util.metrics.Metrics;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps how much work may be waiting or in progress at once, across all
+ * sessions, and sheds the rest.
+ * <br><br>
+ * Work that does not fit is refused at once rather than queued without
+ * limit: the refusal is cheap, so the caller can tell its client to come
+ * back later, while the work already admitted keeps its latency.
+ * Admission is one compare-and-set on a count of work admitted and not
+ * yet finished.
+ * <br><br>
+ * The number refused is the counter <em>name</em><code>.shed</code>, and
+ * the work admitted is the gauge <em>name</em><code>.depth</code>.
+ *
+ * @author RIT CS
+ */
+public class AdmissionController {
+
+    /** The most work that may be admitted at once */
+    private final int capacity;
+
+    /** The work admitted and not yet finished */
+    private final AtomicInteger depth = new AtomicInteger();
+
+    /** How much work has been refused */
+    private final Counter shed;
+
+    /**
+     * Create an admission controller and report on it in the metrics.
+     *
+     * @param name the prefix of its metrics
+     * @param capacity the most work that may be admitted at once
+     * @throws IllegalArgumentException if the capacity is less than 1
+     */
+    public AdmissionController( String name, int capacity ) {
+        if ( capacity < 1 ) {
+            throw new IllegalArgumentException( "Bad capacity " + capacity );
+        }
+        this.capacity = capacity;
+        this.shed = Metrics.counter( name + ".shed" );
+        Metrics.gauge( name + ".depth", this.depth::get );
+    }
+
+    /**
+     * Ask to start one piece of work. If admitted, the caller must call
+     * {@link #exit()} when the work is done.
+     *
+     * @return true if admitted, false if the work should be refused
+     */
+    public boolean tryEnter() {
+        return this.tryEnter( 1 ) == 1;
+    }
+
+    /**
+     * Ask to start several pieces of work, such as the requests that
+     * arrived together. As many as fit are admitted, the earliest first;
+     * the caller must call {@link #exit()} once for each when it is done,
+     * and refuse the rest.
+     *
+     * @param wanted how many pieces there are
+     * @return how many were admitted, from 0 to wanted
+     */
+    public int tryEnter( int wanted ) {
+        int current;
+        int admitted;
+        do {
+            current = this.depth.get();
+            admitted = Math.min( wanted, this.capacity - current );
+            if ( admitted <= 0 ) {
+                admitted = 0;
+                break;
+            }
+        } while ( !this.depth.compareAndSet( current, current + admitted ) );
+        this.shed.add( wanted - admitted );
+        return admitted;
+    }
+
+    /**
+     * Finish some admitted work.
+     */
+    public void exit() {
+        this.depth.decrementAndGet();
+    }
+
+    /**
+     * How much work is waiting or in progress?
+     *
+     * @return the work admitted and not yet finished
+     */
+    public int depth() {
+        return this.depth.get();
+    }
+
+    /**
+     * How much work may be admitted at once?
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+}
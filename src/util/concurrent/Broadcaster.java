@@ -0,0 +1,170 @@
+package util.concurrent;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Hands a stream of immutable messages from one publisher to any number
+ * of subscribers, at a cost to the publisher that does not depend on how
+ * many subscribers there are.
+ * <br><br>
+ * The last <em>capacity</em> messages are kept in a ring. A subscriber is
+ * only a cursor into the ring, read at its own pace; nothing is copied
+ * per subscriber, and the publisher never waits. A subscriber that falls
+ * a whole ring behind is skipped ahead to the latest message (which,
+ * for messages that are snapshots, is all it needs).
+ * <br><br>
+ * Rather than being told about each subscriber, the publisher calls a
+ * few listeners after each message, such as the event loops that deliver
+ * to many subscribers each.
+ * <br><br>
+ * Any number of threads may publish at once, and any thread may read.
+ * Publishers take their sequence numbers in turn; a reader that reaches
+ * a message still being stored gets nothing until it is there, and the
+ * listeners are called again once it is.
+ *
+ * @param <T> the type of the messages
+ * @author RIT CS
+ */
+public class Broadcaster< T > {
+
+    /**
+     * A message and its place in the stream
+     * @param seq its sequence number, counting from 0
+     * @param message the message
+     */
+    private record Slot< T >( long seq, T message ) {}
+
+    /** The latest messages; message <em>n</em> is in slot n mod capacity */
+    private final AtomicReferenceArray< Slot< T > > ring;
+
+    /** capacity - 1 (the capacity is a power of two) */
+    private final int mask;
+
+    /**
+     * How many messages have been published, counting those whose
+     * publishers have taken a sequence number but not yet stored them
+     */
+    private final AtomicLong published = new AtomicLong();
+
+    /** Called after each message */
+    private final Set< Runnable > listeners = new CopyOnWriteArraySet<>();
+
+    /**
+     * Create a broadcaster with no messages.
+     * @param capacity how many messages to keep (rounded up to a power of
+     *                 two)
+     */
+    public Broadcaster( int capacity ) {
+        final int size = Integer.highestOneBit( Math.max( 1, capacity - 1 ) ) << 1;
+        this.ring = new AtomicReferenceArray<>( size );
+        this.mask = size - 1;
+    }
+
+    /**
+     * Publish a message, then call the listeners.
+     * @param message the message; it must not change afterwards
+     */
+    public void publish( T message ) {
+        final long seq = this.published.getAndIncrement();
+        this.ring.set( (int)seq & this.mask, new Slot<>( seq, message ) );
+        for ( Runnable listener : this.listeners ) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Have something called after each message (nothing happens if it
+     * is already a listener).
+     * @param listener what to call; it must be quick, and it is called on
+     *                 the publisher's thread
+     */
+    public void addListener( Runnable listener ) {
+        this.listeners.add( listener );
+    }
+
+    /**
+     * How many messages have been published?
+     * @return the number published
+     */
+    public long published() {
+        return this.published.get();
+    }
+
+    /**
+     * Start reading, from the latest message.
+     * @return a new subscriber
+     */
+    public Subscriber subscribe() {
+        return new Subscriber( Math.max( 0, this.published.get() - 1 ) );
+    }
+
+    /**
+     * One reader's place in the stream. A subscriber belongs to one
+     * thread at a time.
+     */
+    public class Subscriber {
+
+        /** The sequence number of the next message to read */
+        private long cursor;
+
+        /** How many messages were skipped for falling behind */
+        private long skipped;
+
+        /**
+         * Create a subscriber.
+         * @param cursor the first message to read
+         */
+        private Subscriber( long cursor ) {
+            this.cursor = cursor;
+        }
+
+        /**
+         * The next message, skipping ahead to the latest one if this
+         * subscriber has fallen a ring behind
+         * @return the message, or null if there is none yet (or the next
+         *         one is still being stored)
+         */
+        public T poll() {
+            while ( true ) {
+                final long end = Broadcaster.this.published.get();
+                if ( this.cursor >= end ) {
+                    return null;
+                }
+                if ( end - this.cursor > Broadcaster.this.mask + 1 ) {
+                    this.skipped += end - 1 - this.cursor;
+                    this.cursor = end - 1;
+                }
+                final Slot< T > slot = Broadcaster.this.ring.get(
+                        (int)this.cursor & Broadcaster.this.mask );
+                if ( slot == null || slot.seq() < this.cursor ) {
+                    return null; // its publisher has not stored it yet
+                }
+                if ( slot.seq() == this.cursor ) {
+                    this.cursor += 1;
+                    return slot.message();
+                }
+                // Overwritten while we looked, so now a ring behind:
+                // go round and skip ahead.
+            }
+        }
+
+        /**
+         * How many messages has this subscriber missed?
+         * @return the number skipped for falling behind
+         */
+        public long skipped() {
+            return this.skipped;
+        }
+
+        /**
+         * What is this subscriber reading?
+         * @return its broadcaster
+         */
+        public Broadcaster< T > broadcaster() {
+            return Broadcaster.this;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A rate limiter: up to <em>burst</em> requests at once, then
+ * <em>rate</em> requests a second, on average, after that.
+ * <br><br>
+ * Rather than a count of tokens and a refill timer, the bucket keeps one
+ * number, the time at which it would next be completely full (the
+ * "theoretical arrival time" of the generic cell rate algorithm). Each
+ * request moves that time one interval later; a request is refused if
+ * it would move it more than a burst ahead of now. Taking a token is
+ * therefore a clock read and one compare-and-set, with no lock and no
+ * background thread.
+ *
+ * @author RIT CS
+ */
+public class TokenBucket {
+
+    /** The time one token takes to come back, in nanoseconds */
+    private final long interval;
+
+    /** How far ahead of now the full time may get, in nanoseconds */
+    private final long tolerance;
+
+    /** When the bucket will next be full, in {@link System#nanoTime()} */
+    private final AtomicLong fullAt;
+
+    /**
+     * Create a full bucket.
+     *
+     * @param rate how many requests a second are allowed in the long run
+     * @param burst how many requests may be made at once
+     * @throws IllegalArgumentException if the rate is not positive or the
+     *                                  burst is less than 1
+     */
+    public TokenBucket( double rate, int burst ) {
+        if ( !( rate > 0 ) || burst < 1 ) {
+            throw new IllegalArgumentException(
+                    "Bad token bucket: rate " + rate + ", burst " + burst );
+        }
+        this.interval = Math.max( 1, (long)( 1e9 / rate ) );
+        this.tolerance = this.interval * ( burst - 1 );
+        this.fullAt = new AtomicLong( System.nanoTime() );
+    }
+
+    /**
+     * Take a token, if there is one.
+     *
+     * @return true if the request may go ahead
+     */
+    public boolean tryAcquire() {
+        return this.tryAcquire( System.nanoTime() );
+    }
+
+    /**
+     * Take a token, if there is one, as of a given time.
+     *
+     * @param now the current {@link System#nanoTime()}
+     * @return true if the request may go ahead
+     */
+    public boolean tryAcquire( long now ) {
+        while ( true ) {
+            final long full = this.fullAt.get();
+            final long base = full - now > 0 ? full : now;
+            if ( base - now > this.tolerance ) {
+                return false;
+            }
+            if ( this.fullAt.compareAndSet( full, base + this.interval ) ) {
+                return true;
+            }
+        }
+    }
+}
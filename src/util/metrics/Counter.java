@@ -0,0 +1,73 @@
+package util.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that can be bumped from any number of threads without locking.
+ * Counting does nothing unless metrics are {@link Metrics#ENABLED
+ * enabled}.
+ *
+ * @author RIT CS
+ */
+public class Counter {
+
+    /** What this counter counts */
+    private final String name;
+
+    /** The count, striped across threads */
+    private final LongAdder count;
+
+    /**
+     * Create a counter at 0. Use {@link Metrics#counter(String)} to
+     * create one that shows up in reports.
+     *
+     * @param name what it counts
+     */
+    public Counter( String name ) {
+        this.name = name;
+        this.count = new LongAdder();
+    }
+
+    /**
+     * Add one.
+     */
+    public void increment() {
+        if ( Metrics.ENABLED ) {
+            this.count.increment();
+        }
+    }
+
+    /**
+     * Add some amount.
+     *
+     * @param n how much to add
+     */
+    public void add( long n ) {
+        if ( Metrics.ENABLED ) {
+            this.count.add( n );
+        }
+    }
+
+    /**
+     * What does this counter count?
+     *
+     * @return its name
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * The count so far
+     *
+     * @return the count
+     */
+    public long count() {
+        return this.count.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "%-28s n=%d", this.name, this.count() );
+    }
+}
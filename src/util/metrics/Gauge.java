@@ -0,0 +1,53 @@
+package util.metrics;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A value that is read when a report is made, such as the length of a
+ * queue, rather than recorded as things happen.
+ *
+ * @author RIT CS
+ */
+public class Gauge {
+
+    /** What this gauge shows */
+    private final String name;
+
+    /** Reads the current value */
+    private final LongSupplier value;
+
+    /**
+     * Create a gauge. Use {@link Metrics#gauge(String, LongSupplier)} to
+     * create one that shows up in reports.
+     *
+     * @param name what it shows
+     * @param value reads the current value; called from any thread
+     */
+    public Gauge( String name, LongSupplier value ) {
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * What does this gauge show?
+     *
+     * @return its name
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * The current value
+     *
+     * @return the value
+     */
+    public long value() {
+        return this.value.getAsLong();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "%-28s v=%d", this.name, this.value() );
+    }
+}
@@ -0,0 +1,196 @@
+package util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram that can be recorded into from any number of
+ * threads without locking or allocating.
+ * <br><br>
+ * The buckets are fixed, in the style of an HDR histogram: each power of
+ * two is split into {@link #SUB_BUCKETS} equal sub-buckets, so every
+ * value is counted to within about 12% of its size, from a nanosecond to
+ * centuries, in a few hundred counters.
+ * Recording is a few bit operations and an atomic increment.
+ * <br><br>
+ * Recording does nothing unless metrics are {@link Metrics#ENABLED
+ * enabled}.
+ *
+ * @author RIT CS
+ */
+public class Histogram {
+
+    /** log2 of the number of sub-buckets per power of two */
+    private static final int SUB_BITS = 3;
+
+    /** The number of sub-buckets per power of two */
+    public static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Enough buckets for any non-negative long */
+    private static final int NUM_BUCKETS = ( 64 - SUB_BITS + 1 ) * SUB_BUCKETS;
+
+    /** What this histogram measures */
+    private final String name;
+
+    /** How many values fell in each bucket */
+    private final AtomicLongArray buckets;
+
+    /** How many values were recorded */
+    private final LongAdder count;
+
+    /** The sum of the values recorded */
+    private final LongAdder sum;
+
+    /** The largest value recorded */
+    private final AtomicLong max;
+
+    /**
+     * Create an empty histogram. Use {@link Metrics#histogram(String)} to
+     * create one that shows up in reports.
+     *
+     * @param name what it measures
+     */
+    public Histogram( String name ) {
+        this.name = name;
+        this.buckets = new AtomicLongArray( NUM_BUCKETS );
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Which bucket a value falls in
+     *
+     * @param value the value (not negative)
+     * @return the bucket's index
+     */
+    static int bucket( long value ) {
+        if ( value < SUB_BUCKETS ) {
+            return (int)value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros( value );
+        final int sub = (int)( value >>> ( exponent - SUB_BITS ) ) & ( SUB_BUCKETS - 1 );
+        return ( exponent - SUB_BITS + 1 ) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * The largest value that falls in a bucket
+     *
+     * @param bucket the bucket's index
+     * @return its upper bound
+     */
+    static long upperBound( int bucket ) {
+        if ( bucket < SUB_BUCKETS ) {
+            return bucket;
+        }
+        final int shift = bucket / SUB_BUCKETS - 1;
+        final long sub = bucket % SUB_BUCKETS;
+        final long upper = ( ( SUB_BUCKETS + sub + 1 ) << shift ) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value the value, normally in nanoseconds (negative values are
+     *              counted as 0)
+     */
+    public void record( long value ) {
+        if ( Metrics.ENABLED ) {
+            final long v = Math.max( value, 0 );
+            this.buckets.incrementAndGet( bucket( v ) );
+            this.count.increment();
+            this.sum.add( v );
+            if ( v > this.max.get() ) {
+                this.max.accumulateAndGet( v, Math::max );
+            }
+        }
+    }
+
+    /**
+     * Record the time since a start time.
+     *
+     * @param startNanos the start time, from {@link Metrics#start()}
+     */
+    public void recordSince( long startNanos ) {
+        if ( Metrics.ENABLED ) {
+            this.record( System.nanoTime() - startNanos );
+        }
+    }
+
+    /**
+     * What does this histogram measure?
+     *
+     * @return its name
+     */
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * How many values have been recorded?
+     *
+     * @return the count
+     */
+    public long count() {
+        return this.count.sum();
+    }
+
+    /**
+     * The average of the values recorded
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double mean() {
+        final long n = this.count.sum();
+        return n == 0 ? 0 : (double)this.sum.sum() / n;
+    }
+
+    /**
+     * The largest value recorded
+     *
+     * @return the maximum, or 0 if nothing was recorded
+     */
+    public long max() {
+        return this.max.get();
+    }
+
+    /**
+     * A value that a given fraction of the recorded values do not exceed
+     * (to within the bucket precision)
+     *
+     * @param fraction from 0 to 1, e.g., 0.99 for the 99th percentile
+     * @return the percentile, or 0 if nothing was recorded
+     */
+    public long percentile( double fraction ) {
+        long total = 0;
+        for ( int b = 0; b < NUM_BUCKETS; ++b ) {
+            total += this.buckets.get( b );
+        }
+        final long wanted = (long)Math.ceil( fraction * total );
+        long seen = 0;
+        for ( int b = 0; b < NUM_BUCKETS; ++b ) {
+            seen += this.buckets.get( b );
+            if ( seen >= wanted && seen > 0 ) {
+                return Math.min( upperBound( b ), this.max() );
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * A one-line summary, times in microseconds
+     *
+     * @return the name, count, mean and percentiles
+     */
+    @Override
+    public String toString() {
+        return String.format(
+                "%-28s n=%-9d mean=%9.1f p50=%9.1f p99=%9.1f p99.9=%9.1f max=%9.1f",
+                this.name, this.count(), this.mean() / 1e3,
+                this.percentile( 0.5 ) / 1e3, this.percentile( 0.99 ) / 1e3,
+                this.percentile( 0.999 ) / 1e3, this.max() / 1e3
+        );
+    }
+}
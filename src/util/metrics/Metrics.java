@@ -0,0 +1,148 @@
+package util.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The registry of all {@link Histogram histograms},
+ * {@link Counter counters} and {@link Gauge gauges}, and the switch that
+ * turns them on.
+ * <br><br>
+ * Metrics are off unless the program is run with
+ * <code>-Dutil.metrics=true</code>. The switch is a constant, so when it
+ * is off the JIT compiles every recording call down to nothing. With
+ * <code>-Dutil.metrics.file=<em>path</em></code> as well, a report is
+ * written to that file every <code>util.metrics.period</code> seconds
+ * (default 10).
+ * <br><br>
+ * Use: create each histogram once, in a static final field, and time
+ * the code of interest like this:
+ * <pre>
+ *     final long start = Metrics.start();
+ *     ...
+ *     TIMES.recordSince( start );
+ * </pre>
+ *
+ * @author RIT CS
+ */
+public final class Metrics {
+
+    /** True if metrics are being recorded */
+    public static final boolean ENABLED = Boolean.getBoolean( "util.metrics" );
+
+    /** Every histogram, counter and gauge, by name */
+    private static final ConcurrentSkipListMap< String, Object > REGISTRY =
+            new ConcurrentSkipListMap<>();
+
+    static {
+        final String file = System.getProperty( "util.metrics.file" );
+        if ( ENABLED && file != null ) {
+            final long period = Long.getLong( "util.metrics.period", 10 );
+            final ScheduledExecutorService dumper =
+                    Executors.newSingleThreadScheduledExecutor( r -> {
+                        Thread t = new Thread( r, "metrics-dump" );
+                        t.setDaemon( true );
+                        return t;
+                    } );
+            dumper.scheduleAtFixedRate(
+                    () -> dump( Path.of( file ) ), period, period, TimeUnit.SECONDS
+            );
+        }
+    }
+
+    /** No instances */
+    private Metrics() {}
+
+    /**
+     * The histogram with a given name, created if need be
+     *
+     * @param name what it measures
+     * @return the histogram
+     * @throws ClassCastException if the name belongs to a counter
+     */
+    public static Histogram histogram( String name ) {
+        return (Histogram)REGISTRY.computeIfAbsent( name, Histogram::new );
+    }
+
+    /**
+     * The counter with a given name, created if need be
+     *
+     * @param name what it counts
+     * @return the counter
+     * @throws ClassCastException if the name belongs to a histogram
+     */
+    public static Counter counter( String name ) {
+        return (Counter)REGISTRY.computeIfAbsent( name, Counter::new );
+    }
+
+    /**
+     * Show a value in reports, replacing any gauge of the same name.
+     *
+     * @param name what it shows
+     * @param value reads the current value; called from any thread
+     * @return the gauge
+     */
+    public static Gauge gauge( String name, LongSupplier value ) {
+        final Gauge gauge = new Gauge( name, value );
+        REGISTRY.put( name, gauge );
+        return gauge;
+    }
+
+    /**
+     * The start time of something to be timed
+     *
+     * @return the current {@link System#nanoTime()}, or 0 if metrics are
+     * off (so that nothing is spent reading the clock)
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Print every histogram, counter and gauge, one per line, in name
+     * order.
+     * Times are in microseconds.
+     *
+     * @param out where to print
+     */
+    public static void report( PrintWriter out ) {
+        if ( !ENABLED ) {
+            out.println( "Metrics are off (run with -Dutil.metrics=true)." );
+            return;
+        }
+        for ( Object metric: REGISTRY.values() ) {
+            out.println( metric );
+        }
+        out.flush();
+    }
+
+    /**
+     * Write a report to a file. The report replaces the file's contents
+     * all at once, so a reader never sees half a report.
+     *
+     * @param file where to write
+     */
+    public static void dump( Path file ) {
+        final StringWriter text = new StringWriter();
+        report( new PrintWriter( text ) );
+        try {
+            final Path temp = file.resolveSibling( file.getFileName() + ".tmp" );
+            Files.writeString( temp, text.toString() );
+            Files.move( temp, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( IOException ioe ) {
+            System.err.println( "Cannot write metrics to " + file + ": " +
+                                ioe.getMessage() );
+        }
+    }
+}
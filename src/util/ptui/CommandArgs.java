@@ -0,0 +1,117 @@
+package util.ptui;
+
+/**
+ * The arguments of one command, as views into the dispatcher's input
+ * buffer. Nothing is copied: the views are only valid until the handler
+ * returns, so a handler that wants to keep an argument must call its
+ * {@link CharSequence#toString() toString} method.
+ *
+ * @see CommandDispatcher
+ * @author RIT CS
+ */
+public final class CommandArgs {
+
+    /** The input buffer */
+    private char[] buffer;
+
+    /** Reused views, one per argument slot */
+    private Token[] tokens;
+
+    /** How many arguments there are */
+    private int size;
+
+    /**
+     * Create an empty argument list with room for some arguments.
+     * @param capacity how many arguments it can hold before growing
+     */
+    CommandArgs( int capacity ) {
+        this.tokens = new Token[ capacity ];
+        for ( int i = 0; i < capacity; ++i ) {
+            this.tokens[ i ] = new Token();
+        }
+    }
+
+    /**
+     * Start a new argument list.
+     * @param buffer the input buffer the arguments are in
+     */
+    void reset( char[] buffer ) {
+        this.buffer = buffer;
+        this.size = 0;
+    }
+
+    /**
+     * Add an argument.
+     * @param start where it starts in the buffer
+     * @param end where it ends (exclusive)
+     */
+    void add( int start, int end ) {
+        if ( this.size == this.tokens.length ) {
+            final Token[] bigger = new Token[ this.size * 2 ];
+            System.arraycopy( this.tokens, 0, bigger, 0, this.size );
+            for ( int i = this.size; i < bigger.length; ++i ) {
+                bigger[ i ] = new Token();
+            }
+            this.tokens = bigger;
+        }
+        final Token t = this.tokens[ this.size++ ];
+        t.start = start;
+        t.end = end;
+    }
+
+    /**
+     * How many arguments are there?
+     * @return the number of arguments
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * One argument
+     * @param i which one (0 is the first argument after the command name)
+     * @return a view of it, valid until the handler returns
+     */
+    public CharSequence get( int i ) {
+        if ( i < 0 || i >= this.size ) {
+            throw new IndexOutOfBoundsException( "No argument " + i );
+        }
+        return this.tokens[ i ];
+    }
+
+    /**
+     * A view of part of the input buffer
+     */
+    private final class Token implements CharSequence {
+
+        /** Where the argument starts in the buffer */
+        private int start;
+
+        /** Where it ends (exclusive) */
+        private int end;
+
+        @Override
+        public int length() {
+            return this.end - this.start;
+        }
+
+        @Override
+        public char charAt( int index ) {
+            if ( index < 0 || index >= this.length() ) {
+                throw new IndexOutOfBoundsException( index );
+            }
+            return CommandArgs.this.buffer[ this.start + index ];
+        }
+
+        @Override
+        public CharSequence subSequence( int from, int to ) {
+            return this.toString().substring( from, to );
+        }
+
+        @Override
+        public String toString() {
+            return new String(
+                    CommandArgs.this.buffer, this.start, this.length() );
+        }
+    }
+}
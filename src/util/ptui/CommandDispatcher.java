@@ -0,0 +1,286 @@
+package util.ptui;
+
+import util.metrics.Histogram;
+import util.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Turns lines of input into calls of command handlers, without allocating
+ * anything per line.
+ * <br><br>
+ * A line is copied into a reusable buffer (or handed over already in a
+ * char array), split into words in place, and the first word is looked
+ * up, ignoring case, in a hash table built when the commands are
+ * registered. The handler gets the remaining words as
+ * {@link CommandArgs views} into the buffer. Several commands may be
+ * given on one line, separated by <code>;</code>.
+ * <br><br>
+ * A dispatcher is not thread-safe. The console and each network
+ * connection have their own.
+ *
+ * @author RIT CS
+ */
+public class CommandDispatcher {
+
+    /**
+     * A registered command
+     * @param name the command name, in lower case
+     * @param numArgs the number of arguments it needs (fixed)
+     * @param helpMsg a description of what it does
+     * @param handler the code that runs it
+     * @param times how long it takes to run
+     */
+    public record Command( String name, int numArgs, String helpMsg,
+                           ConsoleApplication.ConsoleHandler handler,
+                           Histogram times ) {}
+
+    /** What separates commands on one line */
+    public static final char SEPARATOR = ';';
+
+    /** The commands, in the order they were registered */
+    private final List< Command > commands = new ArrayList<>();
+
+    /** Open-addressed table of the commands, by name hash */
+    private Command[] table = new Command[ 16 ];
+
+    /** The input buffer, for lines that do not come in a char array */
+    private char[] buffer = new char[ 256 ];
+
+    /** The arguments passed to handlers (reused) */
+    private final CommandArgs args = new CommandArgs( 8 );
+
+    /** Called for an unknown command or a wrong number of arguments */
+    private Runnable onIllegal = () -> {};
+
+    /** Set by {@link #stop()} to abandon the rest of the line */
+    private boolean stopped;
+
+    /** Create a dispatcher with no commands. */
+    public CommandDispatcher() {}
+
+    /**
+     * Add a command, or replace the one with the same name.
+     * @param name what the user types (any case)
+     * @param numArgs how many arguments the command needs (fixed)
+     * @param helpMsg a description of the command
+     * @param handler the code that runs it
+     */
+    public void register( String name, int numArgs, String helpMsg,
+                          ConsoleApplication.ConsoleHandler handler ) {
+        final String lower = name.toLowerCase();
+        final Command command = new Command( lower, numArgs, helpMsg, handler,
+                Metrics.histogram( "command." + lower ) );
+        this.commands.removeIf( c -> c.name().equals( lower ) );
+        this.commands.add( command );
+        this.rebuild();
+    }
+
+    /**
+     * Set what happens when a line names an unknown command or gives a
+     * command the wrong number of arguments.
+     * @param onIllegal the action
+     */
+    public void setOnIllegal( Runnable onIllegal ) {
+        this.onIllegal = onIllegal;
+    }
+
+    /**
+     * Every registered command, in the order registered
+     * @return an unmodifiable list of the commands
+     */
+    public List< Command > commands() {
+        return Collections.unmodifiableList( this.commands );
+    }
+
+    /**
+     * Called from a handler: skip the rest of the line being dispatched,
+     * and make {@link #dispatch} return false.
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Run every command on a line.
+     * @param line the line
+     * @return false if a handler called {@link #stop()}
+     */
+    public boolean dispatch( CharSequence line ) {
+        final int len = line.length();
+        if ( this.buffer.length < len ) {
+            this.buffer = new char[ Math.max( len, this.buffer.length * 2 ) ];
+        }
+        for ( int i = 0; i < len; ++i ) {
+            this.buffer[ i ] = line.charAt( i );
+        }
+        return this.dispatch( this.buffer, 0, len );
+    }
+
+    /**
+     * Run every command on a line that is already in a char array.
+     * The array must not change until this returns. A blank line is an
+     * illegal command, as it always was; an empty command between
+     * separators (as in <code>a;;b</code>, or after a trailing separator)
+     * is skipped.
+     * @param buf holds the line
+     * @param off where the line starts
+     * @param len the length of the line (without the line terminator)
+     * @return false if a handler called {@link #stop()}
+     */
+    public boolean dispatch( char[] buf, int off, int len ) {
+        this.stopped = false;
+        final int end = off + len;
+        if ( skipSpace( buf, off, end ) == end ) {
+            this.onIllegal.run();
+            return true;
+        }
+        int start = off;
+        while ( start <= end && !this.stopped ) {
+            int stop = start;
+            while ( stop < end && buf[ stop ] != SEPARATOR ) {
+                ++stop;
+            }
+            this.dispatchOne( buf, start, stop );
+            start = stop + 1;
+        }
+        return !this.stopped;
+    }
+
+    /**
+     * Run one command.
+     * @param buf holds the command
+     * @param start where it starts
+     * @param end where it ends (exclusive)
+     */
+    private void dispatchOne( char[] buf, int start, int end ) {
+        int p = skipSpace( buf, start, end );
+        if ( p == end ) {
+            return; // nothing to do
+        }
+        final int nameStart = p;
+        p = skipWord( buf, p, end );
+        final Command command = this.lookup( buf, nameStart, p );
+
+        this.args.reset( buf );
+        p = skipSpace( buf, p, end );
+        while ( p < end ) {
+            final int wordStart = p;
+            p = skipWord( buf, p, end );
+            this.args.add( wordStart, p );
+            p = skipSpace( buf, p, end );
+        }
+
+        if ( command == null || command.numArgs() != this.args.size() ) {
+            this.onIllegal.run();
+            return;
+        }
+        final long startTime = Metrics.start();
+        command.handler().handle( this.args );
+        command.times().recordSince( startTime );
+    }
+
+    /**
+     * Find a command by name, ignoring case.
+     * @param buf holds the name
+     * @param start where it starts
+     * @param end where it ends (exclusive)
+     * @return the command, or null if there is none
+     */
+    private Command lookup( char[] buf, int start, int end ) {
+        final int mask = this.table.length - 1;
+        for ( int slot = hash( buf, start, end ) & mask; ;
+              slot = ( slot + 1 ) & mask ) {
+            final Command c = this.table[ slot ];
+            if ( c == null ) {
+                return null;
+            }
+            if ( matches( c.name(), buf, start, end ) ) {
+                return c;
+            }
+        }
+    }
+
+    /** Build the lookup table from the list of commands. */
+    private void rebuild() {
+        int size = 16;
+        while ( size < this.commands.size() * 2 ) {
+            size *= 2;
+        }
+        final Command[] newTable = new Command[ size ];
+        for ( Command c : this.commands ) {
+            final char[] name = c.name().toCharArray();
+            int slot = hash( name, 0, name.length ) & ( size - 1 );
+            while ( newTable[ slot ] != null ) {
+                slot = ( slot + 1 ) & ( size - 1 );
+            }
+            newTable[ slot ] = c;
+        }
+        this.table = newTable;
+    }
+
+    /**
+     * A hash of a name that ignores case
+     * @param buf holds the name
+     * @param start where it starts
+     * @param end where it ends (exclusive)
+     * @return the hash
+     */
+    private static int hash( char[] buf, int start, int end ) {
+        int h = 0x811C9DC5;
+        for ( int i = start; i < end; ++i ) {
+            h = ( h ^ Character.toLowerCase( buf[ i ] ) ) * 0x01000193;
+        }
+        return h ^ ( h >>> 16 );
+    }
+
+    /**
+     * Is a part of the buffer the given name, ignoring case?
+     * @param name the name, in lower case
+     * @param buf the buffer
+     * @param start where the part starts
+     * @param end where it ends (exclusive)
+     * @return true if they match
+     */
+    private static boolean matches( String name, char[] buf, int start, int end ) {
+        if ( name.length() != end - start ) {
+            return false;
+        }
+        for ( int i = 0; i < name.length(); ++i ) {
+            if ( name.charAt( i ) != Character.toLowerCase( buf[ start + i ] ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Skip white space.
+     * @param buf the buffer
+     * @param p where to start
+     * @param end where to stop
+     * @return the position of the next non-space character, or end
+     */
+    private static int skipSpace( char[] buf, int p, int end ) {
+        while ( p < end && Character.isWhitespace( buf[ p ] ) ) {
+            ++p;
+        }
+        return p;
+    }
+
+    /**
+     * Skip a word.
+     * @param buf the buffer
+     * @param p where the word starts
+     * @param end where to stop
+     * @return the position just after the word
+     */
+    private static int skipWord( char[] buf, int p, int end ) {
+        while ( p < end && !Character.isWhitespace( buf[ p ] ) ) {
+            ++p;
+        }
+        return p;
+    }
+}
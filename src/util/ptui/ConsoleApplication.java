@@ -1,12 +1,20 @@
 package util.ptui;
 
+import util.concurrent.Broadcaster;
+import util.metrics.Metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-
-import static java.util.Map.Entry;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * A class to do console-based user interaction in a manner similar to
@@ -15,6 +23,8 @@ import static java.util.Map.Entry;
  * When {@link #launch(Class,String[])} is called with the subclass, an
  * instance of the given class is created and the argument array is saved.
  * (The subclass must have a default constructor.)
+ * The {@link #BATCH_FLAG batch flag}, if present, is removed from the
+ * saved arguments.
  * <br><br>
  * Use: For a subclass called <code>MyPTUI</code>, put this line in
  * your <code>main</code> method:
@@ -29,6 +39,38 @@ public abstract class ConsoleApplication {
 
     private String[] cmdLineArgs;
 
+    /**
+     * True if commands come from a script rather than a person: no
+     * prompts, and output is flushed only at checkpoints, whenever all
+     * the input so far has been run, and at the end
+     */
+    private boolean batch;
+
+    /**
+     * True if the user is a network client of a {@link ConsoleServer}
+     * rather than at this machine's console
+     */
+    boolean remote;
+
+    /**
+     * The frames being copied to the user's output, or null
+     * (see {@link #follow(Broadcaster)})
+     */
+    private Broadcaster< ByteBuffer >.Subscriber feed;
+
+    /**
+     * Messages from other threads, waiting to be printed
+     * (see {@link #tell(String)})
+     */
+    private final ConcurrentLinkedQueue< String > mail =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * Gets the messages printed when one is told: at the console, prints
+     * them; over the network, wakes the connection's loop
+     */
+    volatile Runnable onMail;
+
     private Thread eventThread;
 
     /* *** Support code for registering actions in the PTUI *************** */
@@ -39,24 +81,17 @@ public abstract class ConsoleApplication {
     public interface ConsoleHandler {
         /**
          * Run a command
-         * @param commandArgs the strings entered <em>after</em>
-         *                    the command name
+         * @param commandArgs the words entered <em>after</em>
+         *                    the command name (views, valid only until
+         *                    this method returns)
          */
-        public abstract void handle( String[] commandArgs  );
+        public abstract void handle( CommandArgs commandArgs  );
     }
 
     /**
-     * The important information stored with each PTUI command
-     * <ol>
-     *     <li>the number of arguments needed for this command (fixed)</li>
-     *     <li>a description of what the command does (for help)</li>
-     *     <li>the code that runs when the user types this command</li>
-     * </ol>
+     * Holds each PTUI command and runs the commands the user types
      */
-    private static record CommandInfo(
-            int numArgs, String helpMsg, ConsoleHandler handler ) {}
-
-    private Map< String, CommandInfo > actions;
+    private CommandDispatcher dispatcher;
 
     /**
      * The prompt seen by the user in the console before they enter a command
@@ -67,18 +102,49 @@ public abstract class ConsoleApplication {
 
     public static final String HELP = "help";
     public static final String QUIT = "quit";
+    public static final String STATS = "stats";
+    public static final String FLUSH = "flush";
+
+    /**
+     * The command line flag that selects batch mode. Batch mode is also
+     * used whenever there is no console (input or output is redirected).
+     */
+    public static final String BATCH_FLAG = "--batch";
+
+    /**
+     * The buffer size used for input and output in batch mode
+     */
+    private static final int BATCH_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * An automatically added action that writes out all buffered output
+     * (a checkpoint, in batch mode)
+     * @param args not used
+     */
+    private void flush( CommandArgs args ) {
+        this.out.flush();
+    }
+
+    /**
+     * An automatically added action that prints the program's metrics
+     * @param args not used
+     * @see Metrics
+     */
+    private void stats( CommandArgs args ) {
+        Metrics.report( this.out );
+    }
 
     /**
      * An automatically added action that prints the list of actions
      * @param args not used
      */
-    private void help( String[] args ) {
+    private void help( CommandArgs args ) {
         this.out.println( "Legal commands are..." );
-        for ( Entry< String, CommandInfo > legal: this.actions.entrySet() ) {
-            this.out.print( '\t' + PROMPT + legal.getKey() + " " );
-            CommandInfo info = legal.getValue();
-            this.out.print( info.helpMsg );
-            int numArgs = info.numArgs;
+        for ( CommandDispatcher.Command legal: this.dispatcher.commands() ) {
+            if ( legal.name().equals( QUIT ) ) continue; // listed last
+            this.out.print( '\t' + PROMPT + legal.name() + " " );
+            this.out.print( legal.helpMsg() );
+            int numArgs = legal.numArgs();
             this.out.println(
                     numArgs > 0
                             ? " (" + numArgs + " argument" + ((numArgs>1)?"s)":")")
@@ -100,9 +166,7 @@ public abstract class ConsoleApplication {
     public void setOnCommand(
             String command, int numArgs, String helpMsg, ConsoleHandler handler
     ) {
-        this.actions.put(
-                command, new CommandInfo( numArgs, helpMsg, handler )
-        );
+        this.dispatcher.register( command, numArgs, helpMsg, handler );
     }
 
     /* *** Launch methods ***************************************************/
@@ -143,9 +207,14 @@ public abstract class ConsoleApplication {
      *     A new thread is spawned.
      *     <ol>
      *     <li>
-     *         A {@link Scanner Scanner} and
+     *         A {@link Reader Reader} and
      *         {@link java.io.Writer Writer} are created and connected to a
      *         text console (currently stdin and stdout).
+     *         In batch mode (see {@link #BATCH_FLAG}) they get large
+     *         buffers, no prompts are printed, and output is only flushed
+     *         by the {@link #FLUSH flush command}, when the next read
+     *         would wait for more input, and at the end, when the number
+     *         of commands per second is reported.
      *     </li>
      *     <li>
      *         The class's {@link #start(PrintWriter) start} method is
@@ -179,10 +248,8 @@ public abstract class ConsoleApplication {
             String[] args
     ) {
         try {
-            Constructor< ? > ctor = ptuiClass.getConstructor();
-            ConsoleApplication ptuiApp =
-                    (ConsoleApplication)ctor.newInstance();
-            ptuiApp.cmdLineArgs = Arrays.copyOf( args, args.length );
+            ConsoleApplication ptuiApp = create( ptuiClass, args );
+            ptuiApp.batch |= System.console() == null;
 
             try {
                 try {
@@ -191,7 +258,6 @@ public abstract class ConsoleApplication {
                 catch( Exception e ) {
                     throw new InitException( e );
                 }
-                ptuiApp.actions = new HashMap<>();
                 ptuiApp.eventThread = new Thread( ptuiApp.new Runner() );
                 ptuiApp.eventThread.start();
                 ptuiApp.eventThread.join();
@@ -223,6 +289,70 @@ public abstract class ConsoleApplication {
         }
     }
 
+    /**
+     * Create an instance of a console application, with its command line
+     * arguments, but do not initialize it.
+     * @param ptuiClass the class to be instantiated
+     * @param args the command line arguments, possibly including the
+     *             batch flag
+     * @return the new instance
+     * @throws NoSuchMethodException if the class has no default constructor
+     * @throws InvocationTargetException if the constructor fails
+     * @throws InstantiationException if the class is abstract
+     * @throws IllegalAccessException if the constructor is not public
+     */
+    static ConsoleApplication create(
+            Class< ? extends ConsoleApplication > ptuiClass,
+            String[] args
+    ) throws NoSuchMethodException, InvocationTargetException,
+             InstantiationException, IllegalAccessException {
+        Constructor< ? > ctor = ptuiClass.getConstructor();
+        ConsoleApplication ptuiApp =
+                (ConsoleApplication)ctor.newInstance();
+        ptuiApp.cmdLineArgs = Arrays.stream( args )
+                .filter( arg -> !arg.equals( BATCH_FLAG ) )
+                .toArray( String[]::new );
+        ptuiApp.batch = ptuiApp.cmdLineArgs.length < args.length;
+        return ptuiApp;
+    }
+
+    /**
+     * Get an initialized application ready to take commands: add the
+     * built-in commands, then call {@link #start(PrintWriter) start}.
+     * @param out where the application's output goes
+     * @param onQuit what to do, besides saying goodbye, when the user
+     *               quits
+     * @return the dispatcher to give the user's lines to
+     * @throws Exception if start does
+     */
+    CommandDispatcher open( PrintWriter out, Runnable onQuit ) throws Exception {
+        this.out = out;
+        this.dispatcher = new CommandDispatcher();
+        setOnCommand( HELP,
+                      0, ": Show all commands",
+                      this::help
+        );
+        setOnCommand( STATS,
+                      0, ": Show timings and counts",
+                      this::stats
+        );
+        setOnCommand( FLUSH,
+                      0, ": Write out all pending output",
+                      this::flush
+        );
+        setOnCommand( QUIT, 0, ": Leave the program", args -> {
+            this.out.println( "Closing application." );
+            onQuit.run();
+            this.dispatcher.stop();
+        } );
+        this.dispatcher.setOnIllegal( () -> {
+            this.out.println( "Illegal command" );
+            this.help( null );
+        } );
+        this.start( out );
+        return this.dispatcher;
+    }
+
     /**
      * There is no need for a constructor in this superclass.
      */
@@ -236,49 +366,92 @@ public abstract class ConsoleApplication {
 
         public void run() {
 
-            setOnCommand( HELP,
-                          0, ": Show all commands",
-                          ConsoleApplication.this::help
-            );
-
+            final boolean batch = ConsoleApplication.this.batch;
+            final String prompt = batch ? "" : PROMPT;
+            final boolean[] quit = { false };
+            long numCommands = 0;
+            final long startTime = System.nanoTime();
 
             // We don't put the PrintWriter in try-with-resources because
-            // we don't want it to be closed. The Scanner can close.
+            // we don't want it to be closed. The reader can close.
             ConsoleApplication.this.out = null;
-            try ( Scanner consoleIn = new Scanner( System.in ) ) {
+            try ( Reader consoleIn = new InputStreamReader( System.in ) ) {
                 try {
-                    out = new PrintWriter(
-                            new OutputStreamWriter( System.out ), true );
-                    ConsoleApplication.this.start( out );
-                    boolean quit = false;
-                    out.print( PROMPT ); out.flush();
-                    while ( consoleIn.hasNextLine() ) {
-                        String nextCommand = consoleIn.nextLine();
-                        String[] operands = nextCommand.split( "\\s+" );
-                        String commandName = operands[ 0 ].toLowerCase();
-                        if ( commandName.equals( QUIT ) ) {
-                            out.println( "Closing application." );
-                            quit = true;
-                            break;
+                    final CommandDispatcher dispatcher = open( batch
+                          ? new PrintWriter( new BufferedWriter(
+                                new OutputStreamWriter( System.out ),
+                                BATCH_BUFFER_SIZE ), false )
+                          : new PrintWriter(
+                                new OutputStreamWriter( System.out ), true ),
+                          () -> quit[ 0 ] = true );
+                    out.print( prompt );
+                    if ( !batch ) {
+                        out.flush();
+                    }
+                    // Messages told by other threads are printed as they
+                    // come, but never in the middle of a command's output;
+                    // those told by a command wait until it is done.
+                    ConsoleApplication.this.onMail = () -> {
+                        if ( Thread.currentThread() == eventThread ) {
+                            return;
+                        }
+                        synchronized ( this ) {
+                            printMail( prompt );
+                            if ( !batch ) {
+                                out.flush();
+                            }
+                        }
+                    };
+
+                    // Lines are found and dispatched in place in this
+                    // buffer; a partial line at the end is moved to the
+                    // front before reading more.
+                    char[] buf = new char[ batch ? BATCH_BUFFER_SIZE : 8192 ];
+                    int filled = 0;
+                    int n;
+                    reading:
+                    while ( ( n = consoleIn.read( buf, filled, buf.length - filled ) ) > 0
+                            || filled > 0 ) {
+                        final boolean eof = n <= 0;
+                        filled += Math.max( n, 0 );
+                        int lineStart = 0;
+                        for ( int i = 0; i < filled; ++i ) {
+                            if ( buf[ i ] == '\n' || ( eof && i == filled - 1 ) ) {
+                                int lineEnd = buf[ i ] == '\n' ? i : i + 1;
+                                if ( lineEnd > lineStart && buf[ lineEnd - 1 ] == '\r' ) {
+                                    --lineEnd;
+                                }
+                                numCommands += 1;
+                                synchronized ( this ) {
+                                    if ( !dispatcher.dispatch(
+                                            buf, lineStart, lineEnd - lineStart ) ) {
+                                        break reading;
+                                    }
+                                    printFeed();
+                                    printMail( "" );
+                                    out.print( prompt );
+                                    if ( !batch ) {
+                                        out.flush();
+                                    }
+                                }
+                                lineStart = i + 1;
+                            }
                         }
-                        Map< String, CommandInfo > actionMap =
-                                ConsoleApplication.this.actions;
-                        if ( actionMap.containsKey( commandName ) &&
-                             actionMap.get( commandName ).numArgs ==
-                             operands.length - 1 ) {
-                            operands = Arrays.copyOfRange(
-                                    operands, 1, operands.length
-                            );
-                            actionMap.get( commandName )
-                                    .handler.handle( operands );
+                        // Caught up with the input: let whoever feeds it
+                        // (perhaps waiting for this output) see the answers.
+                        if ( batch && !eof && !consoleIn.ready() ) {
+                            out.flush();
                         }
-                        else {
-                            out.println( "Illegal command" );
-                            ConsoleApplication.this.help( NO_ARGS );
+                        filled -= lineStart;
+                        System.arraycopy( buf, lineStart, buf, 0, filled );
+                        if ( filled == buf.length ) { // a very long line
+                            buf = Arrays.copyOf( buf, buf.length * 2 );
+                        }
+                        if ( eof ) {
+                            break;
                         }
-                        out.print( PROMPT ); out.flush();
                     }
-                    if ( !quit ) {
+                    if ( !quit[ 0 ] ) {
                         out.println( "End of console input reached." );
                     }
                 }
@@ -296,6 +469,18 @@ public abstract class ConsoleApplication {
                     e.printStackTrace( System.err );
                 }
             }
+            catch( IOException ioe ) {
+                System.err.println( "ConsoleApplication event thread" );
+                System.err.println( "Cannot close console input" );
+            }
+            if ( out != null ) {
+                out.flush();
+            }
+            if ( batch ) {
+                final double seconds = ( System.nanoTime() - startTime ) / 1e9;
+                System.err.printf( "%d commands in %.3f s (%.0f commands/s)%n",
+                                   numCommands, seconds, numCommands / seconds );
+            }
         }
     }
 
@@ -308,6 +493,88 @@ public abstract class ConsoleApplication {
         return Arrays.asList( this.cmdLineArgs );
     }
 
+    /**
+     * Is this application running a script?
+     * @return true in batch mode (see {@link #BATCH_FLAG})
+     */
+    public boolean isBatch() {
+        return this.batch;
+    }
+
+    /**
+     * Copy a stream of frames, such as another user's screen, to this
+     * user's output, instead of the one followed before. Over the network
+     * frames are sent as they are published (a user too slow to keep up
+     * is skipped ahead); at the console they are printed after each
+     * command.
+     * @param frames the frames, each UTF-8 text, or null to stop
+     */
+    protected void follow( Broadcaster< ByteBuffer > frames ) {
+        this.feed = frames == null ? null : frames.subscribe();
+    }
+
+    /**
+     * The frames being followed
+     * @return their subscriber, or null if none are
+     */
+    Broadcaster< ByteBuffer >.Subscriber feed() {
+        return this.feed;
+    }
+
+    /**
+     * At the console, print the frames published since the last command.
+     */
+    private void printFeed() {
+        if ( this.feed == null ) {
+            return;
+        }
+        ByteBuffer frame;
+        while ( ( frame = this.feed.poll() ) != null ) {
+            this.out.print( StandardCharsets.UTF_8.decode( frame.duplicate() ) );
+        }
+    }
+
+    /**
+     * Print a message from another thread, such as the result of work
+     * done in the background, without waiting for the user's next
+     * command. Over the network it is sent when the connection's loop
+     * next wakes; at the console it is printed at once, between
+     * commands. The prompt is printed again after it.
+     * @param message the message, with its line separator(s)
+     */
+    protected void tell( String message ) {
+        this.mail.add( message );
+        final Runnable wake = this.onMail;
+        if ( wake != null ) {
+            wake.run();
+        }
+    }
+
+    /**
+     * Print the messages told since the last call, then the prompt if
+     * there were any. Called on the thread that prints the user's output.
+     * @param prompt the prompt
+     */
+    void printMail( String prompt ) {
+        String message = this.mail.poll();
+        if ( message == null ) {
+            return;
+        }
+        while ( message != null ) {
+            this.out.print( message );
+            message = this.mail.poll();
+        }
+        this.out.print( prompt );
+    }
+
+    /**
+     * Is this application serving a network client?
+     * @return true if it was started by a {@link ConsoleServer}
+     */
+    public boolean isRemote() {
+        return this.remote;
+    }
+
     /**
      * For an exception that occurs during the init phase
      */
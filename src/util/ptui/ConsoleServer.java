@@ -0,0 +1,616 @@
+package util.ptui;
+
+import util.concurrent.AdmissionController;
+import util.concurrent.Broadcaster;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serves a console application over the network: every connection gets
+ * its own instance of the application, which sees the connection as its
+ * console.
+ * <br><br>
+ * Instead of a thread per connection, a few event loops (one per
+ * processor) each watch many non-blocking connections with a
+ * {@link Selector}. Each connection stays on one loop, so its
+ * application is only ever used by that loop's thread, just as a console
+ * application is only used by its event thread. Lines are decoded into a
+ * char buffer and handed to the application's {@link CommandDispatcher}
+ * in place; output is encoded into direct byte buffers taken from the
+ * loop's pool and returned to it once sent. Frames of a feed the
+ * application {@link ConsoleApplication#follow follows} are sent as
+ * they are, shared by every connection following it.
+ * <br><br>
+ * A command runs on its loop's thread, so a slow command holds up the
+ * other connections on that loop. To keep a flood from a few clients
+ * from holding up everyone, the complete lines taken from a connection in
+ * one read are admitted by an {@link AdmissionController}, shared by all
+ * loops, before any of them is run; the lines that do not fit get a
+ * "busy" reply instead of being run. There is no queue of lines: each
+ * admitted line is let go of as soon as it has run, so the limit caps
+ * the lines of the reads being worked through at once (at most one read
+ * per loop), and a client sending faster than that is held back by its
+ * socket, not by the server. Clients that send a line at a time and wait
+ * for the answer are rarely affected.
+ * <br><br>
+ * No client can make the server hold on to much of its memory either: a
+ * connection is not read from while more than {@link #MAX_PENDING}
+ * buffers of its output are waiting to be sent, and one that sends a
+ * line longer than {@link #MAX_LINE} characters is told so and closed.
+ * <br><br>
+ * Use: in <code>main</code>, instead of
+ * {@link ConsoleApplication#launch(Class, String[])}:
+ * <br><br>
+ * <code>ConsoleServer.launch(&nbsp;MyPTUI.class,&nbsp;args,&nbsp;port&nbsp;);</code>
+ *
+ * @author RIT CS
+ */
+public class ConsoleServer {
+
+    /**
+     * The command line flag, followed by a port number, that asks for a
+     * server instead of a console
+     */
+    public static final String PORT_FLAG = "--port";
+
+    /** The size of every pooled buffer */
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * How many output buffers a connection may have waiting before it is
+     * no longer read from, until its client catches up
+     */
+    private static final int MAX_PENDING = 64;
+
+    /** The longest line a client may send, in characters */
+    private static final int MAX_LINE = 4 * BUFFER_SIZE;
+
+    /** The most idle buffers each loop keeps */
+    private static final int POOL_LIMIT = 256;
+
+    /**
+     * The most lines, across all loops, that may be admitted from the
+     * reads in progress and not yet run (property
+     * <code>util.ptui.admission</code>)
+     */
+    private static final int ADMISSION_LIMIT =
+            Integer.getInteger( "util.ptui.admission", 256 );
+
+    /** The reply to a line that is shed */
+    private static final String BUSY = "Server busy; try again.";
+
+    /** The application each connection gets an instance of */
+    private final Class< ? extends ConsoleApplication > ptuiClass;
+
+    /** The command line arguments each instance gets */
+    private final String[] args;
+
+    /** The event loops */
+    private final Loop[] loops;
+
+    /** Sheds the lines of a read that do not fit */
+    private final AdmissionController admission =
+            new AdmissionController( "server.lines", ADMISSION_LIMIT );
+
+    /**
+     * Set up a server and start its event loops.
+     * @param ptuiClass the application to serve
+     * @param args the command line arguments for each instance
+     * @param numLoops how many event loop threads to run
+     * @throws IOException if a selector cannot be opened
+     */
+    private ConsoleServer(
+            Class< ? extends ConsoleApplication > ptuiClass, String[] args,
+            int numLoops
+    ) throws IOException {
+        this.ptuiClass = ptuiClass;
+        this.args = Arrays.copyOf( args, args.length );
+        this.loops = new Loop[ numLoops ];
+        for ( int i = 0; i < numLoops; ++i ) {
+            this.loops[ i ] = new Loop();
+            final Thread t = new Thread( this.loops[ i ], "console-loop-" + i );
+            t.setDaemon( true );
+            t.start();
+        }
+    }
+
+    /**
+     * Serve a console application until the program is killed.
+     * @param ptuiClass the application; it must have a default constructor
+     * @param args the command line arguments each instance gets
+     * @param port the TCP port to listen on
+     */
+    public static void launch(
+            Class< ? extends ConsoleApplication > ptuiClass, String[] args,
+            int port
+    ) {
+        try ( ServerSocketChannel server = ServerSocketChannel.open() ) {
+            server.bind( new InetSocketAddress( port ) );
+            final ConsoleServer consoleServer = new ConsoleServer(
+                    ptuiClass, args, Runtime.getRuntime().availableProcessors() );
+            System.err.println( "Serving " + ptuiClass.getSimpleName() +
+                                " on port " + port );
+            int next = 0;
+            while ( true ) {
+                final SocketChannel channel = server.accept();
+                channel.configureBlocking( false );
+                consoleServer.loops[ next ].add( channel );
+                next = ( next + 1 ) % consoleServer.loops.length;
+            }
+        }
+        catch( IOException ioe ) {
+            System.err.println( "ConsoleServer stopped: " + ioe.getMessage() );
+        }
+    }
+
+    /**
+     * One event loop: a selector and the connections registered with it
+     */
+    private class Loop implements Runnable {
+
+        /** Watches this loop's connections */
+        private final Selector selector;
+
+        /** Connections accepted but not yet registered */
+        private final ConcurrentLinkedQueue< SocketChannel > incoming =
+                new ConcurrentLinkedQueue<>();
+
+        /** Idle direct buffers (only used by this loop's thread) */
+        private final ArrayDeque< ByteBuffer > pool = new ArrayDeque<>();
+
+        /** This loop's connections that are following a feed of frames */
+        private final List< Connection > followers = new ArrayList<>();
+
+        /** Wakes this loop when a followed feed has a new frame */
+        private final Runnable waker;
+
+        /** This loop's connections whose applications have been told something */
+        private final ConcurrentLinkedQueue< Connection > mailed =
+                new ConcurrentLinkedQueue<>();
+
+        /**
+         * Create a loop.
+         * @throws IOException if the selector cannot be opened
+         */
+        Loop() throws IOException {
+            this.selector = Selector.open();
+            this.waker = this.selector::wakeup;
+        }
+
+        /**
+         * Hand a new connection to this loop (from any thread).
+         * @param channel the connection
+         */
+        void add( SocketChannel channel ) {
+            this.incoming.add( channel );
+            this.selector.wakeup();
+        }
+
+        /**
+         * Get a cleared buffer from the pool.
+         * @return the buffer
+         */
+        ByteBuffer acquire() {
+            final ByteBuffer b = this.pool.poll();
+            return b != null ? b.clear() : ByteBuffer.allocateDirect( BUFFER_SIZE );
+        }
+
+        /**
+         * Give a buffer back to the pool.
+         * @param b the buffer
+         */
+        void release( ByteBuffer b ) {
+            if ( this.pool.size() < POOL_LIMIT ) {
+                this.pool.push( b );
+            }
+        }
+
+        @Override
+        public void run() {
+            while ( true ) {
+                try {
+                    this.selector.select();
+                    SocketChannel channel;
+                    while ( ( channel = this.incoming.poll() ) != null ) {
+                        new Connection( this, channel );
+                    }
+                    final Iterator< SelectionKey > keys =
+                            this.selector.selectedKeys().iterator();
+                    while ( keys.hasNext() ) {
+                        final SelectionKey key = keys.next();
+                        keys.remove();
+                        final Connection c = (Connection)key.attachment();
+                        try {
+                            if ( key.isValid() && key.isReadable() ) {
+                                c.read();
+                            }
+                            if ( key.isValid() && key.isWritable() ) {
+                                c.send();
+                            }
+                        }
+                        catch( IOException ioe ) {
+                            c.close();
+                        }
+                        catch( RuntimeException re ) {
+                            drop( c, re );
+                        }
+                    }
+                    Connection told;
+                    while ( ( told = this.mailed.poll() ) != null ) {
+                        try {
+                            told.flushOutput();
+                        }
+                        catch( RuntimeException re ) {
+                            drop( told, re );
+                        }
+                    }
+                    for ( int i = this.followers.size() - 1; i >= 0; --i ) {
+                        final Connection c = this.followers.get( i );
+                        try {
+                            c.flushOutput();
+                        }
+                        catch( RuntimeException re ) {
+                            drop( c, re );
+                        }
+                    }
+                }
+                catch( IOException ioe ) {
+                    System.err.println( "ConsoleServer loop: " + ioe.getMessage() );
+                }
+            }
+        }
+
+        /**
+         * Close a connection whose application failed, leaving the rest
+         * of the loop's connections running.
+         * @param c the connection
+         * @param re what went wrong
+         */
+        private void drop( Connection c, RuntimeException re ) {
+            System.err.println( "ConsoleServer: closing a connection: " + re );
+            c.close();
+        }
+    }
+
+    /**
+     * One client, and its own instance of the application
+     */
+    private class Connection {
+
+        /** The loop this connection belongs to */
+        private final Loop loop;
+
+        /** The socket */
+        private final SocketChannel channel;
+
+        /** The socket's registration with the loop's selector */
+        private SelectionKey key;
+
+        /** The application instance */
+        private ConsoleApplication app;
+
+        /** The application's commands */
+        private CommandDispatcher dispatcher;
+
+        /** The application's output stream */
+        private PrintWriter out;
+
+        /** The prompt after each line ("" in batch mode) */
+        private String prompt;
+
+        /** Bytes read but not yet decoded (a pooled buffer) */
+        private ByteBuffer in;
+
+        /** Turns bytes into characters */
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+
+        /** Turns characters into bytes */
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+
+        /** Characters decoded but not yet dispatched (a partial line) */
+        private CharBuffer chars = CharBuffer.allocate( BUFFER_SIZE );
+
+        /** The output buffer being filled, or null */
+        private ByteBuffer filling;
+
+        /** Filled output buffers, flipped, waiting to be sent */
+        private final ArrayDeque< ByteBuffer > pending = new ArrayDeque<>();
+
+        /** The frames this connection is following, or null */
+        private Broadcaster< ByteBuffer >.Subscriber following;
+
+        /** How many frames are waiting to be sent */
+        private int framesPending;
+
+        /** True once the user has quit; close when the output is sent */
+        private boolean closing;
+
+        /**
+         * Register a new connection and start its application. If the
+         * application cannot start, the reason is sent and the connection
+         * is closed.
+         * @param loop the loop it belongs to
+         * @param channel the socket
+         */
+        Connection( Loop loop, SocketChannel channel ) {
+            this.loop = loop;
+            this.channel = channel;
+            this.in = loop.acquire();
+            this.out = new PrintWriter( new Output(), false );
+            try {
+                this.key = channel.register( loop.selector, SelectionKey.OP_READ, this );
+                this.app = ConsoleApplication.create(
+                        ConsoleServer.this.ptuiClass, ConsoleServer.this.args );
+                this.app.remote = true;
+                this.app.init();
+                this.prompt = this.app.isBatch() ? "" : ConsoleApplication.PROMPT;
+                this.dispatcher = this.app.open( this.out, () -> this.closing = true );
+                this.app.onMail = () -> {
+                    loop.mailed.add( this );
+                    loop.selector.wakeup();
+                };
+                this.out.print( this.prompt );
+            }
+            catch( Exception e ) {
+                this.out.println( "Cannot start: " + e.getMessage() );
+                this.closing = true;
+            }
+            this.flushOutput();
+        }
+
+        /**
+         * Read what the client sent and run every complete line. The lines
+         * are admitted all at once; those that are not get a "busy" reply,
+         * and each admitted line is let go of as soon as it has run.
+         * @throws IOException if the socket fails
+         */
+        void read() throws IOException {
+            if ( this.channel.read( this.in ) < 0 ) {
+                this.close();
+                return;
+            }
+            this.in.flip();
+            this.decoder.decode( this.in, this.chars, false );
+            this.in.compact();
+
+            final char[] buf = this.chars.array();
+            final int filled = this.chars.position();
+            int numLines = 0;
+            for ( int i = 0; i < filled; ++i ) {
+                if ( buf[ i ] == '\n' ) {
+                    ++numLines;
+                }
+            }
+            final AdmissionController admission = ConsoleServer.this.admission;
+            int admitted = this.closing ? 0 : admission.tryEnter( numLines );
+            int lineStart = 0;
+            try {
+                for ( int i = 0; i < filled && !this.closing; ++i ) {
+                    if ( buf[ i ] == '\n' ) {
+                        int lineEnd = i;
+                        if ( lineEnd > lineStart && buf[ lineEnd - 1 ] == '\r' ) {
+                            --lineEnd;
+                        }
+                        if ( admitted == 0 ) {
+                            this.out.println( BUSY );
+                            this.out.print( this.prompt );
+                        }
+                        else {
+                            --admitted;
+                            boolean more;
+                            try {
+                                more = this.dispatcher.dispatch(
+                                        buf, lineStart, lineEnd - lineStart );
+                            }
+                            finally {
+                                admission.exit();
+                            }
+                            if ( more ) {
+                                this.out.print( this.prompt );
+                            }
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+            }
+            finally {
+                for ( ; admitted > 0; --admitted ) { // the user quit, or a command failed
+                    admission.exit();
+                }
+            }
+            System.arraycopy( buf, lineStart, buf, 0, filled - lineStart );
+            this.chars.position( filled - lineStart );
+            if ( !this.chars.hasRemaining() ) { // a very long line
+                if ( buf.length >= MAX_LINE ) {
+                    this.out.println( "Line too long." );
+                    this.chars.clear();
+                    this.closing = true;
+                }
+                else {
+                    final CharBuffer bigger = CharBuffer.allocate(
+                            Math.min( buf.length * 2, MAX_LINE ) );
+                    this.chars.flip();
+                    this.chars = bigger.put( this.chars );
+                }
+            }
+            this.flushOutput();
+        }
+
+        /**
+         * Move everything the application has printed, or been told from
+         * other threads, to the send queue, then any new frames of the
+         * feed it follows, and send as much as the socket will take.
+         * Frames are only queued once the ones before have been sent, so
+         * a slow client is skipped ahead rather than making the queue
+         * grow.
+         */
+        void flushOutput() {
+            if ( !this.channel.isOpen() ) {
+                return;
+            }
+            if ( this.dispatcher != null && !this.closing ) {
+                this.app.printMail( this.prompt );
+            }
+            this.out.flush();
+            if ( this.filling != null && this.filling.position() > 0 ) {
+                this.pending.add( this.filling.flip() );
+                this.filling = null;
+            }
+            final Broadcaster< ByteBuffer >.Subscriber feed =
+                    this.app == null ? null : this.app.feed();
+            if ( feed != this.following ) {
+                if ( this.following == null ) {
+                    this.loop.followers.add( this );
+                }
+                else if ( feed == null ) {
+                    this.loop.followers.remove( this );
+                }
+                if ( feed != null ) {
+                    feed.broadcaster().addListener( this.loop.waker );
+                }
+                this.following = feed;
+            }
+            if ( feed != null && this.framesPending == 0 ) {
+                ByteBuffer frame;
+                while ( ( frame = feed.poll() ) != null ) {
+                    this.pending.add( frame.duplicate() );
+                    this.framesPending += 1;
+                }
+            }
+            try {
+                this.send();
+            }
+            catch( IOException ioe ) {
+                this.close();
+            }
+        }
+
+        /**
+         * Send queued output until it is all gone or the socket is full.
+         * The client is only read from while it is not closing and not
+         * more than {@link #MAX_PENDING} buffers are left to send.
+         * @throws IOException if the socket fails
+         */
+        void send() throws IOException {
+            ByteBuffer b;
+            while ( ( b = this.pending.peek() ) != null ) {
+                this.channel.write( b );
+                if ( b.hasRemaining() ) {
+                    break;
+                }
+                this.pending.poll();
+                this.recycle( b );
+            }
+            if ( this.pending.isEmpty() && this.closing ) {
+                this.close();
+            }
+            else if ( this.key != null && this.key.isValid() ) {
+                final int reading =
+                        this.closing || this.pending.size() > MAX_PENDING
+                        ? 0 : SelectionKey.OP_READ;
+                this.key.interestOps( this.pending.isEmpty()
+                        ? reading : reading | SelectionKey.OP_WRITE );
+            }
+        }
+
+        /**
+         * Done with a sent buffer: return it to the pool, unless it is
+         * a frame (frames are shared, and read-only).
+         * @param b the buffer
+         */
+        private void recycle( ByteBuffer b ) {
+            if ( b.isReadOnly() ) {
+                this.framesPending -= 1;
+            }
+            else {
+                this.loop.release( b );
+            }
+        }
+
+        /**
+         * Stop the application, close the socket, and return the buffers.
+         */
+        void close() {
+            if ( !this.channel.isOpen() ) {
+                return;
+            }
+            try {
+                if ( this.app != null ) {
+                    this.app.stop();
+                }
+            }
+            catch( Exception e ) {
+                System.err.println( "ConsoleServer: app stop code failed: " +
+                                    e.getMessage() );
+            }
+            try {
+                this.channel.close();
+            }
+            catch( IOException ioe ) {
+                // closing anyway
+            }
+            this.loop.release( this.in );
+            for ( ByteBuffer b : this.pending ) {
+                this.recycle( b );
+            }
+            if ( this.following != null ) {
+                this.loop.followers.remove( this );
+                this.following = null;
+            }
+            this.pending.clear();
+            if ( this.filling != null ) {
+                this.loop.release( this.filling );
+                this.filling = null;
+            }
+        }
+
+        /**
+         * The application's output: characters are encoded straight into
+         * pooled buffers
+         */
+        private class Output extends Writer {
+
+            @Override
+            public void write( char[] cbuf, int off, int len ) {
+                final CharBuffer source = CharBuffer.wrap( cbuf, off, len );
+                while ( true ) {
+                    if ( Connection.this.filling == null ) {
+                        Connection.this.filling = Connection.this.loop.acquire();
+                    }
+                    final CoderResult result = Connection.this.encoder.encode(
+                            source, Connection.this.filling, false );
+                    if ( !result.isOverflow() ) {
+                        return;
+                    }
+                    Connection.this.pending.add( Connection.this.filling.flip() );
+                    Connection.this.filling = null;
+                }
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package util.ptui;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A consistent-hash ring: maps keys to nodes so that adding or removing
+ * a node moves only the keys that belong on (or came from) that node,
+ * about 1/n of them.
+ * <br><br>
+ * Each node is placed on the ring at many points ("virtual nodes") so
+ * that the keys are shared out evenly. A key belongs to the first node
+ * point at or after its own hash, going round.
+ * <br><br>
+ * A ring is not thread-safe.
+ *
+ * @param <N> the type of the nodes; its toString names the node
+ * @author RIT CS
+ */
+public class HashRing< N > {
+
+    /** How many points each node normally gets */
+    public static final int VIRTUAL_NODES = 160;
+
+    /** How many points each node gets on this ring */
+    private final int virtualNodes;
+
+    /** The points, by hash */
+    private final TreeMap< Integer, N > ring = new TreeMap<>();
+
+    /** The nodes, in the order added */
+    private final Set< N > nodes = new LinkedHashSet<>();
+
+    /**
+     * Create an empty ring.
+     * @param virtualNodes how many points each node gets
+     */
+    public HashRing( int virtualNodes ) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * Add a node (nothing happens if it is already there).
+     * @param node the node
+     */
+    public void add( N node ) {
+        if ( this.nodes.add( node ) ) {
+            for ( int i = 0; i < this.virtualNodes; ++i ) {
+                this.ring.putIfAbsent( hash( node + "#" + i ), node );
+            }
+        }
+    }
+
+    /**
+     * Remove a node.
+     * @param node the node
+     * @return true if it was on the ring
+     */
+    public boolean remove( N node ) {
+        if ( !this.nodes.remove( node ) ) {
+            return false;
+        }
+        this.ring.values().removeIf( node::equals );
+        return true;
+    }
+
+    /**
+     * Which node does a key belong to?
+     * @param key the key
+     * @return its node, or null if the ring is empty
+     */
+    public N route( String key ) {
+        if ( this.ring.isEmpty() ) {
+            return null;
+        }
+        final Map.Entry< Integer, N > point = this.ring.ceilingEntry( hash( key ) );
+        return point != null ? point.getValue() : this.ring.firstEntry().getValue();
+    }
+
+    /**
+     * The nodes on the ring
+     * @return an unmodifiable view of the nodes, in the order added
+     */
+    public Set< N > nodes() {
+        return Collections.unmodifiableSet( this.nodes );
+    }
+
+    /**
+     * A well-mixed hash of a string (FNV-1a, then a final avalanche,
+     * since neighbouring names such as "host:9001#7" and "host:9001#8"
+     * must land far apart)
+     * @param s the string
+     * @return the hash
+     */
+    private static int hash( String s ) {
+        int h = 0x811C9DC5;
+        for ( int i = 0; i < s.length(); ++i ) {
+            h = ( h ^ s.charAt( i ) ) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ ( h >>> 16 );
+    }
+}
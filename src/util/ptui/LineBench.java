@@ -0,0 +1,207 @@
+package util.ptui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures how many lines a second a {@link ConsoleServer}, or a
+ * {@link ShardRouter} in front of several, can answer. Each client
+ * connects, waits for the prompt, then sends a line and waits for the
+ * prompt that follows its answer, over and over, for a given time; one
+ * such exchange is a round trip. The total throughput and the latency of
+ * a round trip are printed at the end.
+ * <br><br>
+ * To see how a router scales, run its backends on their own cores and
+ * measure through it with one backend, then two, and so on (with the
+ * router's add command). The line must not be one the application limits
+ * the rate of.
+ * <br><br>
+ * Usage: <code>java util.ptui.LineBench <em>port</em> <em>clients</em>
+ * <em>seconds</em> [<em>line</em>]</code>, the line being "new" unless
+ * given.
+ *
+ * @author RIT CS
+ */
+public class LineBench {
+
+    /** The line sent unless another is given */
+    private static final String DEFAULT_LINE = "new";
+
+    /**
+     * One client's connection, round trips and latencies
+     */
+    private static class Client extends Thread {
+
+        /** The port to connect to */
+        private final int port;
+
+        /** The line to send, with its terminator */
+        private final byte[] line;
+
+        /** When to stop, in {@link System#nanoTime()} */
+        private final long endNanos;
+
+        /** Opened to start every client at once */
+        private final CountDownLatch start;
+
+        /** Every round trip's latency, in nanoseconds */
+        private long[] latencies = new long[ 1024 ];
+
+        /** How many round trips have been made */
+        private int numTrips;
+
+        /** What went wrong, or null */
+        private IOException failure;
+
+        /**
+         * Create a client.
+         * @param port the port to connect to
+         * @param line the line to send
+         * @param endNanos when to stop
+         * @param start opened to start
+         */
+        Client( int port, String line, long endNanos, CountDownLatch start ) {
+            super( "bench-client" );
+            this.port = port;
+            this.line = ( line + "\n" ).getBytes( StandardCharsets.UTF_8 );
+            this.endNanos = endNanos;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            try ( Socket socket = new Socket( "localhost", this.port ) ) {
+                socket.setTcpNoDelay( true );
+                final InputStream in = socket.getInputStream();
+                final OutputStream out = socket.getOutputStream();
+                awaitPrompt( in );
+                this.start.await();
+                while ( System.nanoTime() < this.endNanos ) {
+                    final long sent = System.nanoTime();
+                    out.write( this.line );
+                    out.flush();
+                    awaitPrompt( in );
+                    this.record( System.nanoTime() - sent );
+                }
+            }
+            catch( IOException ioe ) {
+                this.failure = ioe;
+            }
+            catch( InterruptedException ie ) {
+                // stop
+            }
+        }
+
+        /**
+         * Note a round trip's latency.
+         * @param nanos the latency
+         */
+        private void record( long nanos ) {
+            if ( this.numTrips == this.latencies.length ) {
+                this.latencies = Arrays.copyOf( this.latencies, this.numTrips * 2 );
+            }
+            this.latencies[ this.numTrips ] = nanos;
+            this.numTrips += 1;
+        }
+    }
+
+    /**
+     * Read until the end of a prompt.
+     * @param in the connection
+     * @throws IOException if the connection fails or is closed
+     */
+    private static void awaitPrompt( InputStream in ) throws IOException {
+        final String prompt = ConsoleApplication.PROMPT;
+        int matched = 0;
+        while ( matched < prompt.length() ) {
+            final int b = in.read();
+            if ( b < 0 ) {
+                throw new IOException( "Connection closed" );
+            }
+            matched = b == prompt.charAt( matched ) ? matched + 1
+                    : b == prompt.charAt( 0 ) ? 1 : 0;
+        }
+    }
+
+    /**
+     * Run the clients and report.
+     * @param args the port, the number of clients, the number of seconds
+     *             and, optionally, the line
+     */
+    public static void main( String[] args ) {
+        final int port;
+        final int numClients;
+        final int seconds;
+        try {
+            port = Integer.parseInt( args[ 0 ] );
+            numClients = Integer.parseInt( args[ 1 ] );
+            seconds = Integer.parseInt( args[ 2 ] );
+        }
+        catch( IndexOutOfBoundsException | NumberFormatException e ) {
+            System.err.println(
+                    "Usage: java util.ptui.LineBench port clients seconds [line]" );
+            return;
+        }
+        final String line = args.length > 3 ? args[ 3 ] : DEFAULT_LINE;
+        final CountDownLatch start = new CountDownLatch( 1 );
+        // Connecting is left out of the time measured.
+        final long endNanos = System.nanoTime() + ( seconds + 1 ) * 1_000_000_000L;
+        final Client[] clients = new Client[ numClients ];
+        for ( int c = 0; c < numClients; ++c ) {
+            clients[ c ] = new Client( port, line, endNanos, start );
+            clients[ c ].start();
+        }
+        try {
+            Thread.sleep( 1000 );
+            final long begin = System.nanoTime();
+            start.countDown();
+            for ( Client client : clients ) {
+                client.join();
+            }
+            final double elapsed = ( System.nanoTime() - begin ) / 1e9;
+
+            int total = 0;
+            int failed = 0;
+            for ( Client client : clients ) {
+                total += client.numTrips;
+                failed += client.failure == null ? 0 : 1;
+            }
+            final long[] all = new long[ total ];
+            int at = 0;
+            for ( Client client : clients ) {
+                System.arraycopy( client.latencies, 0, all, at, client.numTrips );
+                at += client.numTrips;
+            }
+            Arrays.sort( all );
+            System.out.printf( "%d clients (%d failed), %d round trips in %.3f s: " +
+                               "%.0f lines/s%n",
+                               numClients, failed, total, elapsed, total / elapsed );
+            System.out.printf( "latency us: p50 %.1f  p99 %.1f  max %.1f%n",
+                               percentile( all, 0.5 ) / 1e3,
+                               percentile( all, 0.99 ) / 1e3,
+                               all.length == 0 ? 0 : all[ all.length - 1 ] / 1e3 );
+        }
+        catch( InterruptedException ie ) {
+            System.err.println( "Interrupted" );
+        }
+    }
+
+    /**
+     * A value that a given fraction of the values do not exceed
+     * @param sorted the values, in order
+     * @param fraction from 0 to 1
+     * @return the percentile, or 0 if there are no values
+     */
+    private static long percentile( long[] sorted, double fraction ) {
+        if ( sorted.length == 0 ) {
+            return 0;
+        }
+        final int i = (int)Math.ceil( fraction * sorted.length ) - 1;
+        return sorted[ Math.max( 0, i ) ];
+    }
+}
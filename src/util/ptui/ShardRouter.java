@@ -0,0 +1,524 @@
+package util.ptui;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads the sessions of a console application over several server
+ * processes (each a {@link ConsoleServer}), so that one machine's cores
+ * can all be used, or one process's limits got around.
+ * <br><br>
+ * Clients connect to the router as if it were the server. Each session
+ * is assigned a backend by a {@link HashRing consistent-hash ring}, and
+ * its lines are passed along unchanged, as is the backend's output.
+ * A session is placed by its client's address until the client gives a
+ * name with the {@link #NAME} command; from then on it is placed by the
+ * name (and moved, if need be), so a player who reconnects under the
+ * same name gets the same backend.
+ * When backends are added or removed (with the router's own console
+ * commands), only the sessions whose place on the ring changes are
+ * moved. A session is moved by sending its old backend the
+ * {@link #SAVE} command, whose reply must be a line starting with
+ * {@link #STATE_MARKER}, and sending what follows the marker to the new
+ * backend with the {@link #LOAD} command. Applications served this way
+ * must have both commands.
+ * <br><br>
+ * The router runs two threads per session and one per connection to a
+ * backend; it is meant for a modest number of backends on one machine.
+ * <br><br>
+ * Use: <code>java util.ptui.ShardRouter <em>port</em>
+ * <em>backend</em>...</code>, where each backend is
+ * <code><em>host</em>:<em>port</em></code>, or just a port on this
+ * machine.
+ *
+ * @author RIT CS
+ */
+public class ShardRouter extends ConsoleApplication {
+
+    /** The command that makes an application print its session's state */
+    public static final String SAVE = "save";
+
+    /** The command, followed by a saved state, that picks a session up */
+    public static final String LOAD = "load";
+
+    /** The command, followed by a name, that says who the client is */
+    public static final String NAME = "name";
+
+    /** What the reply to {@link #SAVE} starts with */
+    public static final String STATE_MARKER = "#state ";
+
+    /** How long to wait for a backend to save a session, in milliseconds */
+    private static final long HANDOVER_TIMEOUT = 5000;
+
+    /** Which backend each session goes to (guarded by this) */
+    private final HashRing< InetSocketAddress > ring =
+            new HashRing<>( HashRing.VIRTUAL_NODES );
+
+    /** The sessions open now */
+    private final Set< Session > sessions = ConcurrentHashMap.newKeySet();
+
+    /** Accepts clients */
+    private ServerSocket listener;
+
+    /** Where the router's console output goes */
+    private PrintWriter out;
+
+    /**
+     * Read the port and the first backends from the command line and
+     * start accepting clients.
+     * @throws Exception if the arguments are wrong or the port is taken
+     */
+    @Override
+    public void init() throws Exception {
+        final List< String > args = super.getArguments();
+        if ( args.size() < 2 ) {
+            throw new Exception(
+                    "Usage: java util.ptui.ShardRouter port backend..." );
+        }
+        for ( String backend : args.subList( 1, args.size() ) ) {
+            this.ring.add( address( backend ) );
+        }
+        this.listener = new ServerSocket( Integer.parseInt( args.get( 0 ) ) );
+        final Thread acceptor = new Thread( this::accept, "router-accept" );
+        acceptor.setDaemon( true );
+        acceptor.start();
+    }
+
+    /**
+     * Set up the router's console commands.
+     * @param out where the router's output goes
+     */
+    @Override
+    public void start( PrintWriter out ) {
+        this.out = out;
+        super.setOnCommand( "add", 1, "<host:port>: Add a backend",
+                            args -> this.add( args.get( 0 ).toString() )
+        );
+        super.setOnCommand( "remove", 1, "<host:port>: Remove a backend",
+                            args -> this.remove( args.get( 0 ).toString() )
+        );
+        super.setOnCommand( "backends", 0, ": Show the backends",
+                            args -> this.backends()
+        );
+        super.setOnCommand( "sessions", 0, ": Show the sessions",
+                            args -> this.showSessions()
+        );
+    }
+
+    /**
+     * Stop accepting clients and close every session.
+     * @throws IOException if the listener cannot be closed
+     */
+    @Override
+    public void stop() throws IOException {
+        this.listener.close();
+        for ( Session s : this.sessions ) {
+            s.close();
+        }
+    }
+
+    /**
+     * Turn a backend's name into its address.
+     * @param backend <em>host</em>:<em>port</em>, or a port on this machine
+     * @return the address
+     * @throws NumberFormatException if there is no proper port number
+     */
+    private static InetSocketAddress address( String backend ) {
+        final int colon = backend.lastIndexOf( ':' );
+        return colon < 0
+                ? new InetSocketAddress( "localhost", Integer.parseInt( backend ) )
+                : new InetSocketAddress( backend.substring( 0, colon ),
+                        Integer.parseInt( backend.substring( colon + 1 ) ) );
+    }
+
+    /**
+     * The name a line gives the client, if it is a {@link #NAME} command
+     * @param line the line
+     * @return the name, or null
+     */
+    private static String nameIn( String line ) {
+        final String[] words = line.trim().split( "\\s+" );
+        return words.length == 2 && words[ 0 ].equals( NAME ) ? words[ 1 ] : null;
+    }
+
+    /**
+     * Which backend should a session be on now?
+     * @param key the session's key
+     * @return the backend's address
+     */
+    private synchronized InetSocketAddress route( String key ) {
+        return this.ring.route( key );
+    }
+
+    /**
+     * Accept clients until the listener is closed.
+     */
+    private void accept() {
+        try {
+            while ( true ) {
+                final Socket client = this.listener.accept();
+                try {
+                    final Session session = new Session( client );
+                    this.sessions.add( session );
+                    final Thread t = new Thread( session::pump, "router-client" );
+                    t.setDaemon( true );
+                    t.start();
+                }
+                catch( IOException ioe ) {
+                    System.err.println( "Cannot reach a backend: " + ioe.getMessage() );
+                    client.close();
+                }
+            }
+        }
+        catch( IOException ioe ) {
+            // closed by stop
+        }
+    }
+
+    /**
+     * Add a backend, and move the sessions that now belong on it.
+     * @param backend the backend's name
+     */
+    private void add( String backend ) {
+        try {
+            final InetSocketAddress address = address( backend );
+            synchronized( this ) {
+                this.ring.add( address );
+            }
+            this.rebalance();
+        }
+        catch( NumberFormatException nfe ) {
+            this.out.println( "Not a backend: " + backend );
+        }
+    }
+
+    /**
+     * Remove a backend, and move its sessions elsewhere.
+     * @param backend the backend's name
+     */
+    private void remove( String backend ) {
+        try {
+            final InetSocketAddress address = address( backend );
+            synchronized( this ) {
+                if ( !this.ring.nodes().contains( address ) ) {
+                    this.out.println( "No such backend: " + backend );
+                    return;
+                }
+                if ( this.ring.nodes().size() == 1 ) {
+                    this.out.println( "Cannot remove the last backend." );
+                    return;
+                }
+                this.ring.remove( address );
+            }
+            this.rebalance();
+        }
+        catch( NumberFormatException nfe ) {
+            this.out.println( "Not a backend: " + backend );
+        }
+    }
+
+    /**
+     * Move every session that is not on the backend it now belongs on.
+     */
+    private void rebalance() {
+        int moved = 0;
+        for ( Session s : this.sessions ) {
+            if ( s.moveTo( this.route( s.key ) ) ) {
+                ++moved;
+            }
+        }
+        this.out.println( moved + " of " + this.sessions.size() +
+                          " sessions moved." );
+    }
+
+    /**
+     * Display the backends.
+     */
+    private synchronized void backends() {
+        for ( InetSocketAddress address : this.ring.nodes() ) {
+            this.out.println( address.getHostString() + ":" + address.getPort() );
+        }
+    }
+
+    /**
+     * Display how many sessions each backend has.
+     */
+    private void showSessions() {
+        for ( InetSocketAddress address : this.ring.nodes() ) {
+            final long count = this.sessions.stream()
+                    .filter( s -> address.equals( s.backend() ) )
+                    .count();
+            this.out.println( address.getHostString() + ":" +
+                              address.getPort() + " " + count );
+        }
+    }
+
+    /**
+     * One client, and its connection to its current backend
+     */
+    private class Session {
+
+        /**
+         * What places the session on the ring: the client's name, or its
+         * address until it gives one (changed only while holding this)
+         */
+        private volatile String key;
+
+        /** The client */
+        private final Socket client;
+
+        /** Output to the client (guarded by itself) */
+        private final Writer toClient;
+
+        /** The connection to the current backend (guarded by this) */
+        private Link link;
+
+        /**
+         * Connect a new client to its backend.
+         * @param client the client
+         * @throws IOException if the backend cannot be reached
+         */
+        Session( Socket client ) throws IOException {
+            this.client = client;
+            this.key = client.getRemoteSocketAddress().toString();
+            this.toClient = new OutputStreamWriter(
+                    client.getOutputStream(), StandardCharsets.UTF_8 );
+            this.link = new Link( this, route( this.key ) );
+        }
+
+        /**
+         * Which backend is this session on?
+         * @return the backend's address
+         */
+        synchronized InetSocketAddress backend() {
+            return this.link.address;
+        }
+
+        /**
+         * Pass the client's lines to the backend until the client leaves.
+         */
+        void pump() {
+            try ( BufferedReader in = new BufferedReader( new InputStreamReader(
+                    this.client.getInputStream(), StandardCharsets.UTF_8 ) ) ) {
+                String line;
+                while ( ( line = in.readLine() ) != null ) {
+                    synchronized( this ) {
+                        this.link.send( line );
+                        final String name = nameIn( line );
+                        if ( name != null && !name.equals( this.key ) ) {
+                            this.key = name;
+                            this.moveTo( route( name ) );
+                        }
+                    }
+                }
+            }
+            catch( IOException ioe ) {
+                // the client or the backend went away
+            }
+            this.close();
+        }
+
+        /**
+         * Send output to the client.
+         * @param text the output
+         */
+        void write( CharSequence text ) {
+            synchronized( this.toClient ) {
+                try {
+                    this.toClient.append( text );
+                    this.toClient.flush();
+                }
+                catch( IOException ioe ) {
+                    // the client pump will notice
+                }
+            }
+        }
+
+        /**
+         * Move this session to another backend, taking its state along.
+         * Lines from the client wait until the move is over.
+         * @param target the backend it belongs on
+         * @return true if it had to move
+         */
+        synchronized boolean moveTo( InetSocketAddress target ) {
+            if ( target.equals( this.link.address ) ) {
+                return false;
+            }
+            final String state = this.link.handOver();
+            try {
+                this.link = new Link( this, target );
+                if ( state != null ) {
+                    this.link.send( LOAD + " " + state );
+                }
+                else {
+                    this.write( "Session moved; the game in progress was lost." +
+                                System.lineSeparator() );
+                }
+            }
+            catch( IOException ioe ) {
+                this.write( "Session lost: " + ioe.getMessage() +
+                            System.lineSeparator() );
+                this.close();
+            }
+            return true;
+        }
+
+        /**
+         * Disconnect the client and its backend.
+         */
+        void close() {
+            sessions.remove( this );
+            try {
+                this.client.close();
+            }
+            catch( IOException ioe ) {
+                // closing anyway
+            }
+            synchronized( this ) {
+                this.link.close();
+            }
+        }
+    }
+
+    /**
+     * One session's connection to one backend
+     */
+    private class Link {
+
+        /** The session */
+        private final Session session;
+
+        /** The backend */
+        private final InetSocketAddress address;
+
+        /** The connection */
+        private final Socket socket;
+
+        /** Lines to the backend */
+        private final Writer toBackend;
+
+        /** Set when the session is leaving this backend */
+        private volatile boolean retiring;
+
+        /** The session's state, once the backend has saved it */
+        private final CompletableFuture< String > state = new CompletableFuture<>();
+
+        /**
+         * Connect to a backend and start passing its output to the client.
+         * @param session the session
+         * @param address the backend
+         * @throws IOException if the backend cannot be reached
+         */
+        Link( Session session, InetSocketAddress address ) throws IOException {
+            this.session = session;
+            this.address = address;
+            this.socket = new Socket( address.getAddress(), address.getPort() );
+            this.toBackend = new BufferedWriter( new OutputStreamWriter(
+                    this.socket.getOutputStream(), StandardCharsets.UTF_8 ) );
+            final Thread t = new Thread( this::pump, "router-backend" );
+            t.setDaemon( true );
+            t.start();
+        }
+
+        /**
+         * Send a line to the backend.
+         * @param line the line, without its terminator
+         * @throws IOException if the backend has gone away
+         */
+        void send( String line ) throws IOException {
+            this.toBackend.write( line );
+            this.toBackend.write( '\n' );
+            this.toBackend.flush();
+        }
+
+        /**
+         * Pass the backend's output to the client. Once the session is
+         * retiring, hold the output back until the saved state shows up,
+         * pass on what came before it, and drop everything after.
+         */
+        private void pump() {
+            final char[] buf = new char[ 8192 ];
+            final StringBuilder held = new StringBuilder();
+            try ( Reader in = new InputStreamReader(
+                    this.socket.getInputStream(), StandardCharsets.UTF_8 ) ) {
+                int n;
+                while ( ( n = in.read( buf ) ) >= 0 ) {
+                    if ( !this.retiring ) {
+                        this.session.write( new String( buf, 0, n ) );
+                    }
+                    else if ( !this.state.isDone() ) {
+                        held.append( buf, 0, n );
+                        final int at = held.indexOf( STATE_MARKER );
+                        final int end = at < 0 ? -1 : held.indexOf( "\n", at );
+                        if ( end >= 0 ) {
+                            this.session.write( held.subSequence( 0, at ) );
+                            this.state.complete( held.substring(
+                                    at + STATE_MARKER.length(), end ).trim() );
+                        }
+                    }
+                }
+            }
+            catch( IOException ioe ) {
+                // the backend went away, or was closed by handOver
+            }
+            this.state.complete( null );
+            if ( !this.retiring ) { // the application quit, or crashed
+                this.session.close();
+            }
+        }
+
+        /**
+         * Have the backend save the session, and disconnect from it.
+         * @return the saved state, or null if the backend did not give it
+         */
+        String handOver() {
+            this.retiring = true;
+            String saved = null;
+            try {
+                this.send( SAVE );
+                saved = this.state.get( HANDOVER_TIMEOUT, TimeUnit.MILLISECONDS );
+            }
+            catch( Exception e ) {
+                // no state; the session starts afresh
+            }
+            this.close();
+            return saved;
+        }
+
+        /**
+         * Disconnect from the backend.
+         */
+        void close() {
+            this.retiring = true;
+            try {
+                this.socket.close();
+            }
+            catch( IOException ioe ) {
+                // closing anyway
+            }
+        }
+    }
+
+    /**
+     * Start the router.
+     * @param args the port to listen on, then the backends
+     */
+    public static void main( String[] args ) {
+        ConsoleApplication.launch( ShardRouter.class, args );
+    }
+}